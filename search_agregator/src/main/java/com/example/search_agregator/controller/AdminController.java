@@ -0,0 +1,64 @@
+package com.example.search_agregator.controller;
+
+import com.example.search_agregator.service.DataInitializer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+
+@RestController
+@Slf4j
+@RequestMapping("/api/v1/admin")
+public class AdminController {
+    private final DataInitializer dataInitializer;
+    private final String adminToken;
+
+    public AdminController(DataInitializer dataInitializer,
+                           @Value("${admin.token:}") String adminToken) {
+        this.dataInitializer = dataInitializer;
+        this.adminToken = adminToken;
+    }
+
+    /**
+     * Внеплановая загрузка таблицы. Без force таблица загружается, только если изменилась.
+     * Запрос должен прийти с admin.token в заголовке X-Admin-Token. Пока токен не задан, эндпоинт закрыт:
+     * иначе любой мог бы запускать полную переиндексацию.
+     */
+    @PostMapping("/spreadsheet/refresh")
+    public ResponseEntity<Map<String, String>> refreshSpreadsheet(
+            @RequestParam(name = "force", defaultValue = "false") boolean force,
+            @RequestHeader(name = "X-Admin-Token", required = false) String token) {
+        if (!isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            DataInitializer.RefreshOutcome outcome = dataInitializer.refresh(force);
+            HttpStatus status = outcome == DataInitializer.RefreshOutcome.BUSY ? HttpStatus.CONFLICT : HttpStatus.OK;
+            return ResponseEntity.status(status).body(Map.of("status", outcome.name()));
+        } catch (Exception e) {
+            log.error("ОШИБКА при обновлении таблицы по запросу: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body(Map.of("status", "FAILED", "error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Сравнение за постоянное время: по времени ответа нельзя подобрать токен посимвольно.
+     */
+    private boolean isAuthorized(String token) {
+        if (adminToken.isEmpty() || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
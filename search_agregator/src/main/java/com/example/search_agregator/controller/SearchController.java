@@ -1,44 +1,154 @@
 package com.example.search_agregator.controller;
 
+import com.example.search_agregator.model.BulkResult;
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.IndicatorRange;
 import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import com.example.search_agregator.model.ProjectSuggestion;
+import com.example.search_agregator.model.ProjectSummary;
 import com.example.search_agregator.repository.ProjectCardRepository;
-import com.example.search_agregator.service.DataInitializer;
+import com.example.search_agregator.service.ApiWriteGate;
 import com.example.search_agregator.service.GoogleSheetsService;
+import com.example.search_agregator.service.ProjectBulkService;
+import com.example.search_agregator.service.ProjectIdAllocator;
+import com.example.search_agregator.service.ProjectIndexChangedEvent;
+import com.example.search_agregator.service.ProjectSearchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Collections;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.StreamSupport;
+
 
 @RestController
 @RequiredArgsConstructor
 @Slf4j
 @RequestMapping("/api/v1/projects")
 public class SearchController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    // full - карточки целиком, summary - только то, что показывается в списке результатов
+    private static final String VIEW_FULL = "full";
+    private static final String VIEW_SUMMARY = "summary";
+
     private final ProjectCardRepository projectCardRepository;
-    private final DataInitializer dataInitializer;
+    private final ProjectSearchService projectSearchService;
+    private final ProjectBulkService projectBulkService;
+    private final ProjectIdAllocator projectIdAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ApiWriteGate apiWriteGate;
     private final GoogleSheetsService googleSheetsService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${search.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${search.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${search.suggest.default-size:8}")
+    private int defaultSuggestSize;
+
+    @Value("${search.suggest.max-size:20}")
+    private int maxSuggestSize;
+
+    @Value("${search.export.batch-size:500}")
+    private int exportBatchSize;
+
+    @Value("${api.bulk.max-items:1000}")
+    private int maxBulkItems;
+
+    /**
+     * Полнотекстовый поиск по q и/или структурные фильтры: status (можно несколько), период dateFrom..dateTo,
+     * пересекающийся со сроками строительства, ответственный person и значение показателя indicator
+     * (в секции indicatorSection, если задана) в диапазоне indicatorMin..indicatorMax. Первая страница содержит фасеты.
+     * view=summary - вместо полных карточек только поля {@link ProjectSummary}.
+     */
     @GetMapping("/search")
-    public List<ProjectCard> searchProjects(@RequestParam(name = "q", required = false) String query) {
+    public ResponseEntity<CursorPage<?>> searchProjects(@RequestParam(name = "q", required = false) String query,
+                                                        @RequestParam(name = "status", required = false) List<String> statuses,
+                                                        @RequestParam(name = "dateFrom", required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
+                                                        @RequestParam(name = "dateTo", required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+                                                        @RequestParam(name = "person", required = false) String person,
+                                                        @RequestParam(name = "indicator", required = false) String indicator,
+                                                        @RequestParam(name = "indicatorSection", required = false) String indicatorSection,
+                                                        @RequestParam(name = "indicatorMin", required = false) Double indicatorMin,
+                                                        @RequestParam(name = "indicatorMax", required = false) Double indicatorMax,
+                                                        @RequestParam(name = "view", defaultValue = VIEW_FULL) String view,
+                                                        @RequestParam(name = "size", required = false) Integer size,
+                                                        @RequestParam(name = "cursor", required = false) String cursor) {
+        if (!isKnownView(view)) {
+            return ResponseEntity.badRequest().build();
+        }
+        IndicatorRange indicatorRange = null;
+        if (indicator != null && !indicator.isBlank()) {
+            try {
+                indicatorRange = new IndicatorRange(indicator, indicatorSection, indicatorMin, indicatorMax);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        } else if (indicatorSection != null || indicatorMin != null || indicatorMax != null) {
+            return ResponseEntity.badRequest().build();
+        }
+        ProjectFilter filter = new ProjectFilter(statuses, dateFrom, dateTo, person, indicatorRange);
+        boolean noText = query == null || query.trim().isEmpty();
+        if (noText && filter.isEmpty()) {
+            return ResponseEntity.ok(CursorPage.empty());
+        }
+        if (dateFrom != null && dateTo != null && dateFrom.isAfter(dateTo)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            String text = noText ? null : query;
+            return ResponseEntity.ok(VIEW_SUMMARY.equals(view)
+                    ? projectSearchService.searchSummaries(text, filter, pageSize(size), cursor)
+                    : projectSearchService.search(text, filter, pageSize(size), cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Подсказки при наборе: id и строки для выпадающего списка, без полных карточек.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProjectSuggestion>> suggestProjects(@RequestParam(name = "q", required = false) String query,
+                                                                   @RequestParam(name = "size", required = false) Integer size) {
         if (query == null || query.trim().isEmpty()) {
-            return Collections.emptyList();
+            return ResponseEntity.ok(List.of());
         }
-        return projectCardRepository.findByQuery(query);
+        int limit = size == null || size <= 0 ? defaultSuggestSize : Math.min(size, maxSuggestSize);
+        return ResponseEntity.ok(projectSearchService.suggest(query, limit));
     }
 
     @PostMapping
     public ResponseEntity<ProjectCard> createProject(@RequestBody ProjectCard projectCard) {
         try {
             if (projectCard.getId() == null || projectCard.getId().trim().isEmpty()) {
-                String newId = dataInitializer.generateNextId();
+                String newId = projectIdAllocator.nextId();
                 projectCard.setId(newId);
+            } else {
+                projectIdAllocator.observe(projectCard.getId());
             }
             
-            ProjectCard savedProject = projectCardRepository.save(projectCard);
+            ProjectCard savedProject = apiWriteGate.write(() -> {
+                ProjectCard saved = projectCardRepository.save(projectCard);
+                eventPublisher.publishEvent(ProjectIndexChangedEvent.saved("create " + saved.getId(), List.of(saved)));
+                return saved;
+            });
             
             boolean sheetsSuccess = googleSheetsService.addProjectToSheets(savedProject);
             if (!sheetsSuccess) {
@@ -53,16 +163,87 @@ public class SearchController {
     
     
 
+    /**
+     * Пакетное создание: массив карточек, ответ - статус каждой в порядке запроса (200 даже при отказах отдельных карточек).
+     */
+    @PostMapping("/_bulk")
+    public ResponseEntity<BulkResult> bulkCreateProjects(@RequestBody List<ProjectCard> projectCards) {
+        if (projectCards.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (projectCards.size() > maxBulkItems) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        try {
+            return ResponseEntity.ok(projectBulkService.create(projectCards));
+        } catch (Exception e) {
+            log.error("Пакетное создание не выполнено: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Пакетное удаление: массив id. Отсутствующие карточки - not_found, без ошибки для всего запроса.
+     */
+    @PostMapping("/_bulk_delete")
+    public ResponseEntity<BulkResult> bulkDeleteProjects(@RequestBody List<String> ids) {
+        if (ids.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (ids.size() > maxBulkItems) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        try {
+            return ResponseEntity.ok(projectBulkService.delete(ids));
+        } catch (Exception e) {
+            log.error("Пакетное удаление не выполнено: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping
-    public List<ProjectCard> getAllProjects() {
-        Iterable<ProjectCard> iterable = projectCardRepository.findAll();
-        return StreamSupport.stream(iterable.spliterator(), false)
-                .toList();
+    public ResponseEntity<CursorPage<?>> getAllProjects(@RequestParam(name = "view", defaultValue = VIEW_FULL) String view,
+                                                        @RequestParam(name = "size", required = false) Integer size,
+                                                        @RequestParam(name = "cursor", required = false) String cursor) {
+        if (!isKnownView(view)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(VIEW_SUMMARY.equals(view)
+                    ? projectSearchService.findAllSummaries(pageSize(size), cursor)
+                    : projectSearchService.findAllPage(pageSize(size), cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Выгрузка всех карточек в NDJSON: одна карточка - одна строка.
+     * Карточки пишутся в ответ по мере чтения из индекса, поэтому память не зависит от размера индекса.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProjects() {
+        StreamingResponseBody body = out -> {
+            try {
+                projectCardRepository.forEachCard(exportBatchSize, card -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(card));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Обычно это клиент, закрывший соединение посреди выгрузки
+                log.warn("Выгрузка прервана: {}", e.getCause().getMessage());
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ProjectCard> getProjectById(@PathVariable String id) {
-        return projectCardRepository.findById(id)
+        return projectSearchService.findById(id)
                 .map(project -> ResponseEntity.ok().body(project))
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -70,8 +251,15 @@ public class SearchController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProject(@PathVariable String id) {
         try {
-            if (projectCardRepository.existsById(id)) {
+            boolean deleted = apiWriteGate.write(() -> {
+                if (!projectCardRepository.existsById(id)) {
+                    return false;
+                }
                 projectCardRepository.deleteById(id);
+                eventPublisher.publishEvent(ProjectIndexChangedEvent.deleted("delete " + id, List.of(id)));
+                return true;
+            });
+            if (deleted) {
                 return ResponseEntity.noContent().build();
             } else {
                 return ResponseEntity.notFound().build();
@@ -81,4 +269,14 @@ public class SearchController {
         }
     }
 
+    private static boolean isKnownView(String view) {
+        return VIEW_FULL.equals(view) || VIEW_SUMMARY.equals(view);
+    }
+
+    private int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
 }
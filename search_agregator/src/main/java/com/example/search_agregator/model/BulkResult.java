@@ -0,0 +1,38 @@
+package com.example.search_agregator.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Ответ пакетных операций /_bulk и /_bulk_delete в духе bulk API Elasticsearch: общий признак errors
+ * и по элементу на каждую карточку запроса в том же порядке.
+ *
+ * @param errors true, если хотя бы один элемент завершился ошибкой; not_found при удалении ошибкой не считается
+ * @param items  результаты по карточкам в порядке запроса
+ */
+public record BulkResult(boolean errors, List<Item> items) {
+
+    public static BulkResult of(List<Item> items) {
+        return new BulkResult(items.stream().anyMatch(item -> !item.isSuccess()), items);
+    }
+
+    /**
+     * @param id     id карточки; у отклонённой без id карточки - null
+     * @param status HTTP-статус элемента: 201 created, 200 updated и deleted, 404 not_found, 4xx/5xx - ошибка
+     * @param result created, updated, deleted или not_found; у ошибок отсутствует
+     * @param error  причина ошибки
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Item(String id, int status, String result, String error) {
+        public static Item failed(String id, int status, String error) {
+            return new Item(id, status, null, error);
+        }
+
+        @JsonIgnore
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.search_agregator.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница результатов с курсором search_after.
+ * nextCursor - непрозрачная строка, которую клиент передаёт в следующий запрос;
+ * null, если страниц больше нет.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+
+    // Оценка общего числа совпадений. При totalHitsRelation = "gte" это нижняя граница
+    private long totalHits;
+
+    private String totalHitsRelation; // "eq" или "gte"
+
+    private String nextCursor;
+
+    // Только у первой страницы /search: на следующих фасеты те же, пересчитывать их незачем
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private SearchFacets facets;
+
+    public CursorPage(List<T> items, long totalHits, String totalHitsRelation, String nextCursor) {
+        this(items, totalHits, totalHitsRelation, nextCursor, null);
+    }
+
+    /**
+     * Та же страница (курсор, счётчики, фасеты) с преобразованными элементами.
+     */
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(items.stream().<R>map(mapper).toList(), totalHits, totalHitsRelation, nextCursor, facets);
+    }
+
+    public static <T> CursorPage<T> empty() {
+        return new CursorPage<>(List.of(), 0, "eq", null);
+    }
+}
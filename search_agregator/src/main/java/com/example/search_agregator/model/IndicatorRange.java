@@ -0,0 +1,28 @@
+package com.example.search_agregator.model;
+
+/**
+ * Условие по значению показателя: у карточки есть запись показателя name (в секции section, если она задана),
+ * числовое значение которой попадает в [min, max]. Без границ - достаточно, чтобы показатель был.
+ *
+ * @param name    название показателя, точное совпадение
+ * @param section "Секция N" или "total"; null - любая секция
+ * @param min     нижняя граница включительно или null
+ * @param max     верхняя граница включительно или null
+ */
+public record IndicatorRange(String name, String section, Double min, Double max) {
+
+    public IndicatorRange {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Не задано название показателя");
+        }
+        if (min != null && max != null && min > max) {
+            throw new IllegalArgumentException("Нижняя граница показателя больше верхней");
+        }
+        name = name.trim();
+        section = section == null || section.isBlank() ? null : section.trim();
+    }
+
+    public boolean hasBounds() {
+        return min != null || max != null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.search_agregator.model;
+
+import lombok.*;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+/**
+ * Одно значение показателя в индексе: вложенный документ name/section/value вместо динамического
+ * объекта indicators, у которого каждое новое название показателя или секции добавляло поля в маппинг.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndicatorValue {
+    @Field(type = FieldType.Keyword, name = "name")
+    private String name; // Название показателя
+
+    // "Секция N" или "total"; null - показатель без значений, хранится только ради имени
+    @Field(type = FieldType.Keyword, name = "section")
+    private String section;
+
+    // Значение как в таблице - для ответа API, не индексируется
+    @Field(type = FieldType.Keyword, name = "value", index = false, docValues = false)
+    private String value;
+
+    // Значение числом для фильтров по диапазону; null, если в ячейке не число
+    @Field(type = FieldType.Double, name = "numericValue")
+    private Double numericValue;
+
+    public static IndicatorValue of(String name, String section, String value) {
+        return new IndicatorValue(name, section, value, parseNumber(value));
+    }
+
+    /**
+     * Число в записи из таблицы: "14363,50", "1 250", "28728.0". Пробелы (в том числе неразрывные)
+     * между разрядами отбрасываются, запятая - десятичный разделитель.
+     */
+    public static Double parseNumber(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                continue;
+            }
+            digits.append(c == ',' ? '.' : c);
+        }
+        if (digits.isEmpty()) {
+            return null;
+        }
+        try {
+            double number = Double.parseDouble(digits.toString());
+            return Double.isFinite(number) ? number : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.search_agregator.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,12 +24,16 @@ import java.util.Map;
 @Document(indexName = "project_cards")
 public class ProjectCard {
     @Id
+    @Field(type = FieldType.Keyword, name = "id")
     private String id; // Уникальный идентификатор
 
-    @Field(type = FieldType.Text, name = "title", analyzer = "russian")
+    // title.suggest / address.suggest - search_as_you_type для подсказок при наборе (/api/v1/projects/suggest)
+    @MultiField(mainField = @Field(type = FieldType.Text, name = "title", analyzer = "russian"),
+            otherFields = @InnerField(suffix = "suggest", type = FieldType.Search_As_You_Type))
     private String title; // Название (крупно), например "г.Киров, ЖК Знак, МЖД №35"
 
-    @Field(type = FieldType.Text, name = "address", analyzer = "russian")
+    @MultiField(mainField = @Field(type = FieldType.Text, name = "address", analyzer = "russian"),
+            otherFields = @InnerField(suffix = "suggest", type = FieldType.Search_As_You_Type))
     private String address; // Адрес фактический
 
     @Field(type = FieldType.Date, name = "startDate")
@@ -31,13 +42,16 @@ public class ProjectCard {
     @Field(type = FieldType.Date, name = "endDate")
     private LocalDate endDate; // Окончание строительства
 
-    @Field(type = FieldType.Text, name = "status", analyzer = "russian")
+    // status.keyword - точное значение для фильтра и фасета по статусу
+    @MultiField(mainField = @Field(type = FieldType.Text, name = "status", analyzer = "russian"),
+            otherFields = @InnerField(suffix = "keyword", type = FieldType.Keyword))
     private String status; // Статус
 
-    // Для таблицы с показателями. Простая реализация для хакатона.
-    // Ключ - название показателя, значение - Map, где ключ - "Секция N", а значение - сам показатель.
-    @Field(type = FieldType.Object, name = "indicators")
-    private Map<String, Map<String, String>> indicators;
+    // Показатели в индексе - вложенные записи name/section/value с фиксированным маппингом и числовым
+    // значением для фильтров по диапазону. В API они по-прежнему отдаются как map indicators (см. getIndicators)
+    @JsonIgnore
+    @Field(type = FieldType.Nested, name = "indicatorValues")
+    private List<IndicatorValue> indicatorValues;
 
     // Вложенный список ответственных лиц
     @Field(type = FieldType.Nested, name = "responsiblePersons")
@@ -46,4 +60,47 @@ public class ProjectCard {
     // Вложенный список ссылок на документы
     @Field(type = FieldType.Nested, name = "documentLinks")
     private List<DocumentLink> documentLinks;
+
+    // Хэш содержимого карточки на момент загрузки из таблицы. Нужен только для дельта-загрузки,
+    // поэтому не индексируется и не отдаётся в API
+    @JsonIgnore
+    @Field(type = FieldType.Keyword, name = "fingerprint", index = false)
+    private String fingerprint;
+
+    /**
+     * Показатели в прежнем виде: ключ - название показателя, значение - Map, где ключ - "Секция N" или "total",
+     * а значение - сам показатель. Порядок показателей и секций сохраняется.
+     */
+    @Transient
+    @JsonProperty("indicators")
+    public Map<String, Map<String, String>> getIndicators() {
+        if (indicatorValues == null) {
+            return null;
+        }
+        Map<String, Map<String, String>> indicators = new LinkedHashMap<>();
+        for (IndicatorValue entry : indicatorValues) {
+            Map<String, String> sections = indicators.computeIfAbsent(entry.getName(), name -> new LinkedHashMap<>());
+            if (entry.getSection() != null) {
+                sections.put(entry.getSection(), entry.getValue());
+            }
+        }
+        return indicators;
+    }
+
+    @JsonProperty("indicators")
+    public void setIndicators(Map<String, Map<String, String>> indicators) {
+        if (indicators == null) {
+            indicatorValues = null;
+            return;
+        }
+        List<IndicatorValue> values = new ArrayList<>();
+        indicators.forEach((name, sections) -> {
+            if (sections == null || sections.isEmpty()) {
+                values.add(new IndicatorValue(name, null, null, null));
+            } else {
+                sections.forEach((section, value) -> values.add(IndicatorValue.of(name, section, value)));
+            }
+        });
+        indicatorValues = values;
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.search_agregator.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Структурные условия поиска. В запросе к индексу они идут в контекст filter: не влияют на релевантность,
+ * не расширяются нечётким поиском и кэшируются Elasticsearch между запросами.
+ *
+ * @param statuses  статусы, точное совпадение с одним из них; пусто - любой статус
+ * @param dateFrom  начало периода: сроки строительства карточки должны пересекаться с [dateFrom, dateTo]
+ * @param dateTo    конец периода, включительно
+ * @param person    ответственный: все слова должны найтись в ФИО одного человека
+ * @param indicator значение показателя в диапазоне; null - без условия
+ */
+public record ProjectFilter(List<String> statuses, LocalDate dateFrom, LocalDate dateTo, String person,
+                            IndicatorRange indicator) {
+    public static final ProjectFilter NONE = new ProjectFilter(List.of(), null, null, null);
+
+    public ProjectFilter {
+        statuses = statuses == null ? List.of() : statuses.stream().filter(s -> s != null && !s.isBlank()).map(String::trim).toList();
+        person = person == null || person.isBlank() ? null : person.trim();
+    }
+
+    public ProjectFilter(List<String> statuses, LocalDate dateFrom, LocalDate dateTo, String person) {
+        this(statuses, dateFrom, dateTo, person, null);
+    }
+
+    public boolean isEmpty() {
+        return statuses.isEmpty() && dateFrom == null && dateTo == null && person == null && indicator == null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.search_agregator.model;
+
+import lombok.*;
+
+/**
+ * Подсказка при наборе запроса: только id и строки для показа в выпадающем списке.
+ * person - ФИО ответственного, если совпадение нашлось по нему, иначе null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectSuggestion {
+    private String id;
+
+    private String title;
+
+    private String address;
+
+    private String person;
+}
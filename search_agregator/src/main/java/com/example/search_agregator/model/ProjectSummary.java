@@ -0,0 +1,30 @@
+package com.example.search_agregator.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Строка списка результатов: только то, что видно в выдаче. Полная карточка - GET /api/v1/projects/{id}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProjectSummary {
+    // Поля _source, которые нужны для сводки; остальное Elasticsearch не читает и не передаёт
+    public static final String[] SOURCE_FIELDS = {"id", "title", "address", "status", "startDate", "endDate"};
+
+    private String id;
+    private String title;
+    private String address;
+    private String status;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    public static ProjectSummary of(ProjectCard card) {
+        return new ProjectSummary(card.getId(), card.getTitle(), card.getAddress(), card.getStatus(),
+                card.getStartDate(), card.getEndDate());
+    }
+}
@@ -3,18 +3,25 @@ package com.example.search_agregator.model;
 import lombok.*;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class ResponsiblePerson {
-    @Field(type = FieldType.Text, name = "fio", analyzer = "russian")
+    // Телефон после удаления оформления: "+" и от 10 до 15 цифр
+    private static final int PHONE_MIN_DIGITS = 10;
+    private static final int PHONE_MAX_DIGITS = 15;
+
+    @MultiField(mainField = @Field(type = FieldType.Text, name = "fio", analyzer = "russian"),
+            otherFields = @InnerField(suffix = "suggest", type = FieldType.Search_As_You_Type))
     private String fio;
 
     @Field(type = FieldType.Text, name = "position", analyzer = "russian")
     private String position;
 
     // Доп. поля, которые будут видны при "развороте"
+    // Телефон хранится в каноническом виде (см. canonicalPhone), чтобы искать его точным term-запросом
     @Field(type = FieldType.Keyword, name = "phone")
     private String phone;
 
@@ -23,4 +30,54 @@ public class ResponsiblePerson {
 
     @Field(type = FieldType.Text, name = "description")
     private String description;
+
+    public ResponsiblePerson(String fio, String position, String phone, String email, String description) {
+        this.fio = fio;
+        this.position = position;
+        setPhone(phone);
+        this.email = email;
+        this.description = description;
+    }
+
+    /**
+     * Значение, не похожее на телефон ("доб. 12", "нет"), сохраняется как есть.
+     */
+    public void setPhone(String phone) {
+        String canonical = canonicalPhone(phone);
+        this.phone = canonical != null ? canonical : phone;
+    }
+
+    /**
+     * Канонический вид телефона: "+" и цифры без пробелов, скобок, точек и дефисов. Российские номера
+     * в записи 8XXXXXXXXXX, 7XXXXXXXXXX и 9XXXXXXXXX (без кода страны) приводятся к +7XXXXXXXXXX.
+     *
+     * @return канонический номер или null, если значение не телефон
+     */
+    public static String canonicalPhone(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(PHONE_MAX_DIGITS);
+        boolean plus = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c == '+' && !plus && digits.isEmpty()) {
+                plus = true;
+            } else if (!(Character.isWhitespace(c) || Character.isSpaceChar(c) || c == '-' || c == '(' || c == ')' || c == '.')) {
+                return null;
+            }
+        }
+        if (digits.length() < PHONE_MIN_DIGITS || digits.length() > PHONE_MAX_DIGITS) {
+            return null;
+        }
+        if (!plus && digits.length() == 11 && (digits.charAt(0) == '8' || digits.charAt(0) == '7')) {
+            return "+7" + digits.substring(1);
+        }
+        if (!plus && digits.length() == 10 && digits.charAt(0) == '9') {
+            return "+7" + digits;
+        }
+        return "+" + digits;
+    }
 }
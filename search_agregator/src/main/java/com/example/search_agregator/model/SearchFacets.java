@@ -0,0 +1,22 @@
+package com.example.search_agregator.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Фасеты выдачи /search: сколько совпадений в каждом статусе и по годам начала строительства.
+ *
+ * Счётчики статусов не учитывают фильтр по статусу, чтобы в интерфейсе можно было выбрать несколько
+ * статусов сразу; годы считаются по выдаче со всеми фильтрами.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchFacets {
+    private Map<String, Long> statuses; // статус -> число карточек, по убыванию
+
+    private Map<Integer, Long> years; // год начала строительства -> число карточек, по возрастанию
+}
@@ -0,0 +1,17 @@
+package com.example.search_agregator.model;
+
+import java.util.List;
+
+/**
+ * Ответ репозитория на запрос подсказок.
+ *
+ * @param suggestions подсказки по убыванию релевантности
+ * @param timedOut    true, если шарды не уложились в таймаут и вернули только то, что успели найти:
+ *                    такой неполный список не кэшируется
+ */
+public record SuggestionResult(List<ProjectSuggestion> suggestions, boolean timedOut) {
+
+    public static SuggestionResult complete(List<ProjectSuggestion> suggestions) {
+        return new SuggestionResult(suggestions, false);
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.search_agregator.repository;
+
+import com.example.search_agregator.model.BulkResult;
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import com.example.search_agregator.model.ProjectSummary;
+import com.example.search_agregator.model.SuggestionResult;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.StreamSupport;
+
+/**
+ * Репозиторий карточек для профиля embedded: поиск в памяти процесса на {@link LocalProjectIndex}, без Elasticsearch.
+ * Подходит для разработки, демо и тестов; данные живут до перезапуска и заново загружаются из таблицы.
+ *
+ * RefreshPolicy игнорируется: запись видна поиску сразу после возврата из метода.
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedProjectCardRepository implements ProjectCardRepository, AutoCloseable {
+    // Поля маппинга с одним значением на карточку; у text-полей сравнивается исходная строка
+    private static final Map<String, Function<ProjectCard, Comparable<?>>> SORT_FIELDS = Map.of(
+            "id", ProjectCard::getId,
+            "title", ProjectCard::getTitle,
+            "address", ProjectCard::getAddress,
+            "status", ProjectCard::getStatus,
+            "status.keyword", ProjectCard::getStatus,
+            "startDate", ProjectCard::getStartDate,
+            "endDate", ProjectCard::getEndDate);
+
+    private final LocalProjectIndex index = new LocalProjectIndex();
+
+    @Override
+    public List<ProjectCard> findByQuery(String query) {
+        return index.search(query);
+    }
+
+    @Override
+    public CursorPage<ProjectCard> searchPage(String query, ProjectFilter filter, int size, String cursor) {
+        return index.searchPage(query, filter, size, cursor);
+    }
+
+    @Override
+    public CursorPage<ProjectSummary> searchSummaryPage(String query, ProjectFilter filter, int size, String cursor) {
+        return index.searchPage(query, filter, size, cursor).map(ProjectSummary::of);
+    }
+
+    @Override
+    public CursorPage<ProjectCard> findAllPage(int size, String cursor) {
+        return index.findAllPage(size, cursor);
+    }
+
+    @Override
+    public CursorPage<ProjectSummary> findAllSummaryPage(int size, String cursor) {
+        return index.findAllPage(size, cursor).map(ProjectSummary::of);
+    }
+
+    @Override
+    public void forEachCard(int batchSize, Consumer<ProjectCard> consumer) {
+        index.forEachCard(consumer);
+    }
+
+    @Override
+    public Map<String, String> findAllFingerprints() {
+        return index.findAllFingerprints();
+    }
+
+    @Override
+    public long findMaxNumericId() {
+        return index.findMaxNumericId();
+    }
+
+    @Override
+    public SuggestionResult suggest(String prefix, int size) {
+        return SuggestionResult.complete(index.suggest(prefix, size));
+    }
+
+    /**
+     * Статусы как у bulk API кластера: 201 created, 200 updated.
+     */
+    @Override
+    public List<BulkResult.Item> bulkSave(List<ProjectCard> cards) {
+        List<BulkResult.Item> items = new ArrayList<>(cards.size());
+        Set<String> written = new HashSet<>();
+        for (ProjectCard card : cards) {
+            // Повтор id в том же запросе, как и в кластере, перезаписывает предыдущую карточку
+            boolean exists = !written.add(card.getId()) || index.findById(card.getId()).isPresent();
+            items.add(exists
+                    ? new BulkResult.Item(card.getId(), 200, "updated", null)
+                    : new BulkResult.Item(card.getId(), 201, "created", null));
+        }
+        index.saveAll(cards);
+        return items;
+    }
+
+    @Override
+    public List<BulkResult.Item> bulkDelete(List<String> ids) {
+        List<BulkResult.Item> items = new ArrayList<>(ids.size());
+        Set<String> deleted = new HashSet<>();
+        for (String id : ids) {
+            items.add(deleted.add(id) && index.findById(id).isPresent()
+                    ? new BulkResult.Item(id, 200, "deleted", null)
+                    : new BulkResult.Item(id, 404, "not_found", null));
+        }
+        index.deleteAll(ids);
+        return items;
+    }
+
+    /**
+     * Записывает и удаляет карточки одним шагом, см. {@link LocalProjectIndex#update}.
+     */
+    public void update(List<ProjectCard> toSave, List<String> toDelete) {
+        index.update(toSave, toDelete);
+    }
+
+    /**
+     * См. {@link LocalProjectIndex#moreLikeThis}.
+     */
+    @Override
+    public Page<ProjectCard> searchSimilar(ProjectCard entity, String[] fields, Pageable pageable) {
+        return page(index.moreLikeThis(entity, fields == null ? List.of() : List.of(fields)), pageable);
+    }
+
+    @Override
+    public <S extends ProjectCard> S save(S entity) {
+        index.save(entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends ProjectCard> S save(S entity, RefreshPolicy refreshPolicy) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends ProjectCard> Iterable<S> saveAll(Iterable<S> entities) {
+        index.saveAll(entities);
+        return entities;
+    }
+
+    @Override
+    public <S extends ProjectCard> Iterable<S> saveAll(Iterable<S> entities, RefreshPolicy refreshPolicy) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public Optional<ProjectCard> findById(String id) {
+        return index.findById(id);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return index.findById(id).isPresent();
+    }
+
+    @Override
+    public Iterable<ProjectCard> findAll() {
+        return index.findAll();
+    }
+
+    @Override
+    public Iterable<ProjectCard> findAllById(Iterable<String> ids) {
+        List<ProjectCard> found = new ArrayList<>();
+        ids.forEach(id -> index.findById(id).ifPresent(found::add));
+        return found;
+    }
+
+    /**
+     * Сортировка в памяти по полям карточки; как в кластере, карточки без значения идут последними
+     * в обоих направлениях, при равенстве - по возрастанию id.
+     */
+    @Override
+    public Iterable<ProjectCard> findAll(Sort sort) {
+        List<ProjectCard> all = new ArrayList<>(index.findAll());
+        all.sort(comparator(sort));
+        return all;
+    }
+
+    @Override
+    public Page<ProjectCard> findAll(Pageable pageable) {
+        return page((List<ProjectCard>) findAll(pageable.getSort()), pageable);
+    }
+
+    @Override
+    public long count() {
+        return index.count();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        index.deleteAll(List.of(id));
+    }
+
+    @Override
+    public void deleteById(String id, RefreshPolicy refreshPolicy) {
+        deleteById(id);
+    }
+
+    @Override
+    public void delete(ProjectCard entity) {
+        deleteById(entity.getId());
+    }
+
+    @Override
+    public void delete(ProjectCard entity, RefreshPolicy refreshPolicy) {
+        delete(entity);
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        index.deleteAll(StreamSupport.stream(ids.spliterator(), false).map(String::valueOf).toList());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids, RefreshPolicy refreshPolicy) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends ProjectCard> entities) {
+        index.deleteAll(StreamSupport.stream(entities.spliterator(), false).map(ProjectCard::getId).toList());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends ProjectCard> entities, RefreshPolicy refreshPolicy) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAll() {
+        index.clear();
+    }
+
+    @Override
+    public void deleteAll(RefreshPolicy refreshPolicy) {
+        deleteAll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        index.close();
+    }
+
+    private static Page<ProjectCard> page(List<ProjectCard> all, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all, pageable, all.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<ProjectCard> comparator(Sort sort) {
+        Comparator<ProjectCard> result = null;
+        for (Sort.Order order : sort) {
+            Function<ProjectCard, Comparable> key = (Function) SORT_FIELDS.get(order.getProperty());
+            if (key == null) {
+                throw new IllegalArgumentException("Встроенный поиск не сортирует по полю " + order.getProperty());
+            }
+            Comparator<Comparable> values = order.isAscending() ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            Comparator<ProjectCard> byField = Comparator.comparing(key, Comparator.nullsLast(values));
+            result = result == null ? byField : result.thenComparing(byField);
+        }
+        Comparator<ProjectCard> byId = Comparator.comparing(ProjectCard::getId);
+        return result == null ? byId : result.thenComparing(byId);
+    }
+}
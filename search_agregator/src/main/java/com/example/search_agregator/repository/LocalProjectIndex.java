@@ -0,0 +1,752 @@
+package com.example.search_agregator.repository;
+
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.IndicatorRange;
+import com.example.search_agregator.model.IndicatorValue;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import com.example.search_agregator.model.ProjectSuggestion;
+import com.example.search_agregator.model.ResponsiblePerson;
+import com.example.search_agregator.model.SearchFacets;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldCollectorManager;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Поисковый индекс карточек в памяти процесса - на Lucene той же версии, что внутри Elasticsearch.
+ *
+ * Поля и запросы повторяют маппинг {@link ProjectCard} и {@link ProjectCardRepository#findByQuery(String)}:
+ * анализатор russian (стоп-слова и стемминг), multi_match с fuzziness AUTO по title/address/status и по ФИО/должности,
+ * точное совпадение телефона, email и id (по {@link SearchQueryRouter}), BM25. Поэтому находятся те же карточки, что и в кластере; порядок
+ * может немного отличаться, потому что ответственные здесь не вложенные документы, а многозначные поля.
+ *
+ * Сами карточки лежат в отсортированной по id карте, Lucene хранит только поисковые поля.
+ * Запись - под одной блокировкой, чтение не блокируется и видит индекс на момент последней записи.
+ */
+public class LocalProjectIndex implements Closeable {
+    static final int TOTAL_HITS_LIMIT = ProjectCardSearchRepositoryImpl.TOTAL_HITS_LIMIT;
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String ADDRESS = "address";
+    private static final String STATUS = "status";
+    private static final String STATUS_KEYWORD = "status.keyword";
+    private static final String START_DATE = "startDate";
+    private static final String END_DATE = "endDate";
+    private static final String FIO = "responsiblePersons.fio";
+    private static final String POSITION = "responsiblePersons.position";
+    private static final String PHONE = "responsiblePersons.phone";
+    private static final String EMAIL = "responsiblePersons.email";
+    private static final String SUGGEST = ".suggest";
+    private static final String INDICATOR_NAME = "indicatorValues.name";
+    // Числовые значения - в поле на каждый показатель и на пару показатель/секция: так диапазон
+    // проверяется у одной записи, как вложенный запрос в кластере
+    private static final String INDICATOR_VALUE = "indicatorValues.numericValue.";
+
+    // fuzziness AUTO в Elasticsearch: до 3 символов - точно, до 6 - одна правка, дальше две
+    private static final int FUZZY_MAX_EXPANSIONS = 50;
+    private static final int SUGGEST_OVERFETCH = 3;
+    // max_query_terms у more_like_this в кластере
+    private static final int MLT_MAX_TERMS = 25;
+    private static final List<String> MLT_FIELDS = List.of(TITLE, ADDRESS, STATUS, FIO, POSITION);
+    private static final float ID_BOOST = 10f;
+
+    private static final Sort BY_SCORE = new Sort(SortField.FIELD_SCORE, new SortField(ID, SortField.Type.STRING));
+
+    private final Analyzer russian = new RussianAnalyzer();
+    private final Analyzer standard = new StandardAnalyzer();
+    private final ByteBuffersDirectory directory = new ByteBuffersDirectory();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile NavigableMap<String, ProjectCard> cards = new ConcurrentSkipListMap<>();
+
+    public LocalProjectIndex() {
+        Map<String, Analyzer> perField = new HashMap<>();
+        for (String field : List.of(TITLE, ADDRESS, FIO)) {
+            perField.put(field + SUGGEST, standard);
+        }
+        try {
+            writer = new IndexWriter(directory, new IndexWriterConfig(new PerFieldAnalyzerWrapper(russian, perField)));
+            searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать локальный индекс", e);
+        }
+    }
+
+    public void save(ProjectCard card) {
+        saveAll(List.of(card));
+    }
+
+    public void saveAll(Iterable<? extends ProjectCard> toSave) {
+        write(() -> {
+            for (ProjectCard card : toSave) {
+                writer.updateDocument(new Term(ID, card.getId()), toDocument(card));
+                cards.put(card.getId(), card);
+            }
+        });
+    }
+
+    /**
+     * Заменяет всё содержимое индекса. Читатели видят либо прежний набор карточек, либо новый целиком.
+     */
+    public void replaceAll(Collection<? extends ProjectCard> replacement) {
+        replaceAll(replacement::forEach);
+    }
+
+    /**
+     * Как {@link #replaceAll(Collection)}, но карточки приходят потоком от source - без промежуточного списка.
+     * Если source упал на середине, в индексе восстанавливается прежний набор, а ошибка пробрасывается.
+     *
+     * @return число карточек в новом наборе
+     */
+    public long replaceAll(Consumer<Consumer<ProjectCard>> source) {
+        long[] count = new long[1];
+        write(() -> {
+            NavigableMap<String, ProjectCard> previous = cards;
+            NavigableMap<String, ProjectCard> next = new ConcurrentSkipListMap<>();
+            writer.deleteAll();
+            try {
+                source.accept(card -> {
+                    try {
+                        writer.updateDocument(new Term(ID, card.getId()), toDocument(card));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    next.put(card.getId(), card);
+                });
+            } catch (RuntimeException e) {
+                // Читатели всё это время видели прежний снимок: достаточно вернуть его документы в writer
+                writer.deleteAll();
+                for (ProjectCard card : previous.values()) {
+                    writer.updateDocument(new Term(ID, card.getId()), toDocument(card));
+                }
+                searcherManager.maybeRefreshBlocking();
+                throw e;
+            }
+            cards = next;
+            count[0] = next.size();
+        });
+        return count[0];
+    }
+
+    /**
+     * Записывает и удаляет карточки под одной блокировкой: читатели видят либо прежнее состояние, либо оба изменения.
+     */
+    public void update(Collection<? extends ProjectCard> toSave, Collection<String> toDelete) {
+        write(() -> {
+            for (ProjectCard card : toSave) {
+                writer.updateDocument(new Term(ID, card.getId()), toDocument(card));
+                cards.put(card.getId(), card);
+            }
+            for (String id : toDelete) {
+                writer.deleteDocuments(new Term(ID, id));
+                cards.remove(id);
+            }
+        });
+    }
+
+    public void deleteAll(Iterable<String> ids) {
+        write(() -> {
+            for (String id : ids) {
+                writer.deleteDocuments(new Term(ID, id));
+                cards.remove(id);
+            }
+        });
+    }
+
+    public void clear() {
+        replaceAll(List.of());
+    }
+
+    public Optional<ProjectCard> findById(String id) {
+        return Optional.ofNullable(cards.get(id));
+    }
+
+    public long count() {
+        return cards.size();
+    }
+
+    public Collection<ProjectCard> findAll() {
+        return List.copyOf(cards.values());
+    }
+
+    /**
+     * Все совпадения по убыванию релевантности - как {@link ProjectCardRepository#findByQuery(String)}.
+     */
+    public List<ProjectCard> search(String text) {
+        List<ProjectCard> result = new ArrayList<>();
+        withSearcher(searcher -> {
+            int total = Math.max(1, searcher.count(fullTextQuery(text)));
+            for (ScoreDoc hit : searcher.search(fullTextQuery(text), total, BY_SCORE).scoreDocs) {
+                addCard(result, (FieldDoc) hit);
+            }
+            return null;
+        });
+        return result;
+    }
+
+    /**
+     * Похожие карточки, как more_like_this в кластере: запрос из MLT_MAX_TERMS самых значимых по tf-idf слов
+     * в полях образца, выдача по убыванию релевантности без самого образца. Пороги min_term_freq и min_doc_freq
+     * здесь сняты: карточек сотни, и слово, встретившееся один раз, уже отличает объект.
+     *
+     * @param fields текстовые поля как в маппинге (title, responsiblePersons.fio ...); пусто - все текстовые поля
+     */
+    public List<ProjectCard> moreLikeThis(ProjectCard like, List<String> fields) {
+        List<String> searched = fields.isEmpty() ? MLT_FIELDS : fields;
+        for (String field : searched) {
+            if (!MLT_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Поле " + field + " не текстовое, more_like_this по нему невозможен");
+            }
+        }
+        List<ProjectCard> result = new ArrayList<>();
+        withSearcher(searcher -> {
+            Query query = moreLikeThisQuery(searcher, like, searched);
+            if (query == null) {
+                return null;
+            }
+            int total = Math.max(1, searcher.count(query));
+            for (ScoreDoc hit : searcher.search(query, total, BY_SCORE).scoreDocs) {
+                addCard(result, (FieldDoc) hit);
+            }
+            return null;
+        });
+        return result;
+    }
+
+    private Query moreLikeThisQuery(IndexSearcher searcher, ProjectCard like, List<String> fields) throws IOException {
+        record Candidate(Term term, double score) {
+        }
+        int numDocs = Math.max(1, searcher.getIndexReader().numDocs());
+        List<Candidate> candidates = new ArrayList<>();
+        for (String field : fields) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String value : textValues(like, field)) {
+                for (String term : terms(russian, field, value)) {
+                    frequencies.merge(term, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Term term = new Term(field, entry.getKey());
+                int docFreq = searcher.getIndexReader().docFreq(term);
+                if (docFreq == 0) {
+                    continue;
+                }
+                // Та же idf, что в BM25: редкое слово важнее частого
+                double idf = Math.log(1 + (numDocs - docFreq + 0.5) / (docFreq + 0.5));
+                candidates.add(new Candidate(term, entry.getValue() * idf));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (Candidate candidate : candidates.subList(0, Math.min(MLT_MAX_TERMS, candidates.size()))) {
+            builder.add(new TermQuery(candidate.term()), BooleanClause.Occur.SHOULD);
+        }
+        if (like.getId() != null) {
+            builder.add(new TermQuery(new Term(ID, like.getId())), BooleanClause.Occur.MUST_NOT);
+        }
+        return builder.build();
+    }
+
+    private static List<String> textValues(ProjectCard card, String field) {
+        List<String> values = new ArrayList<>();
+        switch (field) {
+            case TITLE -> values.add(card.getTitle());
+            case ADDRESS -> values.add(card.getAddress());
+            case STATUS -> values.add(card.getStatus());
+            case FIO, POSITION -> {
+                if (card.getResponsiblePersons() != null) {
+                    for (ResponsiblePerson person : card.getResponsiblePersons()) {
+                        values.add(FIO.equals(field) ? person.getFio() : person.getPosition());
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Поле " + field + " не текстовое");
+        }
+        values.removeIf(Objects::isNull);
+        return values;
+    }
+
+    /**
+     * Как {@link ProjectCardSearchRepository#searchPage}: курсор - значения сортировки [score, id]
+     * последней карточки, в том же формате, что отдаёт кластер. Фасеты - только на первой странице.
+     */
+    public CursorPage<ProjectCard> searchPage(String text, ProjectFilter filter, int size, String cursor) {
+        FieldDoc after = scoreCursor(SearchCursor.decode(cursor));
+        Query withoutStatus = filteredQuery(text, filter);
+        Query statusFilter = statusFilter(filter);
+        Query query = statusFilter == null ? withoutStatus : new BooleanQuery.Builder()
+                .add(withoutStatus, BooleanClause.Occur.MUST)
+                .add(statusFilter, BooleanClause.Occur.FILTER)
+                .build();
+        return withSearcher(searcher -> {
+            TopFieldDocs top = searcher.search(query,
+                    new TopFieldCollectorManager(BY_SCORE, size + 1, after, TOTAL_HITS_LIMIT));
+            List<ProjectCard> items = new ArrayList<>();
+            FieldDoc last = null;
+            for (ScoreDoc hit : top.scoreDocs) {
+                if (items.size() == size) {
+                    break;
+                }
+                last = (FieldDoc) hit;
+                addCard(items, last);
+            }
+            String nextCursor = top.scoreDocs.length > size && last != null
+                    ? SearchCursor.encode(List.of((double) (Float) last.fields[0], ((BytesRef) last.fields[1]).utf8ToString()))
+                    : null;
+            String relation = top.totalHits.relation == TotalHits.Relation.EQUAL_TO ? "eq" : "gte";
+            CursorPage<ProjectCard> page = new CursorPage<>(items, top.totalHits.value, relation, nextCursor);
+            if (cursor == null) {
+                page.setFacets(facets(searcher, withoutStatus, filter));
+            }
+            return page;
+        });
+    }
+
+    /**
+     * Те же фасеты, что в кластере: статусы - по выдаче без фильтра по статусу, годы - со всеми фильтрами.
+     */
+    private SearchFacets facets(IndexSearcher searcher, Query withoutStatus, ProjectFilter filter) throws IOException {
+        Map<String, Long> statusCounts = new HashMap<>();
+        Map<Integer, Long> yearCounts = new TreeMap<>();
+        int total = Math.max(1, searcher.count(withoutStatus));
+        for (ScoreDoc hit : searcher.search(withoutStatus, total, BY_SCORE).scoreDocs) {
+            ProjectCard card = cards.get(((BytesRef) ((FieldDoc) hit).fields[1]).utf8ToString());
+            if (card == null) {
+                continue;
+            }
+            if (card.getStatus() != null) {
+                statusCounts.merge(card.getStatus(), 1L, Long::sum);
+            }
+            boolean statusMatches = filter.statuses().isEmpty() || filter.statuses().contains(card.getStatus());
+            if (statusMatches && card.getStartDate() != null) {
+                yearCounts.merge(card.getStartDate().getYear(), 1L, Long::sum);
+            }
+        }
+        // Как terms-агрегация: по убыванию числа карточек, при равенстве - по значению
+        Map<String, Long> statuses = new LinkedHashMap<>();
+        statusCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> statuses.put(entry.getKey(), entry.getValue()));
+        return new SearchFacets(statuses, new LinkedHashMap<>(yearCounts));
+    }
+
+    /**
+     * Как {@link ProjectCardSearchRepository#findAllPage}: по возрастанию id, курсор - [id].
+     */
+    public CursorPage<ProjectCard> findAllPage(int size, String cursor) {
+        List<Object> after = SearchCursor.decode(cursor);
+        NavigableMap<String, ProjectCard> snapshot = cards;
+        NavigableMap<String, ProjectCard> tail = after == null
+                ? snapshot
+                : snapshot.tailMap(String.valueOf(after.get(0)), false);
+        List<ProjectCard> items = new ArrayList<>(size);
+        String nextCursor = null;
+        for (ProjectCard card : tail.values()) {
+            if (items.size() == size) {
+                nextCursor = SearchCursor.encode(List.of(items.get(size - 1).getId()));
+                break;
+            }
+            items.add(card);
+        }
+        long total = snapshot.size();
+        return new CursorPage<>(items, Math.min(total, TOTAL_HITS_LIMIT), total > TOTAL_HITS_LIMIT ? "gte" : "eq", nextCursor);
+    }
+
+    /**
+     * Как {@link ProjectCardSearchRepository#suggest}: слова запроса, кроме последнего, должны совпасть целиком,
+     * последнее - как префикс. У ответственных слова должны найтись у одного и того же человека.
+     */
+    public List<ProjectSuggestion> suggest(String prefix, int size) {
+        List<String> terms = terms(standard, TITLE + SUGGEST, prefix);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        Query query = new DisjunctionMaxQuery(List.of(
+                prefixQuery(TITLE + SUGGEST, terms),
+                prefixQuery(ADDRESS + SUGGEST, terms),
+                prefixQuery(FIO + SUGGEST, terms)), 0);
+        return withSearcher(searcher -> {
+            List<ProjectSuggestion> suggestions = new ArrayList<>(size);
+            Query titleOrAddress = new DisjunctionMaxQuery(List.of(
+                    prefixQuery(TITLE + SUGGEST, terms),
+                    prefixQuery(ADDRESS + SUGGEST, terms)), 0);
+            for (ScoreDoc hit : searcher.search(query, size * SUGGEST_OVERFETCH, BY_SCORE).scoreDocs) {
+                ProjectCard card = cards.get(((BytesRef) ((FieldDoc) hit).fields[1]).utf8ToString());
+                if (card == null) {
+                    continue;
+                }
+                String person = matchedPerson(card, terms);
+                // Совпадение по ответственным засчитывается, только если все слова нашлись у одного человека
+                if (person == null && searcher.count(new BooleanQuery.Builder()
+                        .add(titleOrAddress, BooleanClause.Occur.MUST)
+                        .add(new TermQuery(new Term(ID, card.getId())), BooleanClause.Occur.FILTER)
+                        .build()) == 0) {
+                    continue;
+                }
+                suggestions.add(new ProjectSuggestion(card.getId(), card.getTitle(), card.getAddress(), person));
+                if (suggestions.size() == size) {
+                    break;
+                }
+            }
+            return suggestions;
+        });
+    }
+
+    public void forEachCard(Consumer<ProjectCard> consumer) {
+        cards.values().forEach(consumer);
+    }
+
+    public Map<String, String> findAllFingerprints() {
+        Map<String, String> fingerprints = new HashMap<>();
+        cards.forEach((id, card) -> fingerprints.put(id, card.getFingerprint()));
+        return fingerprints;
+    }
+
+    /**
+     * Те же правила, что у runtime-поля numeric_id: только цифры, не длиннее 18 символов.
+     */
+    public long findMaxNumericId() {
+        long max = 0;
+        for (String id : cards.keySet()) {
+            if (id.isEmpty() || id.length() > 18 || !id.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                continue;
+            }
+            max = Math.max(max, Long.parseLong(id));
+        }
+        return max;
+    }
+
+    @Override
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private Document toDocument(ProjectCard card) {
+        Document doc = new Document();
+        doc.add(new StringField(ID, card.getId(), Field.Store.NO));
+        doc.add(new SortedDocValuesField(ID, new BytesRef(card.getId())));
+        addText(doc, TITLE, card.getTitle(), true);
+        addText(doc, ADDRESS, card.getAddress(), true);
+        addText(doc, STATUS, card.getStatus(), false);
+        if (card.getStatus() != null) {
+            doc.add(new StringField(STATUS_KEYWORD, card.getStatus(), Field.Store.NO));
+        }
+        if (card.getStartDate() != null) {
+            doc.add(new LongPoint(START_DATE, card.getStartDate().toEpochDay()));
+        }
+        if (card.getEndDate() != null) {
+            doc.add(new LongPoint(END_DATE, card.getEndDate().toEpochDay()));
+        }
+        if (card.getIndicatorValues() != null) {
+            for (IndicatorValue indicator : card.getIndicatorValues()) {
+                if (indicator.getName() == null) {
+                    continue;
+                }
+                doc.add(new StringField(INDICATOR_NAME, indicator.getName(), Field.Store.NO));
+                if (indicator.getSection() != null) {
+                    doc.add(new StringField(INDICATOR_NAME, indicatorKey(indicator.getName(), indicator.getSection()), Field.Store.NO));
+                }
+                if (indicator.getNumericValue() != null) {
+                    doc.add(new DoublePoint(INDICATOR_VALUE + indicator.getName(), indicator.getNumericValue()));
+                    if (indicator.getSection() != null) {
+                        doc.add(new DoublePoint(INDICATOR_VALUE + indicatorKey(indicator.getName(), indicator.getSection()),
+                                indicator.getNumericValue()));
+                    }
+                }
+            }
+        }
+        if (card.getResponsiblePersons() != null) {
+            for (ResponsiblePerson person : card.getResponsiblePersons()) {
+                addText(doc, FIO, person.getFio(), true);
+                addText(doc, POSITION, person.getPosition(), false);
+                if (person.getPhone() != null) {
+                    doc.add(new StringField(PHONE, person.getPhone(), Field.Store.NO));
+                }
+                if (person.getEmail() != null) {
+                    // В кластере email сравнивается term-запросом без учёта регистра
+                    doc.add(new StringField(EMAIL, person.getEmail().toLowerCase(Locale.ROOT), Field.Store.NO));
+                }
+            }
+        }
+        return doc;
+    }
+
+    private static void addText(Document doc, String field, String value, boolean suggest) {
+        if (value == null) {
+            return;
+        }
+        doc.add(new TextField(field, value, Field.Store.NO));
+        if (suggest) {
+            doc.add(new TextField(field + SUGGEST, value, Field.Store.NO));
+        }
+    }
+
+    /**
+     * Как filteredQuery в кластере: текст - в MUST, остальные условия - FILTER без влияния на score.
+     */
+    private Query filteredQuery(String text, ProjectFilter filter) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        boolean hasText = text != null && !text.isBlank();
+        boolean hasFilters = false;
+        if (hasText) {
+            builder.add(fullTextQuery(text), BooleanClause.Occur.MUST);
+        }
+        if (filter.dateTo() != null) {
+            builder.add(LongPoint.newRangeQuery(START_DATE, Long.MIN_VALUE, filter.dateTo().toEpochDay()), BooleanClause.Occur.FILTER);
+            hasFilters = true;
+        }
+        if (filter.dateFrom() != null) {
+            builder.add(LongPoint.newRangeQuery(END_DATE, filter.dateFrom().toEpochDay(), Long.MAX_VALUE), BooleanClause.Occur.FILTER);
+            hasFilters = true;
+        }
+        if (filter.person() != null) {
+            // Ответственные здесь не вложенные документы: слова могут найтись у разных людей одной карточки
+            for (String term : terms(russian, FIO, filter.person())) {
+                builder.add(new TermQuery(new Term(FIO, term)), BooleanClause.Occur.FILTER);
+            }
+            hasFilters = true;
+        }
+        if (filter.indicator() != null) {
+            builder.add(indicatorFilter(filter.indicator()), BooleanClause.Occur.FILTER);
+            hasFilters = true;
+        }
+        return hasText || hasFilters ? builder.build() : new MatchAllDocsQuery();
+    }
+
+    private static Query indicatorFilter(IndicatorRange indicator) {
+        String key = indicator.section() == null ? indicator.name() : indicatorKey(indicator.name(), indicator.section());
+        if (!indicator.hasBounds()) {
+            return new TermQuery(new Term(INDICATOR_NAME, key));
+        }
+        return DoublePoint.newRangeQuery(INDICATOR_VALUE + key,
+                indicator.min() == null ? Double.NEGATIVE_INFINITY : indicator.min(),
+                indicator.max() == null ? Double.POSITIVE_INFINITY : indicator.max());
+    }
+
+    private static String indicatorKey(String name, String section) {
+        return name + '\u0000' + section;
+    }
+
+    private static Query statusFilter(ProjectFilter filter) {
+        if (filter.statuses().isEmpty()) {
+            return null;
+        }
+        return new TermInSetQuery(STATUS_KEYWORD, filter.statuses().stream().map(BytesRef::new).toList());
+    }
+
+    /**
+     * Та же маршрутизация, что в кластере ({@link SearchQueryRouter}): телефон, email и id - term-запросы,
+     * нечёткий поиск по карточке и ответственным - только для обычного текста. best_fields в multi_match -
+     * это dis_max по полям, внутри поля - or по словам запроса, каждое слово - fuzzy с расстоянием по длине.
+     */
+    private Query fullTextQuery(String text) {
+        SearchQueryRouter.Route route = SearchQueryRouter.route(text);
+        return switch (route.kind()) {
+            case PHONE -> new TermQuery(new Term(PHONE, route.value()));
+            case EMAIL -> new TermQuery(new Term(EMAIL, route.value()));
+            case ID -> {
+                BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                        .add(new BoostQuery(new TermQuery(new Term(ID, route.value())), ID_BOOST), BooleanClause.Occur.SHOULD)
+                        .add(new DisjunctionMaxQuery(List.of(
+                                exactMatch(TITLE, route.value()), exactMatch(ADDRESS, route.value()), exactMatch(STATUS, route.value())), 0),
+                                BooleanClause.Occur.SHOULD);
+                if (route.phone() != null) {
+                    builder.add(new TermQuery(new Term(PHONE, route.phone())), BooleanClause.Occur.SHOULD);
+                }
+                yield builder.build();
+            }
+            case TEXT -> new BooleanQuery.Builder()
+                    .add(new DisjunctionMaxQuery(List.of(
+                            fuzzyMatch(TITLE, text), fuzzyMatch(ADDRESS, text), fuzzyMatch(STATUS, text)), 0),
+                            BooleanClause.Occur.SHOULD)
+                    .add(new DisjunctionMaxQuery(List.of(fuzzyMatch(FIO, text), fuzzyMatch(POSITION, text)), 0),
+                            BooleanClause.Occur.SHOULD)
+                    .build();
+        };
+    }
+
+    private Query exactMatch(String field, String text) {
+        List<String> terms = terms(russian, field, text);
+        if (terms.isEmpty()) {
+            return new MatchNoDocsQuery();
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String term : terms) {
+            builder.add(new TermQuery(new Term(field, term)), BooleanClause.Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
+    private Query fuzzyMatch(String field, String text) {
+        List<String> terms = terms(russian, field, text);
+        if (terms.isEmpty()) {
+            return new MatchNoDocsQuery();
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String term : terms) {
+            builder.add(new FuzzyQuery(new Term(field, term), autoFuzziness(term), 0, FUZZY_MAX_EXPANSIONS, true),
+                    BooleanClause.Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
+    private static Query prefixQuery(String field, List<String> terms) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (int i = 0; i < terms.size() - 1; i++) {
+            builder.add(new TermQuery(new Term(field, terms.get(i))), BooleanClause.Occur.MUST);
+        }
+        builder.add(new PrefixQuery(new Term(field, terms.get(terms.size() - 1))), BooleanClause.Occur.MUST);
+        return builder.build();
+    }
+
+    private String matchedPerson(ProjectCard card, List<String> terms) {
+        if (card.getResponsiblePersons() == null) {
+            return null;
+        }
+        for (ResponsiblePerson person : card.getResponsiblePersons()) {
+            if (person.getFio() == null) {
+                continue;
+            }
+            List<String> tokens = terms(standard, FIO + SUGGEST, person.getFio());
+            boolean matches = tokens.containsAll(terms.subList(0, terms.size() - 1));
+            String last = terms.get(terms.size() - 1);
+            if (matches && tokens.stream().anyMatch(token -> token.startsWith(last))) {
+                return person.getFio();
+            }
+        }
+        return null;
+    }
+
+    static int autoFuzziness(String term) {
+        int length = term.codePointCount(0, term.length());
+        return length < 3 ? 0 : length < 6 ? 1 : 2;
+    }
+
+    private static List<String> terms(Analyzer analyzer, String field, String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private static FieldDoc scoreCursor(List<Object> values) {
+        if (values == null) {
+            return null;
+        }
+        if (values.size() != 2 || !(values.get(0) instanceof Number score) || values.get(1) == null) {
+            throw new IllegalArgumentException("Некорректный курсор: " + values);
+        }
+        // Совпавшие по score и id - это сама последняя карточка, её номер документа заведомо меньше
+        return new FieldDoc(Integer.MAX_VALUE, Float.NaN,
+                new Object[]{score.floatValue(), new BytesRef(String.valueOf(values.get(1)))});
+    }
+
+    private void addCard(List<ProjectCard> target, FieldDoc hit) {
+        ProjectCard card = cards.get(((BytesRef) hit.fields[1]).utf8ToString());
+        if (card != null) {
+            target.add(card);
+        }
+    }
+
+    private interface WriteAction {
+        void run() throws IOException;
+    }
+
+    private interface SearchAction<T> {
+        T run(IndexSearcher searcher) throws IOException;
+    }
+
+    private void write(WriteAction action) {
+        writeLock.lock();
+        try {
+            action.run();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось обновить локальный индекс", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private <T> T withSearcher(SearchAction<T> action) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return action.run(searcher);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка поиска в локальном индексе", e);
+        }
+    }
+}
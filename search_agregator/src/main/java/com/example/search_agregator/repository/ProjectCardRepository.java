@@ -6,7 +6,7 @@ import org.springframework.data.elasticsearch.repository.ElasticsearchRepository
 
 import java.util.List;
 
-public interface ProjectCardRepository extends ElasticsearchRepository<ProjectCard, String> {
+public interface ProjectCardRepository extends ElasticsearchRepository<ProjectCard, String>, ProjectCardSearchRepository {
     /**
      * Комбинированный "умный" поиск, который ищет:
      * 1. Текстовые совпадения в основных полях (title, address, status).
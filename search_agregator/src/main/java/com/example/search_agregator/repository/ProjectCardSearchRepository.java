@@ -0,0 +1,78 @@
+package com.example.search_agregator.repository;
+
+import com.example.search_agregator.model.BulkResult;
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import com.example.search_agregator.model.ProjectSuggestion;
+import com.example.search_agregator.model.ProjectSummary;
+import com.example.search_agregator.model.SuggestionResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Запросы, которые не выражаются через @Query: постраничная выдача через search_after.
+ */
+public interface ProjectCardSearchRepository {
+    /**
+     * Запрос {@link ProjectCardRepository#findByQuery(String)}, ограниченный size хитами и структурными фильтрами;
+     * телефон, email и числовой id вместо него ищутся точными term-запросами ({@link SearchQueryRouter}). Без текста (query = null) выдача определяется только фильтрами.
+     * Сортировка: _score по убыванию, затем id - чтобы курсор был стабильным.
+     * На первой странице (cursor = null) в ответе есть фасеты {@link com.example.search_agregator.model.SearchFacets}.
+     */
+    CursorPage<ProjectCard> searchPage(String query, ProjectFilter filter, int size, String cursor);
+
+    /**
+     * Та же выдача, что {@link #searchPage}, но из _source читаются только поля {@link ProjectSummary}.
+     */
+    CursorPage<ProjectSummary> searchSummaryPage(String query, ProjectFilter filter, int size, String cursor);
+
+    /**
+     * Все карточки по возрастанию id, постранично.
+     */
+    CursorPage<ProjectCard> findAllPage(int size, String cursor);
+
+    /**
+     * Как {@link #findAllPage}, но только поля {@link ProjectSummary}.
+     */
+    CursorPage<ProjectSummary> findAllSummaryPage(int size, String cursor);
+
+    /**
+     * Обходит весь индекс пачками по batchSize через point-in-time + search_after и отдаёт
+     * карточки по одной. В памяти одновременно держится не больше одной пачки.
+     */
+    void forEachCard(int batchSize, Consumer<ProjectCard> consumer);
+
+    /**
+     * id -> fingerprint для всех карточек индекса. Из _source читается только поле fingerprint;
+     * у карточек, созданных через API, значение null.
+     */
+    Map<String, String> findAllFingerprints();
+
+    /**
+     * Максимальный числовой id в индексе (max-агрегация по runtime-полю), 0 если числовых id нет.
+     * Нечисловые id вроде "A-17" не учитываются.
+     */
+    long findMaxNumericId();
+
+    /**
+     * Подсказки по началу ввода: bool_prefix по подполям search_as_you_type у title, address
+     * и responsiblePersons.fio. Из _source читаются только строки для показа.
+     * Если запрос упёрся в таймаут, в ответе то, что шарды успели найти, и признак timedOut.
+     */
+    SuggestionResult suggest(String prefix, int size);
+
+    /**
+     * Записывает карточки одним bulk-запросом; id у всех карточек уже заданы.
+     * Результаты - по карточке в порядке списка, отказ одной карточки не отменяет остальные.
+     */
+    List<BulkResult.Item> bulkSave(List<ProjectCard> cards);
+
+    /**
+     * Удаляет карточки одним bulk-запросом, без отдельной проверки существования:
+     * отсутствующий id возвращается как not_found.
+     */
+    List<BulkResult.Item> bulkDelete(List<String> ids);
+}
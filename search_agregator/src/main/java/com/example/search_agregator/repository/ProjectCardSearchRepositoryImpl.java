@@ -0,0 +1,494 @@
+package com.example.search_agregator.repository;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import co.elastic.clients.elasticsearch._types.aggregations.DateHistogramBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.ChildScoreMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.InnerHitsResult;
+import com.example.search_agregator.model.BulkResult;
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.IndicatorRange;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import com.example.search_agregator.model.ProjectSuggestion;
+import com.example.search_agregator.model.ProjectSummary;
+import com.example.search_agregator.model.SearchFacets;
+import com.example.search_agregator.model.SuggestionResult;
+import jakarta.json.JsonObject;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.Query.PointInTime;
+import org.springframework.data.elasticsearch.core.query.RuntimeField;
+import org.springframework.data.elasticsearch.core.query.SourceFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@RequiredArgsConstructor
+public class ProjectCardSearchRepositoryImpl implements ProjectCardSearchRepository {
+    // Дальше этого порога ES не досчитывает total и отдаёт нижнюю границу (relation = gte)
+    static final int TOTAL_HITS_LIMIT = 10_000;
+
+    private static final SortOptions BY_SCORE = SortOptions.of(s -> s.score(sc -> sc.order(SortOrder.Desc)));
+    private static final SortOptions BY_ID = SortOptions.of(s -> s.field(f -> f.field("id").order(SortOrder.Asc)));
+    // Внутренний порядок документов в PIT - самая дешёвая сортировка для полного обхода
+    private static final SortOptions BY_SHARD_DOC = SortOptions.of(s -> s.field(f -> f.field("_shard_doc")));
+    private static final Duration PIT_KEEP_ALIVE = Duration.ofMinutes(1);
+    private static final int FINGERPRINT_BATCH_SIZE = 5_000;
+
+    private static final String NUMERIC_ID_FIELD = "numeric_id";
+    // Integer.parseInt в прежнем generateNextId тоже пропускал всё, кроме цифр; длинные значения отбрасываем до переполнения
+    private static final String NUMERIC_ID_SCRIPT = """
+            if (doc['id'].size() == 0) { return; }
+            String id = doc['id'].value;
+            if (id.length() == 0 || id.length() > 18) { return; }
+            for (int i = 0; i < id.length(); i++) {
+                char c = id.charAt(i);
+                if (c < (char) '0' || c > (char) '9') { return; }
+            }
+            emit(Long.parseLong(id));
+            """;
+
+    private static final List<String> SUGGEST_FIELDS = suggestFields("title.suggest", "address.suggest");
+    private static final List<String> PERSON_SUGGEST_FIELDS = suggestFields("responsiblePersons.fio.suggest");
+    private static final String PERSON_INNER_HITS = "person";
+    private static final String STATUS_FACET = "statuses";
+    private static final String YEAR_FACET = "years";
+    // Статусов в реестре единицы; запас, чтобы фасет не обрезался
+    private static final int STATUS_FACET_SIZE = 50;
+    // Карточка с точно таким id - выше совпадений этого числа в названии или адресе
+    private static final float ID_BOOST = 10f;
+    private static final SourceFilter SUMMARY_SOURCE = new FetchSourceFilter(true, ProjectSummary.SOURCE_FIELDS, null);
+    private static final List<String> SUGGEST_SOURCE_FIELDS = List.of("id", "title", "address");
+
+    private final ElasticsearchOperations operations;
+    // bulk API напрямую: Spring Data не отдаёт результат каждого элемента, а при удалении - и not_found
+    private final ElasticsearchClient client;
+
+    @Value("${search.suggest.timeout:200ms}")
+    private Duration suggestTimeout;
+
+    @Override
+    public CursorPage<ProjectCard> searchPage(String query, ProjectFilter filter, int size, String cursor) {
+        return search(query, filter, size, cursor, null, Function.identity());
+    }
+
+    @Override
+    public CursorPage<ProjectSummary> searchSummaryPage(String query, ProjectFilter filter, int size, String cursor) {
+        return search(query, filter, size, cursor, SUMMARY_SOURCE, ProjectSummary::of);
+    }
+
+    private <T> CursorPage<T> search(String query, ProjectFilter filter, int size, String cursor,
+                                     SourceFilter sourceFilter, Function<ProjectCard, T> mapper) {
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(filteredQuery(query, filter))
+                .withSort(List.of(BY_SCORE, BY_ID))
+                .withSourceFilter(sourceFilter);
+        Query statusFilter = statusFilter(filter);
+        if (statusFilter != null) {
+            // post_filter: фасет статусов считается без него, выдача и фасет годов - с ним
+            builder.withFilter(statusFilter);
+        }
+        boolean withFacets = cursor == null;
+        if (withFacets) {
+            builder.withAggregation(STATUS_FACET, Aggregation.of(a -> a.terms(t -> t.field("status.keyword").size(STATUS_FACET_SIZE))));
+            Query yearsScope = statusFilter != null ? statusFilter : Query.of(q -> q.matchAll(m -> m));
+            builder.withAggregation(YEAR_FACET, Aggregation.of(a -> a
+                    .filter(yearsScope)
+                    .aggregations(YEAR_FACET, sub -> sub.dateHistogram(h -> h
+                            .field("startDate")
+                            .calendarInterval(CalendarInterval.Year)
+                            .minDocCount(1)))));
+        }
+        SearchHits<ProjectCard> hits = operations.search(pageQuery(builder, size, cursor), ProjectCard.class);
+        CursorPage<T> page = toPage(hits, size, mapper);
+        if (withFacets) {
+            page.setFacets(facets((ElasticsearchAggregations) hits.getAggregations()));
+        }
+        return page;
+    }
+
+    @Override
+    public CursorPage<ProjectCard> findAllPage(int size, String cursor) {
+        return findAll(size, cursor, null, Function.identity());
+    }
+
+    @Override
+    public CursorPage<ProjectSummary> findAllSummaryPage(int size, String cursor) {
+        return findAll(size, cursor, SUMMARY_SOURCE, ProjectSummary::of);
+    }
+
+    private <T> CursorPage<T> findAll(int size, String cursor, SourceFilter sourceFilter, Function<ProjectCard, T> mapper) {
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(q -> q.matchAll(m -> m))
+                .withSort(BY_ID)
+                .withSourceFilter(sourceFilter);
+        return toPage(operations.search(pageQuery(builder, size, cursor), ProjectCard.class), size, mapper);
+    }
+
+    @Override
+    public void forEachCard(int batchSize, Consumer<ProjectCard> consumer) {
+        scan(null, batchSize, consumer);
+    }
+
+    @Override
+    public Map<String, String> findAllFingerprints() {
+        Map<String, String> fingerprints = new HashMap<>();
+        SourceFilter onlyFingerprint = new FetchSourceFilter(true, new String[]{"fingerprint"}, null);
+        scan(onlyFingerprint, FINGERPRINT_BATCH_SIZE, card -> fingerprints.put(card.getId(), card.getFingerprint()));
+        return fingerprints;
+    }
+
+    @Override
+    public long findMaxNumericId() {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.matchAll(m -> m))
+                .withRuntimeFields(List.of(new RuntimeField(NUMERIC_ID_FIELD, "long", NUMERIC_ID_SCRIPT)))
+                .withAggregation("max_id", Aggregation.of(a -> a.max(m -> m.field(NUMERIC_ID_FIELD))))
+                .withMaxResults(0)
+                .withTrackTotalHits(false)
+                .build();
+
+        SearchHits<ProjectCard> hits = operations.search(query, ProjectCard.class);
+        ElasticsearchAggregations aggregations = (ElasticsearchAggregations) hits.getAggregations();
+        if (aggregations == null || aggregations.get("max_id") == null) {
+            return 0;
+        }
+        // Без подходящих документов ES возвращает value: null, клиент превращает его в NaN
+        double max = aggregations.get("max_id").aggregation().getAggregate().max().value();
+        return Double.isFinite(max) ? (long) max : 0;
+    }
+
+    /**
+     * Через клиент напрямую: Spring Data не отдаёт признак timed_out, а неполный ответ нельзя кэшировать.
+     */
+    @Override
+    public SuggestionResult suggest(String prefix, int size) {
+        String index = operations.getIndexCoordinatesFor(ProjectCard.class).getIndexName();
+        SearchResponse<ProjectSuggestion> response;
+        try {
+            response = client.search(s -> s
+                    .index(index)
+                    .query(suggestQuery(prefix))
+                    .sort(BY_SCORE, BY_ID)
+                    .size(size)
+                    .source(src -> src.filter(f -> f.includes(SUGGEST_SOURCE_FIELDS)))
+                    .trackTotalHits(t -> t.enabled(false))
+                    // Подсказка, пришедшая позже следующего нажатия клавиши, никому не нужна: отдаём то, что успели найти
+                    .timeout(suggestTimeout.toMillis() + "ms"), ProjectSuggestion.class);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Запрос подсказок к Elasticsearch не выполнен: " + e.getMessage(), e);
+        }
+        List<ProjectSuggestion> suggestions = new ArrayList<>(response.hits().hits().size());
+        for (Hit<ProjectSuggestion> hit : response.hits().hits()) {
+            ProjectSuggestion suggestion = hit.source();
+            if (suggestion != null) {
+                suggestion.setPerson(matchedPerson(hit));
+                suggestions.add(suggestion);
+            }
+        }
+        return new SuggestionResult(suggestions, response.timedOut());
+    }
+
+    @Override
+    public List<BulkResult.Item> bulkSave(List<ProjectCard> cards) {
+        String index = operations.getIndexCoordinatesFor(ProjectCard.class).getIndexName();
+        List<BulkOperation> bulk = new ArrayList<>(cards.size());
+        for (ProjectCard card : cards) {
+            // Тот же документ, что пишет save(): даты и имена полей по аннотациям @Field
+            Document document = operations.getElasticsearchConverter().mapObject(card);
+            bulk.add(BulkOperation.of(op -> op.index(i -> i.index(index).id(card.getId()).document(document))));
+        }
+        return bulk(bulk);
+    }
+
+    @Override
+    public List<BulkResult.Item> bulkDelete(List<String> ids) {
+        String index = operations.getIndexCoordinatesFor(ProjectCard.class).getIndexName();
+        List<BulkOperation> bulk = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            bulk.add(BulkOperation.of(op -> op.delete(d -> d.index(index).id(id))));
+        }
+        return bulk(bulk);
+    }
+
+    private List<BulkResult.Item> bulk(List<BulkOperation> bulk) {
+        if (bulk.isEmpty()) {
+            return List.of();
+        }
+        BulkResponse response;
+        try {
+            // wait_for: как и после save(), карточки видны поиску к моменту ответа, но без принудительного refresh
+            response = client.bulk(b -> b.operations(bulk).refresh(Refresh.WaitFor));
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Bulk-запрос к Elasticsearch не выполнен: " + e.getMessage(), e);
+        }
+        List<BulkResult.Item> items = new ArrayList<>(response.items().size());
+        for (BulkResponseItem item : response.items()) {
+            items.add(item.error() == null
+                    ? new BulkResult.Item(item.id(), item.status(), item.result(), null)
+                    : BulkResult.Item.failed(item.id(), item.status(), item.error().reason()));
+        }
+        return items;
+    }
+
+    private static String matchedPerson(Hit<ProjectSuggestion> hit) {
+        InnerHitsResult persons = hit.innerHits().get(PERSON_INNER_HITS);
+        if (persons == null || persons.hits().hits().isEmpty() || persons.hits().hits().get(0).source() == null) {
+            return null;
+        }
+        JsonObject person = persons.hits().hits().get(0).source().toJson().asJsonObject();
+        return person.getString("fio", null);
+    }
+
+    private void scan(SourceFilter sourceFilter, int batchSize, Consumer<ProjectCard> consumer) {
+        IndexCoordinates index = operations.getIndexCoordinatesFor(ProjectCard.class);
+        String pitId = operations.openPointInTime(index, PIT_KEEP_ALIVE);
+        try {
+            List<Object> searchAfter = null;
+            while (true) {
+                NativeQuery query = NativeQuery.builder()
+                        .withQuery(q -> q.matchAll(m -> m))
+                        .withSort(BY_SHARD_DOC)
+                        .withPageable(PageRequest.of(0, batchSize))
+                        .withSearchAfter(searchAfter)
+                        .withTrackTotalHits(false)
+                        .withSourceFilter(sourceFilter)
+                        .withPointInTime(new PointInTime(pitId, PIT_KEEP_ALIVE))
+                        .build();
+
+                SearchHits<ProjectCard> hits = operations.search(query, ProjectCard.class);
+                if (hits.getPointInTimeId() != null) {
+                    pitId = hits.getPointInTimeId();
+                }
+                for (SearchHit<ProjectCard> hit : hits) {
+                    consumer.accept(hit.getContent());
+                }
+                if (hits.getSearchHits().size() < batchSize) {
+                    return;
+                }
+                searchAfter = hits.getSearchHit(hits.getSearchHits().size() - 1).getSortValues();
+            }
+        } finally {
+            // PIT сам истечёт через keep-alive, но держать его открытым дольше нужного незачем
+            operations.closePointInTime(pitId);
+        }
+    }
+
+    private static NativeQuery pageQuery(NativeQueryBuilder builder, int size, String cursor) {
+        // Берём на один хит больше, чтобы без лишнего запроса понять, есть ли следующая страница
+        return builder
+                .withPageable(PageRequest.of(0, size + 1))
+                .withSearchAfter(SearchCursor.decode(cursor))
+                .withTrackTotalHitsUpTo(TOTAL_HITS_LIMIT)
+                .build();
+    }
+
+    private static <T> CursorPage<T> toPage(SearchHits<ProjectCard> hits, int size, Function<ProjectCard, T> mapper) {
+        List<SearchHit<ProjectCard>> pageHits = hits.getSearchHits();
+        String nextCursor = null;
+        if (pageHits.size() > size) {
+            pageHits = pageHits.subList(0, size);
+            nextCursor = SearchCursor.encode(pageHits.get(size - 1).getSortValues());
+        }
+
+        List<T> items = pageHits.stream().map(SearchHit::getContent).map(mapper).toList();
+        String relation = hits.getTotalHitsRelation() == TotalHitsRelation.EQUAL_TO ? "eq" : "gte";
+        return new CursorPage<>(items, hits.getTotalHits(), relation, nextCursor);
+    }
+
+    /**
+     * Все слова, кроме последнего, должны совпасть целиком, последнее - как префикс (bool_prefix).
+     * Подполя _2gram/_3gram поднимают карточки, где слова идут в том же порядке, что и в запросе.
+     */
+    private static Query suggestQuery(String prefix) {
+        return Query.of(q -> q.bool(b -> b
+                .should(s -> s.multiMatch(m -> m
+                        .query(prefix)
+                        .type(TextQueryType.BoolPrefix)
+                        .operator(Operator.And)
+                        .fields(SUGGEST_FIELDS)))
+                .should(s -> s.nested(n -> n
+                        .path("responsiblePersons")
+                        .scoreMode(ChildScoreMode.Max)
+                        .query(nq -> nq.multiMatch(m -> m
+                                .query(prefix)
+                                .type(TextQueryType.BoolPrefix)
+                                .operator(Operator.And)
+                                .fields(PERSON_SUGGEST_FIELDS)))
+                        .innerHits(ih -> ih
+                                .name(PERSON_INNER_HITS)
+                                .size(1)
+                                .source(src -> src.filter(f -> f.includes("responsiblePersons.fio"))))))));
+    }
+
+    private static List<String> suggestFields(String... fields) {
+        List<String> all = new ArrayList<>();
+        for (String field : fields) {
+            all.add(field);
+            all.add(field + "._2gram");
+            all.add(field + "._3gram");
+        }
+        return List.copyOf(all);
+    }
+
+    /**
+     * Имя, секция и диапазон проверяются внутри одной вложенной записи indicatorValues,
+     * поэтому граница одной секции не засчитывается за другую.
+     */
+    private static Query indicatorFilter(IndicatorRange indicator) {
+        List<Query> conditions = new ArrayList<>();
+        conditions.add(Query.of(q -> q.term(t -> t.field("indicatorValues.name").value(indicator.name()))));
+        if (indicator.section() != null) {
+            conditions.add(Query.of(q -> q.term(t -> t.field("indicatorValues.section").value(indicator.section()))));
+        }
+        if (indicator.hasBounds()) {
+            conditions.add(Query.of(q -> q.range(r -> r.number(n -> {
+                n.field("indicatorValues.numericValue");
+                if (indicator.min() != null) {
+                    n.gte(indicator.min());
+                }
+                if (indicator.max() != null) {
+                    n.lte(indicator.max());
+                }
+                return n;
+            }))));
+        }
+        return Query.of(q -> q.nested(n -> n
+                .path("indicatorValues")
+                .query(nq -> nq.bool(b -> b.filter(conditions)))));
+    }
+
+    /**
+     * Полнотекстовый запрос в must, структурные условия - в filter: они только отсекают документы,
+     * на _score не влияют и кэшируются на уровне сегментов. Фильтр по статусу идёт отдельно в post_filter.
+     */
+    private static Query filteredQuery(String text, ProjectFilter filter) {
+        List<Query> filters = new ArrayList<>();
+        if (filter.dateTo() != null) {
+            filters.add(Query.of(q -> q.range(r -> r.date(d -> d.field("startDate").lte(filter.dateTo().toString())))));
+        }
+        if (filter.dateFrom() != null) {
+            filters.add(Query.of(q -> q.range(r -> r.date(d -> d.field("endDate").gte(filter.dateFrom().toString())))));
+        }
+        if (filter.person() != null) {
+            filters.add(Query.of(q -> q.nested(n -> n
+                    .path("responsiblePersons")
+                    .query(nq -> nq.match(m -> m
+                            .field("responsiblePersons.fio")
+                            .query(filter.person())
+                            .operator(Operator.And))))));
+        }
+        if (filter.indicator() != null) {
+            filters.add(indicatorFilter(filter.indicator()));
+        }
+        boolean hasText = text != null && !text.isBlank();
+        if (!hasText && filters.isEmpty()) {
+            return Query.of(q -> q.matchAll(m -> m));
+        }
+        return Query.of(q -> q.bool(b -> {
+            if (hasText) {
+                b.must(fullTextQuery(text));
+            }
+            return b.filter(filters);
+        }));
+    }
+
+    private static Query statusFilter(ProjectFilter filter) {
+        if (filter.statuses().isEmpty()) {
+            return null;
+        }
+        List<FieldValue> values = filter.statuses().stream().map(FieldValue::of).toList();
+        return Query.of(q -> q.terms(t -> t.field("status.keyword").terms(v -> v.value(values))));
+    }
+
+    private static SearchFacets facets(ElasticsearchAggregations aggregations) {
+        Map<String, Long> statuses = new LinkedHashMap<>();
+        Map<Integer, Long> years = new LinkedHashMap<>();
+        if (aggregations != null) {
+            for (StringTermsBucket bucket : aggregations.get(STATUS_FACET).aggregation().getAggregate().sterms().buckets().array()) {
+                statuses.put(bucket.key().stringValue(), bucket.docCount());
+            }
+            Aggregate histogram = aggregations.get(YEAR_FACET).aggregation().getAggregate().filter().aggregations().get(YEAR_FACET);
+            for (DateHistogramBucket bucket : histogram.dateHistogram().buckets().array()) {
+                years.put(Instant.ofEpochMilli(bucket.key()).atZone(ZoneOffset.UTC).getYear(), bucket.docCount());
+            }
+        }
+        return new SearchFacets(statuses, years);
+    }
+
+    /**
+     * Стратегия выбирается {@link SearchQueryRouter}. Для обычного текста - первые две части запроса
+     * {@link ProjectCardRepository#findByQuery(String)}; телефон, email и id ищутся term-запросами.
+     */
+    private static Query fullTextQuery(String text) {
+        SearchQueryRouter.Route route = SearchQueryRouter.route(text);
+        return switch (route.kind()) {
+            case PHONE -> personTerm("responsiblePersons.phone", route.value());
+            case EMAIL -> personTerm("responsiblePersons.email", route.value());
+            case ID -> Query.of(q -> q.bool(b -> {
+                b.should(s -> s.term(t -> t.field("id").value(route.value()).boost(ID_BOOST)))
+                        .should(s -> s.multiMatch(m -> m
+                                .query(route.value())
+                                .fields("title", "address", "status")));
+                if (route.phone() != null) {
+                    b.should(personTerm("responsiblePersons.phone", route.phone()));
+                }
+                return b;
+            }));
+            case TEXT -> Query.of(q -> q.bool(b -> b
+                    .should(s -> s.multiMatch(m -> m
+                            .query(text)
+                            .fields("title", "address", "status")
+                            .fuzziness("AUTO")))
+                    .should(s -> s.nested(n -> n
+                            .path("responsiblePersons")
+                            .query(nq -> nq.multiMatch(m -> m
+                                    .query(text)
+                                    .fields("responsiblePersons.fio", "responsiblePersons.position")
+                                    .fuzziness("AUTO")))))));
+        };
+    }
+
+    private static Query personTerm(String field, String value) {
+        return Query.of(q -> q.nested(n -> n
+                .path("responsiblePersons")
+                .query(nq -> nq.term(t -> t.field(field).value(value).caseInsensitive(true)))));
+    }
+}
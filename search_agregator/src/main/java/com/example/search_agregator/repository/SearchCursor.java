@@ -0,0 +1,49 @@
+package com.example.search_agregator.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Кодирует значения sort последнего хита в непрозрачный курсор (base64url от JSON-массива)
+ * и обратно. Клиент не должен разбирать курсор - формат может меняться.
+ */
+public final class SearchCursor {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SearchCursor() {
+    }
+
+    public static String encode(List<Object> sortValues) {
+        if (sortValues == null || sortValues.isEmpty()) {
+            return null;
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(sortValues));
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось сформировать курсор", e);
+        }
+    }
+
+    /**
+     * @return значения для search_after или null для первой страницы
+     * @throws IllegalArgumentException если курсор повреждён
+     */
+    public static List<Object> decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            List<Object> values = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), new TypeReference<List<Object>>() {});
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("Пустой курсор");
+            }
+            return values;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
+        }
+    }
+}
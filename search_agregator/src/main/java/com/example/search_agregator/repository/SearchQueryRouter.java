@@ -0,0 +1,63 @@
+package com.example.search_agregator.repository;
+
+import com.example.search_agregator.model.ResponsiblePerson;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Выбор стратегии полнотекстового запроса по виду строки поиска.
+ *
+ * Телефон, email и числовой id ищутся точными term-запросами по keyword-полям; нечёткий multi_match
+ * по карточке и вложенным ответственным - только для обычного текста. Раньше все три части bool/should
+ * выполнялись на любой ввод, и поиск по телефону разворачивал fuzzy по всем ФИО и должностям.
+ */
+public final class SearchQueryRouter {
+    private static final Pattern EMAIL = Pattern.compile("[^\\s@]+@[^\\s@]+\\.[^\\s@]+");
+    // Те же правила, что у runtime-поля numeric_id: только цифры, не длиннее 18 символов
+    private static final Pattern NUMERIC_ID = Pattern.compile("\\d{1,18}");
+
+    private SearchQueryRouter() {
+    }
+
+    public enum Kind {
+        /** Телефон ответственного: term по responsiblePersons.phone в каноническом виде. */
+        PHONE,
+        /** Email ответственного: term без учёта регистра по responsiblePersons.email. */
+        EMAIL,
+        /**
+         * Число: term по id, а также точный (без fuzziness) match по title/address/status - "школа на 1100 мест".
+         * Если число похоже и на телефон ("1234567890"), ещё и term по телефону: id такой длины тоже бывают.
+         */
+        ID,
+        /** Всё остальное: нечёткий поиск по карточке и по ФИО/должности ответственных. */
+        TEXT
+    }
+
+    /**
+     * @param kind  выбранная стратегия
+     * @param value значение для запроса: канонический телефон, email в нижнем регистре, id или исходный текст
+     * @param phone для {@link Kind#ID} - то же число как канонический телефон, если оно им может быть; иначе null
+     */
+    public record Route(Kind kind, String value, String phone) {
+        public Route(Kind kind, String value) {
+            this(kind, value, null);
+        }
+    }
+
+    public static Route route(String text) {
+        String trimmed = text.trim();
+        if (EMAIL.matcher(trimmed).matches()) {
+            return new Route(Kind.EMAIL, trimmed.toLowerCase(Locale.ROOT));
+        }
+        String phone = ResponsiblePerson.canonicalPhone(trimmed);
+        // Одни цифры - это может быть и id, и телефон без разделителей: ищем по обоим
+        if (NUMERIC_ID.matcher(trimmed).matches()) {
+            return new Route(Kind.ID, trimmed, phone);
+        }
+        if (phone != null) {
+            return new Route(Kind.PHONE, phone);
+        }
+        return new Route(Kind.TEXT, text);
+    }
+}
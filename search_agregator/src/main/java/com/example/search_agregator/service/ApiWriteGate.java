@@ -0,0 +1,79 @@
+package com.example.search_agregator.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Согласует запись через API с полной перезагрузкой в новый индекс.
+ *
+ * Пока новый индекс заполняется, создание и удаление через API идут в прежний индекс за алиасом,
+ * а их точечные изменения ({@link ProjectIndexChangedEvent}) запоминаются. Перед переключением алиаса
+ * запись через API коротко останавливается, запомненные изменения повторяются в новом индексе -
+ * и ничего не пропадает вместе с удаляемым прежним индексом.
+ */
+@Component
+public class ApiWriteGate {
+    /**
+     * Действие под остановленной записью: получает изменения, сделанные через API с {@link #startRecording()}.
+     */
+    @FunctionalInterface
+    public interface Replay {
+        void run(List<ProjectIndexChangedEvent> changes) throws IOException;
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Queue<ProjectIndexChangedEvent> recorded = new ConcurrentLinkedQueue<>();
+    private volatile boolean recording;
+
+    /**
+     * Запись через API: карточки пишутся и событие о них публикуется внутри action. Такие записи идут
+     * параллельно друг другу и ждут только {@link #replay}.
+     */
+    public <T> T write(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void startRecording() {
+        recorded.clear();
+        recording = true;
+    }
+
+    public void stopRecording() {
+        recording = false;
+        recorded.clear();
+    }
+
+    @EventListener
+    public void onIndexChanged(ProjectIndexChangedEvent event) {
+        if (recording && !event.isFullChange()) {
+            recorded.add(event);
+        }
+    }
+
+    /**
+     * Дожидается начатых записей через API, не пускает новые и отдаёт запомненные изменения в action.
+     * Запись через API продолжается после выхода из action - уже в то, на что action переключил алиас.
+     */
+    public void replay(Replay action) throws IOException {
+        lock.writeLock().lock();
+        try {
+            action.run(new ArrayList<>(recorded));
+        } finally {
+            stopRecording();
+            lock.writeLock().unlock();
+        }
+    }
+}
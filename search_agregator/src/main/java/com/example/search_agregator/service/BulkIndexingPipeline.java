@@ -0,0 +1,230 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Стадия между парсером таблицы и Elasticsearch: режет поток карточек на bulk-пачки,
+ * ограниченные числом документов и объёмом, и отправляет их несколькими воркерами на виртуальных потоках.
+ *
+ * Очередь пачек ограничена, поэтому если ES не успевает, поток парсера блокируется в {@link Session#submit}
+ * и не копит карточки в памяти. Документы, отклонённые с 429 или 5xx, переотправляются с экспоненциальной паузой.
+ */
+@Slf4j
+@Service
+@Profile("!embedded")
+public class BulkIndexingPipeline {
+    // Маркер конца очереди для воркеров; сравнивается по ссылке
+    private static final List<IndexQuery> POISON = new ArrayList<>(0);
+
+    private final ElasticsearchOperations operations;
+    private final int maxActions;
+    private final long maxBytes;
+    private final int workers;
+    private final int queueCapacity;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+
+    public BulkIndexingPipeline(ElasticsearchOperations operations,
+                                @Value("${ingestion.bulk.max-actions:1000}") int maxActions,
+                                @Value("${ingestion.bulk.max-bytes:5242880}") long maxBytes,
+                                @Value("${ingestion.bulk.workers:4}") int workers,
+                                @Value("${ingestion.bulk.queue-capacity:8}") int queueCapacity,
+                                @Value("${ingestion.bulk.max-retries:3}") int maxRetries,
+                                @Value("${ingestion.bulk.retry-backoff:500ms}") Duration retryBackoff) {
+        this.operations = operations;
+        this.maxActions = maxActions;
+        this.maxBytes = maxBytes;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+    }
+
+    public record Result(long indexed, long failed, Duration elapsed) {
+        public double docsPerSecond() {
+            double seconds = elapsed.toNanos() / 1_000_000_000.0;
+            return seconds > 0 ? indexed / seconds : indexed;
+        }
+    }
+
+    public Session start(IndexCoordinates index) {
+        return new Session(index);
+    }
+
+    /**
+     * Одна загрузка в один индекс. submit() вызывается из одного потока (потока парсера),
+     * finish() дожидается отправки всех пачек. close() без finish() прерывает загрузку.
+     */
+    public final class Session implements AutoCloseable {
+        private final IndexCoordinates index;
+        private final BlockingQueue<List<IndexQuery>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("bulk-indexer-", 0).factory());
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final long startedAt = System.nanoTime();
+
+        private List<IndexQuery> batch = new ArrayList<>();
+        private long batchBytes;
+        private boolean finished;
+
+        private Session(IndexCoordinates index) {
+            this.index = index;
+            for (int i = 0; i < workers; i++) {
+                executor.execute(this::work);
+            }
+        }
+
+        public void submit(ProjectCard card) {
+            // Карточка сериализуется один раз: тот же JSON и отправляется, и даёт размер пачки
+            String source = operations.getElasticsearchConverter().mapObject(card).toJson();
+            long bytes = utf8Length(source);
+            if (!batch.isEmpty() && (batch.size() >= maxActions || batchBytes + bytes > maxBytes)) {
+                flush();
+            }
+            batch.add(new IndexQueryBuilder().withId(card.getId()).withSource(source).build());
+            batchBytes += bytes;
+        }
+
+        public Result finish() {
+            if (!batch.isEmpty()) {
+                flush();
+            }
+            for (int i = 0; i < workers; i++) {
+                enqueue(POISON);
+            }
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Прервано ожидание bulk-индексации", e);
+            }
+            finished = true;
+
+            Result result = new Result(indexed.get(), failed.get(), Duration.ofNanos(System.nanoTime() - startedAt));
+            log.info("--- Индексация в {}: {} документов за {} мс ({} док/с), ошибок {} ---",
+                    index.getIndexName(), result.indexed(), result.elapsed().toMillis(),
+                    Math.round(result.docsPerSecond()), result.failed());
+            return result;
+        }
+
+        @Override
+        public void close() {
+            if (!finished) {
+                executor.shutdownNow();
+            }
+        }
+
+        private void flush() {
+            enqueue(batch);
+            batch = new ArrayList<>();
+            batchBytes = 0;
+        }
+
+        private void enqueue(List<IndexQuery> queries) {
+            try {
+                queue.put(queries);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Прервана постановка пачки в очередь", e);
+            }
+        }
+
+        private void work() {
+            try {
+                while (true) {
+                    List<IndexQuery> queries = queue.take();
+                    if (queries == POISON) {
+                        return;
+                    }
+                    send(queries);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void send(List<IndexQuery> queries) throws InterruptedException {
+            List<IndexQuery> pending = queries;
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    operations.bulkIndex(pending, index);
+                    indexed.addAndGet(pending.size());
+                    return;
+                } catch (BulkFailureException e) {
+                    Map<String, BulkFailureException.FailureDetails> failures = e.getFailedDocuments();
+                    List<IndexQuery> retryable = new ArrayList<>();
+                    for (IndexQuery query : pending) {
+                        BulkFailureException.FailureDetails details = failures.get(query.getId());
+                        if (details == null) {
+                            indexed.incrementAndGet();
+                        } else if (isRetryable(details.status())) {
+                            retryable.add(query);
+                        } else {
+                            failed.incrementAndGet();
+                            log.error("Документ {} отклонён: {}", query.getId(), details.errorMessage());
+                        }
+                    }
+                    pending = retryable;
+                } catch (RuntimeException e) {
+                    // Запрос целиком не дошёл (таймаут, обрыв соединения) - повторяем всю пачку
+                    log.warn("Bulk-запрос в {} не выполнен: {}", index.getIndexName(), e.getMessage());
+                }
+
+                if (pending.isEmpty()) {
+                    return;
+                }
+                if (attempt >= maxRetries) {
+                    failed.addAndGet(pending.size());
+                    log.error("Не удалось проиндексировать {} документов после {} попыток: {}", pending.size(),
+                            maxRetries + 1, pending.stream().map(IndexQuery::getId).toList());
+                    return;
+                }
+                Thread.sleep(retryBackoff.multipliedBy(1L << attempt).toMillis());
+            }
+        }
+    }
+
+    private static boolean isRetryable(Integer status) {
+        return status == null || status == 429 || status >= 500;
+    }
+
+    private static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
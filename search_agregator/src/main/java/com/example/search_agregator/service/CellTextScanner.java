@@ -0,0 +1,265 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.DocumentLink;
+import com.example.search_agregator.model.ResponsiblePerson;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Однопроходный разбор текстовых ячеек без регулярных выражений.
+ *
+ * Результат совпадает с прежним разбором через String.split / replaceAll, включая его краевые случаи:
+ * пустые поля в начале сохраняются, пустые в конце отбрасываются, пробелы - это [ \t\n\x0B\f\r] как у \s.
+ * Строки создаются только для итоговых полей; разделители и границы полей держатся индексами.
+ */
+public final class CellTextScanner {
+    private static final int PERSON_FIELDS = 4;
+    private static final int LINK_FIELDS = 2;
+    private static final String AMOUNT_KEY = "\"amount\":";
+    private static final String AMOUNT_FIX = "\"amount\": \"-\"}";
+
+    private CellTextScanner() {
+    }
+
+    /**
+     * "ФИО | должность | телефон | email; ..." - как split("\\s*;\\s*|\\s*\\n\\s*"), затем split("\\s*\\|\\s*").
+     */
+    public static List<ResponsiblePerson> parseResponsiblePersons(String data) {
+        return parseRecords(data, PERSON_FIELDS, (s, fields) -> new ResponsiblePerson(
+                field(s, fields, 0), field(s, fields, 1), field(s, fields, 2), field(s, fields, 3), ""));
+    }
+
+    /**
+     * "тип | url; ..." - те же разделители, что и у ответственных, два поля.
+     */
+    public static List<DocumentLink> parseDocumentLinks(String data) {
+        return parseRecords(data, LINK_FIELDS, (s, fields) -> new DocumentLink(field(s, fields, 0), field(s, fields, 1)));
+    }
+
+    /**
+     * То же, что replaceAll(",\\s*([\\}\\]])", "$1"), а затем
+     * replaceAll("\"amount\":\\s*\"-\\s+\\}", "\"amount\": \"-\"}"). Если менять нечего, возвращается исходная строка.
+     */
+    public static String cleanJsonString(String json) {
+        if (json == null) {
+            return null;
+        }
+        int n = json.length();
+        // Очищенный текст = out + json[copiedUpTo, i); out создаётся при первой правке
+        StringBuilder out = null;
+        int copiedUpTo = 0;
+        for (int i = 0; i < n; i++) {
+            char c = json.charAt(i);
+            if (c == ',') {
+                int after = skipWhitespace(json, i + 1, n);
+                if (after < n && (json.charAt(after) == '}' || json.charAt(after) == ']')) {
+                    // Запятая с пробелами выпадает, скобка обработается на следующем шаге
+                    out = flush(out, json, copiedUpTo, i);
+                    copiedUpTo = after;
+                    i = after - 1;
+                }
+            } else if (c == '}') {
+                int keyStart = brokenAmountStart(out, json, copiedUpTo, i);
+                if (keyStart >= 0) {
+                    out = flush(out, json, copiedUpTo, i);
+                    out.setLength(keyStart);
+                    out.append(AMOUNT_FIX);
+                    copiedUpTo = i + 1;
+                }
+            }
+        }
+        if (out == null) {
+            return json;
+        }
+        return out.append(json, copiedUpTo, n).toString();
+    }
+
+    private interface RecordMapper<T> {
+        T map(String data, int[] fields);
+    }
+
+    /**
+     * Записи разделены "\\s*;\\s*" или пробельным промежутком с переводом строки, поля внутри - "\\s*\\|\\s*".
+     * Запись, в которой после отбрасывания пустых полей в конце меньше fieldCount полей, пропускается.
+     */
+    private static <T> List<T> parseRecords(String data, int fieldCount, RecordMapper<T> mapper) {
+        if (data == null || isBlank(data)) {
+            return Collections.emptyList();
+        }
+        List<T> records = new ArrayList<>();
+        int[] fields = new int[fieldCount * 2];
+        int n = data.length();
+        int recordStart = 0;
+        int i = 0;
+        while (i <= n) {
+            int recordEnd;
+            int next;
+            if (i == n) {
+                recordEnd = n;
+                next = n + 1;
+            } else {
+                char c = data.charAt(i);
+                if (c == ';') {
+                    recordEnd = i;
+                    next = skipWhitespace(data, i + 1, n);
+                } else if (isWhitespace(c)) {
+                    // Совпадение регулярки начинается только с начала пробельного промежутка
+                    int runEnd = skipWhitespace(data, i, n);
+                    if (runEnd < n && data.charAt(runEnd) == ';') {
+                        recordEnd = i;
+                        next = skipWhitespace(data, runEnd + 1, n);
+                    } else if (containsNewline(data, i, runEnd)) {
+                        recordEnd = i;
+                        next = runEnd;
+                    } else {
+                        i = runEnd;
+                        continue;
+                    }
+                } else {
+                    i++;
+                    continue;
+                }
+            }
+
+            if (splitFields(data, recordStart, recordEnd, fields, fieldCount)) {
+                records.add(mapper.map(data, fields));
+            }
+            recordStart = next;
+            i = next;
+        }
+        return records;
+    }
+
+    /**
+     * Разбивает [start, end) по "\s*\|\s*" и запоминает границы первых count полей.
+     * true, если после отбрасывания пустых полей в конце их осталось не меньше count.
+     */
+    private static boolean splitFields(String s, int start, int end, int[] fields, int count) {
+        int fieldIndex = 0;
+        int fieldStart = start;
+        int lastNonEmpty = -1;
+        int i = start;
+        while (true) {
+            int fieldEnd;
+            int next;
+            if (i == end) {
+                fieldEnd = end;
+                next = -1;
+            } else {
+                char c = s.charAt(i);
+                if (c == '|') {
+                    fieldEnd = i;
+                    next = skipWhitespace(s, i + 1, end);
+                } else if (isWhitespace(c)) {
+                    int runEnd = skipWhitespace(s, i, end);
+                    if (runEnd < end && s.charAt(runEnd) == '|') {
+                        fieldEnd = i;
+                        next = skipWhitespace(s, runEnd + 1, end);
+                    } else {
+                        i = runEnd;
+                        continue;
+                    }
+                } else {
+                    i++;
+                    continue;
+                }
+            }
+
+            if (fieldEnd > fieldStart) {
+                lastNonEmpty = fieldIndex;
+            }
+            if (fieldIndex < count) {
+                fields[fieldIndex * 2] = fieldStart;
+                fields[fieldIndex * 2 + 1] = fieldEnd;
+            }
+            if (next < 0) {
+                break;
+            }
+            fieldIndex++;
+            fieldStart = next;
+            i = next;
+        }
+        return lastNonEmpty + 1 >= count;
+    }
+
+    private static String field(String s, int[] fields, int index) {
+        return s.substring(fields[index * 2], fields[index * 2 + 1]);
+    }
+
+    private static StringBuilder flush(StringBuilder out, String json, int from, int to) {
+        if (out == null) {
+            out = new StringBuilder(json.length());
+        }
+        return out.append(json, from, to);
+    }
+
+    /**
+     * Если очищенный текст перед '}' заканчивается на "amount":\s*"-\s+ (недописанное значение из таблицы),
+     * возвращает позицию начала "amount" в очищенном тексте, иначе -1.
+     */
+    private static int brokenAmountStart(StringBuilder out, String json, int copiedUpTo, int brace) {
+        int outLength = out == null ? 0 : out.length();
+        int pos = outLength + (brace - copiedUpTo) - 1;
+        int spaces = 0;
+        while (pos >= 0 && isWhitespace(cleanedCharAt(out, outLength, json, copiedUpTo, pos))) {
+            pos--;
+            spaces++;
+        }
+        if (spaces == 0 || pos < 1
+                || cleanedCharAt(out, outLength, json, copiedUpTo, pos) != '-'
+                || cleanedCharAt(out, outLength, json, copiedUpTo, pos - 1) != '"') {
+            return -1;
+        }
+        pos -= 2;
+        while (pos >= 0 && isWhitespace(cleanedCharAt(out, outLength, json, copiedUpTo, pos))) {
+            pos--;
+        }
+        int keyStart = pos - AMOUNT_KEY.length() + 1;
+        if (keyStart < 0) {
+            return -1;
+        }
+        for (int k = 0; k < AMOUNT_KEY.length(); k++) {
+            if (cleanedCharAt(out, outLength, json, copiedUpTo, keyStart + k) != AMOUNT_KEY.charAt(k)) {
+                return -1;
+            }
+        }
+        return keyStart;
+    }
+
+    private static char cleanedCharAt(StringBuilder out, int outLength, String json, int copiedUpTo, int pos) {
+        return pos < outLength ? out.charAt(pos) : json.charAt(copiedUpTo + pos - outLength);
+    }
+
+    private static int skipWhitespace(String s, int from, int end) {
+        while (from < end && isWhitespace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean containsNewline(String s, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (s.charAt(i) == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBlank(String s) {
+        // String.trim() отбрасывает всё <= ' '
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // \s в java.util.regex без UNICODE_CHARACTER_CLASS
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -1,77 +1,189 @@
 package com.example.search_agregator.service;
 
-import com.example.search_agregator.model.DocumentLink;
 import com.example.search_agregator.model.ProjectCard;
-import com.example.search_agregator.model.ResponsiblePerson;
-import com.example.search_agregator.repository.ProjectCardRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.stream.StreamSupport;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 
 @Slf4j
 @Service
 public class DataInitializer implements CommandLineRunner {
-    private final ProjectCardRepository projectCardRepository;
+    /**
+     * DELTA - записываются только новые и изменённые карточки, удаляются пропавшие из таблицы.
+     * FULL - строится новый версионный индекс, после загрузки на него переключается алиас.
+     */
+    public enum IngestionMode { DELTA, FULL }
+
+    /**
+     * STREAMING - событийная модель XSSF, строки читаются по одной.
+     * DOM - вся книга загружается в XSSFWorkbook.
+     */
+    public enum ParserMode { STREAMING, DOM }
+
     private final ExcelUrlParserService excelUrlParserService;
+    private final ProjectIndexLoader projectIndexLoader;
+    private final ProjectIdAllocator projectIdAllocator;
+    private final SpreadsheetDownloader spreadsheetDownloader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
     private final String SPREADSHEET_EXPORT_URL;
-    public DataInitializer(ProjectCardRepository projectCardRepository,
-                           ExcelUrlParserService excelUrlParserService,
-                           @Value("${spreadsheet.link}") String spreadsheetExportUrl) {
-        this.projectCardRepository = projectCardRepository;
+    private final IngestionMode ingestionMode;
+    private final ParserMode parserMode;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    public DataInitializer(ExcelUrlParserService excelUrlParserService,
+                           ProjectIndexLoader projectIndexLoader,
+                           ProjectIdAllocator projectIdAllocator,
+                           SpreadsheetDownloader spreadsheetDownloader,
+                           ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry,
+                           @Value("${spreadsheet.link}") String spreadsheetExportUrl,
+                           @Value("${ingestion.mode:delta}") IngestionMode ingestionMode,
+                           @Value("${spreadsheet.parser:streaming}") ParserMode parserMode) {
         this.excelUrlParserService = excelUrlParserService;
+        this.projectIndexLoader = projectIndexLoader;
+        this.projectIdAllocator = projectIdAllocator;
+        this.spreadsheetDownloader = spreadsheetDownloader;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
         this.SPREADSHEET_EXPORT_URL = spreadsheetExportUrl;
+        this.ingestionMode = ingestionMode;
+        this.parserMode = parserMode;
     }
+    /**
+     * UPDATED - таблица изменилась и загружена в индекс, UNCHANGED - загрузка пропущена,
+     * BUSY - в этот момент уже идёт другая загрузка.
+     * Исход каждого вызова считается в ingestion.refresh{outcome}, исключение - outcome=failed.
+     */
+    public enum RefreshOutcome { UPDATED, UNCHANGED, BUSY }
+
     @Override
     public void run(String... args) throws Exception {
        try {
-           log.info("--- Начинаю парсинг Excel по URL: " + SPREADSHEET_EXPORT_URL);
-           List<ProjectCard> cards = excelUrlParserService.parseFromUrl(SPREADSHEET_EXPORT_URL);
-
-           if (cards.isEmpty()) {
-               log.debug("--- Данные из Excel не получены или таблица пуста ---");
-               return;
-           }
-           log.debug("--- Успешно загружено %d карточек из Excel ---\n", cards.size());
-
-           projectCardRepository.deleteAll();
-           log.info("--- Старый индекс очищен ---");
-
-           projectCardRepository.saveAll(cards);
-           log.info("--- Новые данные успешно загружены в Elasticsearch! ---");
+           refresh(false);
        }
        catch (Exception e){
             log.error("ОШИБКА при загрузке данных из Excel по URL: " + e.getMessage());
        }
     }
 
-    public String generateNextId() {
-        Iterable<ProjectCard> iterable = projectCardRepository.findAll();
-        List<ProjectCard> allProjects = StreamSupport.stream(iterable.spliterator(), false).toList();
+    @Scheduled(initialDelayString = "${spreadsheet.refresh-interval:15m}",
+            fixedDelayString = "${spreadsheet.refresh-interval:15m}")
+    public void scheduledRefresh() {
+        try {
+            refresh(false);
+        } catch (Exception e) {
+            log.error("ОШИБКА при плановом обновлении таблицы: " + e.getMessage());
+        }
+    }
 
-        if (allProjects.isEmpty()) {
-            return "1";
+    /**
+     * Скачивает таблицу и, если она изменилась (или force), загружает её в индекс.
+     * Одновременно идёт не больше одной загрузки: запуск при старте, по расписанию и через админку
+     * не пересекаются, лишний вызов сразу получает BUSY.
+     */
+    public RefreshOutcome refresh(boolean force) throws IOException {
+        String outcome = "failed";
+        try {
+            RefreshOutcome result = doRefresh(force);
+            outcome = result.name().toLowerCase(Locale.ROOT);
+            return result;
+        } finally {
+            meterRegistry.counter("ingestion.refresh", "outcome", outcome).increment();
         }
+    }
+
+    private RefreshOutcome doRefresh(boolean force) throws IOException {
+        if (!refreshLock.tryLock()) {
+            log.info("--- Загрузка таблицы уже идёт, запрос пропущен ---");
+            return RefreshOutcome.BUSY;
+        }
+        try {
+            boolean indexCurrent = projectIndexLoader.isIndexCurrent();
+            boolean full = ingestionMode == IngestionMode.FULL || !indexCurrent;
+            // Без актуального индекса нечего сравнивать с прошлой загрузкой: таблицу нужно залить в любом случае
+            boolean conditional = !force && indexCurrent;
+
+            log.info("--- Проверяю таблицу по URL: " + SPREADSHEET_EXPORT_URL);
+            Timer.Sample downloadSample = Timer.start(meterRegistry);
+            Optional<SpreadsheetDownloader.Download> download = spreadsheetDownloader.download(SPREADSHEET_EXPORT_URL, conditional);
+            downloadSample.stop(meterRegistry.timer("ingestion.stage", "stage", "download"));
+            if (download.isEmpty()) {
+                return RefreshOutcome.UNCHANGED;
+            }
 
-        // Находим максимальный числовой ID
-        int maxId = allProjects.stream()
-                .map(ProjectCard::getId)
-                .filter(id -> id != null && !id.trim().isEmpty())
-                .mapToInt(id -> {
-                    try {
-                        return Integer.parseInt(id);
-                    } catch (NumberFormatException e) {
-                        return 0; // Игнорируем нечисловые ID
+            Path file = download.get().file();
+            try {
+                log.info("--- Начинаю парсинг Excel ---");
+                // Разбор и индексация идут вперемешку: время разбора - чтение без ожидания в sink, остальное - индексация
+                AtomicLong parseNanos = new AtomicLong();
+                long loadStart = System.nanoTime();
+                try {
+                    projectIndexLoader.load(sink -> parseNanos.addAndGet(readCards(file, sink)), full);
+                } catch (IndexingFailedException e) {
+                    // Состояние скачивания не сохраняем: иначе следующая проверка сочтёт таблицу неизменённой
+                    // и отвергнутые карточки не будут повторены. Записанная дельтой часть уже в индексе
+                    if (!full) {
+                        eventPublisher.publishEvent(new ProjectIndexChangedEvent("partial reload"));
                     }
-                })
-                .max()
-                .orElse(0);
+                    throw e;
+                }
+                long loadNanos = System.nanoTime() - loadStart;
+                meterRegistry.timer("ingestion.stage", "stage", "parse").record(parseNanos.get(), TimeUnit.NANOSECONDS);
+                meterRegistry.timer("ingestion.stage", "stage", "index")
+                        .record(Math.max(0, loadNanos - parseNanos.get()), TimeUnit.NANOSECONDS);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+            // ETag и хэш запоминаются только после загрузки без ошибок
+            spreadsheetDownloader.commit(download.get());
+            eventPublisher.publishEvent(new ProjectIndexChangedEvent("reload"));
+            projectIdAllocator.reseed();
+            return RefreshOutcome.UPDATED;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
 
-        return String.valueOf(maxId + 1);
+    /**
+     * Отдаёт карточки по мере разбора таблицы. В потоковом режиме строка уходит в consumer сразу после чтения,
+     * и при медленной индексации парсер притормаживает на очереди пайплайна, а не копит карточки.
+     * Возвращает время разбора в наносекундах без времени, проведённого в sink.
+     */
+    private long readCards(Path file, Consumer<ProjectCard> sink) throws IOException {
+        long start = System.nanoTime();
+        long[] sinkNanos = new long[1];
+        Consumer<ProjectCard> consumer = card -> {
+            card.setFingerprint(ProjectCardFingerprint.of(card));
+            long sinkStart = System.nanoTime();
+            sink.accept(card);
+            sinkNanos[0] += System.nanoTime() - sinkStart;
+            // id из таблицы сразу сдвигают счётчик, не дожидаясь refresh индекса
+            projectIdAllocator.observe(card.getId());
+        };
+        if (parserMode == ParserMode.DOM) {
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                excelUrlParserService.parse(inputStream).forEach(consumer);
+            }
+        } else {
+            excelUrlParserService.parseStreaming(file, consumer);
+        }
+        return System.nanoTime() - start - sinkNanos[0];
     }
 }
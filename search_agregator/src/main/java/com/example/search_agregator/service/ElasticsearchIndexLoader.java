@@ -0,0 +1,187 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.repository.ProjectCardRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Загрузка таблицы в Elasticsearch: полная - в новый версионный индекс с переключением алиаса,
+ * дельта - только изменённые карточки в текущий индекс.
+ */
+@Slf4j
+@Service
+@Profile("!embedded")
+@RequiredArgsConstructor
+public class ElasticsearchIndexLoader implements ProjectIndexLoader {
+    private final ProjectCardRepository projectCardRepository;
+    private final ProjectIndexManager projectIndexManager;
+    private final BulkIndexingPipeline bulkIndexingPipeline;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ApiWriteGate apiWriteGate;
+
+    /**
+     * Пока алиаса нет (первый запуск или индекс старого формата) или маппинг устарел, дельту считать не с чем.
+     */
+    @Override
+    public boolean isIndexCurrent() throws IOException {
+        return projectIndexManager.isIndexCurrent();
+    }
+
+    @Override
+    public void load(CardSource cards, boolean full) throws IOException {
+        if (full) {
+            fullReload(cards);
+        } else {
+            deltaReload(cards);
+        }
+    }
+
+    /**
+     * Заливает карточки в новый версионный индекс и переключает на него алиас.
+     * До переключения поиск обслуживает прежний индекс, пустого или частичного состояния запросы не видят.
+     * Карточки, созданные через API, переносятся из прежнего индекса, а запись через API во время загрузки
+     * повторяется в новом индексе перед переключением ({@link ApiWriteGate}).
+     * Если хоть одна карточка не записалась, новый индекс удаляется, а алиас остаётся на прежнем.
+     */
+    private void fullReload(CardSource cards) throws IOException {
+        String index = projectIndexManager.createVersionedIndex();
+        IndexCoordinates target = IndexCoordinates.of(index);
+        // С этого момента всё, что запишут через API в прежний индекс, нужно будет повторить в новом
+        apiWriteGate.startRecording();
+        try {
+            long parsed;
+            BulkIndexingPipeline.Result result;
+            try (BulkIndexingPipeline.Session session = bulkIndexingPipeline.start(target)) {
+                Set<String> seen = new HashSet<>();
+                cards.forEach(card -> {
+                    session.submit(card);
+                    seen.add(card.getId());
+                });
+                parsed = seen.size();
+                if (parsed > 0) {
+                    carryOverApiCards(seen, session);
+                }
+                result = session.finish();
+            }
+
+            if (parsed == 0) {
+                log.debug("--- Данные из Excel не получены или таблица пуста ---");
+                projectIndexManager.discard(index);
+                return;
+            }
+            if (result.failed() > 0) {
+                throw new IndexingFailedException(result.failed(), parsed);
+            }
+            apiWriteGate.replay(changes -> {
+                replayApiWrites(changes, target);
+                projectIndexManager.publish(index);
+            });
+        } catch (IOException | RuntimeException e) {
+            projectIndexManager.discard(index);
+            throw e;
+        } finally {
+            apiWriteGate.stopRecording();
+        }
+        log.info("--- Новые данные успешно загружены в Elasticsearch! ---");
+    }
+
+    /**
+     * Карточек без fingerprint (созданных через API) в таблице нет, и без переноса они пропали бы
+     * вместе с прежним индексом. Из индекса без алиаса не переносим ничего: он создан версией приложения,
+     * которая могла не писать fingerprint и у карточек из таблицы.
+     */
+    private void carryOverApiCards(Set<String> seen, BulkIndexingPipeline.Session session) throws IOException {
+        if (!projectIndexManager.isAliasInPlace()) {
+            return;
+        }
+        List<String> apiIds = projectCardRepository.findAllFingerprints().entrySet().stream()
+                .filter(entry -> entry.getValue() == null && !seen.contains(entry.getKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (apiIds.isEmpty()) {
+            return;
+        }
+        projectCardRepository.findAllById(apiIds).forEach(session::submit);
+        log.info("--- Перенесено {} карточек, созданных через API ---", apiIds.size());
+    }
+
+    /**
+     * Повторяет в новом индексе создание и удаление через API, выполненные в прежний индекс во время загрузки.
+     */
+    private void replayApiWrites(List<ProjectIndexChangedEvent> changes, IndexCoordinates target) {
+        for (ProjectIndexChangedEvent change : changes) {
+            if (!change.saved().isEmpty()) {
+                elasticsearchOperations.save(change.saved(), target);
+            }
+            for (String id : change.deleted()) {
+                elasticsearchOperations.delete(id, target);
+            }
+        }
+        if (!changes.isEmpty()) {
+            log.info("--- В новом индексе повторено {} изменений через API ---", changes.size());
+        }
+    }
+
+    /**
+     * Сравнивает fingerprint каждой карточки с сохранённым в индексе и пишет только разницу.
+     * Повторная загрузка неизменённой таблицы обходится одним чтением fingerprint'ов без записей.
+     * Удаляются только карточки из таблицы, пропавшие из неё; созданные через API остаются.
+     * Если часть карточек не записалась, удаления не выполняются и загрузка завершается ошибкой:
+     * у незаписанных карточек в индексе остался старый fingerprint, и следующая загрузка повторит их.
+     */
+    private void deltaReload(CardSource cards) throws IOException {
+        Map<String, String> indexed = projectCardRepository.findAllFingerprints();
+
+        Set<String> seen = new HashSet<>();
+        long[] changed = {0};
+        BulkIndexingPipeline.Result result;
+        IndexCoordinates alias = elasticsearchOperations.getIndexCoordinatesFor(ProjectCard.class);
+        try (BulkIndexingPipeline.Session session = bulkIndexingPipeline.start(alias)) {
+            cards.forEach(card -> {
+                seen.add(card.getId());
+                if (!card.getFingerprint().equals(indexed.get(card.getId()))) {
+                    session.submit(card);
+                    changed[0]++;
+                }
+            });
+            result = session.finish();
+        }
+        if (result.failed() > 0) {
+            // Записанная часть должна стать видна поиску так же, как при удачной загрузке
+            elasticsearchOperations.indexOps(alias).refresh();
+            throw new IndexingFailedException(result.failed(), changed[0]);
+        }
+
+        if (seen.isEmpty()) {
+            // Пустая выгрузка скорее сбой источника, чем реально пустой реестр: индекс не трогаем
+            log.debug("--- Данные из Excel не получены или таблица пуста ---");
+            return;
+        }
+
+        // У карточек, созданных через API, fingerprint нет: в таблице их не было, и пропасть из неё они не могли
+        List<String> removed = indexed.entrySet().stream()
+                .filter(entry -> entry.getValue() != null && !seen.contains(entry.getKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!removed.isEmpty()) {
+            projectCardRepository.deleteAllById(removed);
+        }
+        if (changed[0] > 0) {
+            // Чтобы поиск (и его кэш) сразу после загрузки видел записанные пайплайном карточки
+            elasticsearchOperations.indexOps(alias).refresh();
+        }
+        log.info("--- Дельта-загрузка: {} карточек в таблице, записано {}, удалено {}, без изменений {} ---",
+                seen.size(), changed[0], removed.size(), seen.size() - changed[0]);
+    }
+}
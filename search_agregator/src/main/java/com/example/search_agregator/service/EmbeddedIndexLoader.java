@@ -0,0 +1,62 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.repository.EmbeddedProjectCardRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Загрузка таблицы во встроенный поиск (профиль embedded). Те же правила, что у дельты в кластере:
+ * пишутся новые и изменённые карточки (full - все карточки таблицы), удаляются только пропавшие из таблицы,
+ * созданные через API остаются. Изменения применяются одним шагом, запросы не видят частично загруженных данных.
+ */
+@Slf4j
+@Service
+@Profile("embedded")
+@RequiredArgsConstructor
+public class EmbeddedIndexLoader implements ProjectIndexLoader {
+    private final EmbeddedProjectCardRepository repository;
+
+    /**
+     * Индекс в памяти пуст после каждого запуска, поэтому первая загрузка идёт без условной проверки таблицы.
+     */
+    @Override
+    public boolean isIndexCurrent() {
+        return repository.count() > 0;
+    }
+
+    @Override
+    public void load(CardSource cards, boolean full) throws IOException {
+        Map<String, String> indexed = repository.findAllFingerprints();
+        Set<String> seen = new HashSet<>();
+        List<ProjectCard> changed = new ArrayList<>();
+        cards.forEach(card -> {
+            seen.add(card.getId());
+            if (full || !card.getFingerprint().equals(indexed.get(card.getId()))) {
+                changed.add(card);
+            }
+        });
+        if (seen.isEmpty()) {
+            log.debug("--- Данные из Excel не получены или таблица пуста ---");
+            return;
+        }
+
+        // У карточек, созданных через API, fingerprint нет: в таблице их не было, и пропасть из неё они не могли
+        List<String> removed = indexed.entrySet().stream()
+                .filter(entry -> entry.getValue() != null && !seen.contains(entry.getKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+        repository.update(changed, removed);
+        log.info("--- Встроенный поиск: {} карточек в таблице, записано {}, удалено {}, без изменений {} ---",
+                seen.size(), changed.size(), removed.size(), seen.size() - changed.size());
+    }
+}
@@ -5,13 +5,22 @@ import com.example.search_agregator.model.ProjectCard;
 import com.example.search_agregator.model.ResponsiblePerson;
 import org.apache.poi.ss.usermodel.Cell;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ExcelUrlParserService {
     List<ProjectCard> parseFromUrl(String fileUrl) throws MalformedURLException;
+    // Разбор через DOM-модель XSSFWorkbook: вся книга в памяти
+    List<ProjectCard> parse(InputStream inputStream) throws IOException;
+    // Разбор через событийную модель XSSF: строки читаются по одной, память не растёт с размером листа
+    void parseStreamingFromUrl(String fileUrl, Consumer<ProjectCard> consumer) throws IOException;
+    void parseStreaming(Path xlsxFile, Consumer<ProjectCard> consumer) throws IOException;
     String getStringCellValue(Cell cell);
     LocalDate getDateCellValue(Cell cell);
     List<ResponsiblePerson> parseResponsiblePersons(String data);
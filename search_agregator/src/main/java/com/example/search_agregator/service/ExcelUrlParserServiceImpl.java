@@ -4,39 +4,88 @@ package com.example.search_agregator.service;
 import com.example.search_agregator.model.DocumentLink;
 import com.example.search_agregator.model.ProjectCard;
 import com.example.search_agregator.model.ResponsiblePerson;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.xml.sax.SAXException;
 
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 public class ExcelUrlParserServiceImpl implements  ExcelUrlParserService{
+    // Колонки A..I: id, title, address, startDate, endDate, status, responsiblePersons, documentLinks, indicators
+    static final int COLUMN_COUNT = 9;
+
+    private static final Set<String> HEADER_VALUES = Set.of(
+            "id", "title", "address", "startdate", "enddate", "status",
+            "responsiblepersons", "documentlinks", "indicators");
+
+    private final MeterRegistry meterRegistry;
+    private final Counter parsedRows;
+    private final Counter failedRows;
+
+    public ExcelUrlParserServiceImpl(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        // Строка с неразобранной ячейкой всё равно становится карточкой, только без значения этого поля
+        this.parsedRows = Counter.builder("spreadsheet.rows")
+                .description("Строки таблицы, превращённые в карточки")
+                .tag("result", "parsed")
+                .register(meterRegistry);
+        this.failedRows = Counter.builder("spreadsheet.rows")
+                .description("Строки таблицы, превращённые в карточки")
+                .tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Доступ к значениям строки, общий для DOM- и потокового парсеров:
+     * оба должны давать одинаковые карточки для одной и той же таблицы.
+     */
+    interface RowValues {
+        String text(int column);
+        LocalDate date(int column);
+    }
+
     @Override
     public List<ProjectCard> parseFromUrl(String fileUrl) throws MalformedURLException {
-        List<ProjectCard> projectCards = new ArrayList<>();
-
         // 1. Открываем соединение по URL и получаем поток данных
         URL url = new URL(fileUrl);
         try (InputStream inputStream = url.openStream()) {
             // 2. Передаем поток данных в Apache POI
-            XSSFWorkbook workbook = new XSSFWorkbook(inputStream);
+            return parse(inputStream);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<ProjectCard> parse(InputStream inputStream) throws IOException {
+        List<ProjectCard> projectCards = new ArrayList<>();
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(inputStream)) {
             Sheet sheet = workbook.getSheetAt(0); // Берем первый лист
 
             int firstRow = sheet.getFirstRowNum();
@@ -50,34 +99,102 @@ public class ExcelUrlParserServiceImpl implements  ExcelUrlParserService{
 
                 // Skip header rows - check if first cell contains header text
                 String firstCellValue = getStringCellValue(row.getCell(0)).toLowerCase().trim();
-                if (firstCellValue.equals("id") || firstCellValue.equals("title") || 
-                    firstCellValue.equals("address") || firstCellValue.equals("startdate") ||
-                    firstCellValue.equals("enddate") || firstCellValue.equals("status") ||
-                    firstCellValue.equals("responsiblepersons") || firstCellValue.equals("documentlinks") ||
-                    firstCellValue.equals("indicators")) {
+                if (isHeaderRow(firstCellValue)) {
                     log.debug("Skipping header row: " + firstCellValue);
                     continue;
                 }
 
-                ProjectCard card = new ProjectCard();
-                card.setId(getStringCellValue(row.getCell(0)));
-                card.setTitle(getStringCellValue(row.getCell(1)));
-                card.setAddress(getStringCellValue(row.getCell(2)));
-                card.setStartDate(getDateCellValue(row.getCell(3)));
-                card.setEndDate(getDateCellValue(row.getCell(4)));
-                card.setStatus(getStringCellValue(row.getCell(5)));
-                card.setResponsiblePersons(parseResponsiblePersons(getStringCellValue(row.getCell(6))));
-                card.setDocumentLinks(parseDocumentLinks(getStringCellValue(row.getCell(7))));
-                String indicatorsRaw = getStringCellValue(row.getCell(8));
-                card.setIndicators(parseIndicators(indicatorsRaw));
+                projectCards.add(toCard(new RowValues() {
+                    @Override
+                    public String text(int column) {
+                        return getStringCellValue(row.getCell(column));
+                    }
 
-                projectCards.add(card);
+                    @Override
+                    public LocalDate date(int column) {
+                        return getDateCellValue(row.getCell(column));
+                    }
+                }));
             }
             return projectCards;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
+    }
 
+    @Override
+    public void parseStreamingFromUrl(String fileUrl, Consumer<ProjectCard> consumer) throws IOException {
+        // Событийной модели нужен zip с произвольным доступом, поэтому сначала сохраняем файл на диск,
+        // а не держим его в памяти
+        Path tempFile = Files.createTempFile("spreadsheet-", ".xlsx");
+        try {
+            try (InputStream inputStream = new URL(fileUrl).openStream()) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            parseStreaming(tempFile, consumer);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public void parseStreaming(Path xlsxFile, Consumer<ProjectCard> consumer) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(xlsxFile.toFile(), PackageAccess.READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException("Не удалось открыть xlsx: " + xlsxFile, e);
+        }
+        try {
+            new XlsxStreamingSheetReader(this, consumer).read(pkg);
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Не удалось разобрать xlsx: " + xlsxFile, e);
+        } finally {
+            // Пакет открыт только на чтение: revert() закрывает файл, не пытаясь его сохранить
+            pkg.revert();
+        }
+    }
+
+    static boolean isHeaderRow(String firstCellValue) {
+        return HEADER_VALUES.contains(firstCellValue);
+    }
+
+    ProjectCard toCard(RowValues row) {
+        List<String> failedColumns = new ArrayList<>(0);
+        ProjectCard card = new ProjectCard();
+        card.setId(row.text(0));
+        card.setTitle(row.text(1));
+        card.setAddress(row.text(2));
+        card.setStartDate(date(row, 3, "startDate", failedColumns));
+        card.setEndDate(date(row, 4, "endDate", failedColumns));
+        card.setStatus(row.text(5));
+        card.setResponsiblePersons(parseResponsiblePersons(row.text(6)));
+        card.setDocumentLinks(parseDocumentLinks(row.text(7)));
+        java.util.Map<String, java.util.Map<String, String>> indicators = tryParseIndicators(row.text(8));
+        if (indicators == null) {
+            failedColumns.add("indicators");
+            indicators = java.util.Collections.emptyMap();
+        }
+        card.setIndicators(indicators);
+
+        if (failedColumns.isEmpty()) {
+            parsedRows.increment();
+        } else {
+            failedRows.increment();
+            for (String column : failedColumns) {
+                meterRegistry.counter("spreadsheet.cell.failures", "column", column).increment();
+            }
+        }
+        return card;
+    }
+
+    /**
+     * Дата из колонки; непустое значение, которое не удалось разобрать, записывается в failedColumns.
+     */
+    private static LocalDate date(RowValues row, int column, String name, List<String> failedColumns) {
+        LocalDate date = row.date(column);
+        if (date == null && !row.text(column).isBlank()) {
+            failedColumns.add(name);
+        }
+        return date;
     }
 
     @Override
@@ -92,19 +209,22 @@ public class ExcelUrlParserServiceImpl implements  ExcelUrlParserService{
                     // Если это дата, возвращаем отформатированную строку
                     return cell.getDateCellValue().toString();
                 } else {
-                    // Преобразуем числовое значение в строку без ".0"
-                    double numericValue = cell.getNumericCellValue();
-                    if (numericValue == (long) numericValue) {
-                        return String.valueOf((long) numericValue);
-                    } else {
-                        return String.valueOf(numericValue);
-                    }
+                    return formatNumber(cell.getNumericCellValue());
                 }
             default:
                 return cell.toString();
         }
     }
 
+    // Преобразуем числовое значение в строку без ".0"
+    static String formatNumber(double numericValue) {
+        if (numericValue == (long) numericValue) {
+            return String.valueOf((long) numericValue);
+        } else {
+            return String.valueOf(numericValue);
+        }
+    }
+
     @Override
     public LocalDate getDateCellValue(Cell cell) {
         if (cell == null) return null;
@@ -114,74 +234,53 @@ public class ExcelUrlParserServiceImpl implements  ExcelUrlParserService{
             if (cell.getCellType() == org.apache.poi.ss.usermodel.CellType.NUMERIC && 
                 org.apache.poi.ss.usermodel.DateUtil.isCellDateFormatted(cell)) {
                 // Это числовая дата в Excel - используем встроенный метод POI
-                return cell.getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+                return toLocalDate(cell.getDateCellValue());
             } else if (cell.getCellType() == org.apache.poi.ss.usermodel.CellType.NUMERIC) {
                 // Это числовое значение, но не дата - возможно, это серийный номер даты Excel
                 double numericValue = cell.getNumericCellValue();
                 if (numericValue > 0) {
                     // Преобразуем серийный номер Excel в дату
-                    java.util.Date excelDate = org.apache.poi.ss.usermodel.DateUtil.getJavaDate(numericValue);
-                    return excelDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+                    return toLocalDate(org.apache.poi.ss.usermodel.DateUtil.getJavaDate(numericValue));
                 }
             } else if (cell.getCellType() == org.apache.poi.ss.usermodel.CellType.STRING) {
                 // Это строка - пытаемся распарсить как дату
-                String dateString = cell.getStringCellValue().trim();
-                if (dateString.isEmpty()) {
-                    return null;
-                }
-                
-                // Пробуем разные форматы дат
-                String[] patterns = {"M/d/yyyy", "MM/dd/yyyy", "d/M/yyyy", "dd/MM/yyyy", "yyyy-MM-dd"};
-                for (String pattern : patterns) {
-                    try {
-                        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
-                        return LocalDate.parse(dateString, formatter);
-                    } catch (Exception ignored) {
-                        // Продолжаем с следующим форматом
-                    }
-                }
+                return parseDateString(cell.getStringCellValue().trim());
             }
         } catch (Exception e) {
-            System.err.println("Не удалось преобразовать ячейку '" + cell.toString() + "' в дату: " + e.getMessage());
+            log.warn("Не удалось преобразовать ячейку '{}' в дату: {}", cell, e.getMessage());
         }
         
         return null;
     }
 
+    static LocalDate toLocalDate(Date date) {
+        return date == null ? null : date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    static LocalDate parseDateString(String dateString) {
+        return SheetDateParser.parse(dateString);
+    }
+
     @Override
-    public List<ResponsiblePerson> parseResponsiblePersons(String data) {// Эти методы парсинга строк с разделителями остаются такими же
-        if (data == null || data.trim().isEmpty()) {
-            return Collections.emptyList();
-        }
-        String[] personsStr = data.split("\\s*;\\s*|\\s*\\n\\s*"); // Разделитель ; или перенос строки
-        List<ResponsiblePerson> persons = new ArrayList<>();
-        for (String pStr : personsStr) {
-            String[] parts = pStr.split("\\s*\\|\\s*");
-            if (parts.length >= 4) {
-                persons.add(new ResponsiblePerson(parts[0], parts[1], parts[2], parts[3], ""));
-            }
-        }
-        return persons;
+    public List<ResponsiblePerson> parseResponsiblePersons(String data) {
+        return CellTextScanner.parseResponsiblePersons(data);
     }
 
     @Override
     public List<DocumentLink> parseDocumentLinks(String data) {
-        if (data == null || data.trim().isEmpty()) {
-            return Collections.emptyList();
-        }
-        String[] linksStr = data.split("\\s*;\\s*|\\s*\\n\\s*");
-        List<DocumentLink> links = new ArrayList<>();
-        for (String lStr : linksStr) {
-            String[] parts = lStr.split("\\s*\\|\\s*");
-            if (parts.length >= 2) {
-                links.add(new DocumentLink(parts[0], parts[1]));
-            }
-        }
-        return links;
+        return CellTextScanner.parseDocumentLinks(data);
     }
 
     @Override
     public java.util.Map<String, java.util.Map<String, String>> parseIndicators(String data) {
+        java.util.Map<String, java.util.Map<String, String>> result = tryParseIndicators(data);
+        return result == null ? java.util.Collections.emptyMap() : result;
+    }
+
+    /**
+     * null - ячейка непустая, но JSON в ней разобрать не удалось.
+     */
+    private java.util.Map<String, java.util.Map<String, String>> tryParseIndicators(String data) {
         if (data == null || data.trim().isEmpty()) {
             log.debug("indicators data is null or empty");
             return java.util.Collections.emptyMap();
@@ -190,76 +289,13 @@ public class ExcelUrlParserServiceImpl implements  ExcelUrlParserService{
         log.debug("Raw indicators data: '" + data + "'");
         
         try {
-            String cleanedData = cleanJsonString(data);
-            log.debug("Cleaned indicators data: '" + cleanedData + "'");
-            
-            ObjectMapper mapper = new ObjectMapper();
-            
-            // Try to parse as array of indicator objects first
-            if (cleanedData.trim().startsWith("[")) {
-                java.util.List<java.util.Map<String, Object>> indicatorsArray = mapper.readValue(
-                        cleanedData,
-                        new TypeReference<java.util.List<java.util.Map<String, Object>>>() {}
-                );
-                
-                java.util.Map<String, java.util.Map<String, String>> result = new java.util.HashMap<>();
-                
-                for (java.util.Map<String, Object> indicator : indicatorsArray) {
-                    String indicatorName = (String) indicator.get("indicator_name");
-                    if (indicatorName != null) {
-                        java.util.Map<String, String> sections = new java.util.HashMap<>();
-                        
-                        // Add sections
-                        @SuppressWarnings("unchecked")
-                        java.util.List<java.util.Map<String, Object>> sectionsList = 
-                            (java.util.List<java.util.Map<String, Object>>) indicator.get("sections");
-                        if (sectionsList != null) {
-                            for (java.util.Map<String, Object> section : sectionsList) {
-                                String sectionNumber = (String) section.get("number");
-                                String amount = (String) section.get("amount");
-                                if (sectionNumber != null && amount != null) {
-                                    sections.put(sectionNumber, amount);
-                                }
-                            }
-                        }
-                        
-                        // Add total
-                        String total = (String) indicator.get("total");
-                        if (total != null) {
-                            sections.put("total", total);
-                        }
-                        
-                        result.put(indicatorName, sections);
-                    }
-                }
-                
-                log.debug("Successfully parsed indicators from array format: " + result);
-                return result;
-            } else {
-                // Try to parse as the old object format
-                java.util.Map<String, java.util.Map<String, String>> result = mapper.readValue(
-                        cleanedData,
-                        new TypeReference<java.util.Map<String, java.util.Map<String, String>>>() {}
-                );
-                log.debug("Successfully parsed indicators from object format: " + result);
-                return result;
-            }
+            java.util.Map<String, java.util.Map<String, String>> result = IndicatorsJsonParser.parse(data);
+            log.debug("Successfully parsed indicators: " + result);
+            return result;
         } catch (Exception e) {
             log.error("Failed to parse indicators JSON: " + e.getMessage());
             log.error("Raw data was: '" + data + "'");
-            return java.util.Collections.emptyMap();
+            return null;
         }
     }
-    
-    private String cleanJsonString(String json) {
-        if (json == null) return null;
-        
-        // Remove trailing commas before closing brackets/braces
-        String cleaned = json.replaceAll(",\\s*([\\}\\]])", "$1");
-        
-        // Fix specific issue: "amount": "- } -> "amount": "-" }
-        cleaned = cleaned.replaceAll("\"amount\":\\s*\"-\\s+\\}", "\"amount\": \"-\"}");
-        
-        return cleaned;
-    }
 }
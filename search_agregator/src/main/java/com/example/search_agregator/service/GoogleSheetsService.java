@@ -1,9 +1,14 @@
 package com.example.search_agregator.service;
 
 import com.example.search_agregator.model.ProjectCard;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -12,7 +17,10 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -24,18 +32,48 @@ public class GoogleSheetsService {
     
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final SheetsOutbox outbox;
+    private final String webhookUrl;
+    private final int batchSize;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final MeterRegistry meterRegistry;
+    private final Counter deliveredRows;
+    private final Counter deadLetteredRows;
+
+    // Retry state, only touched by the dispatcher thread
+    private int consecutiveFailures;
+    private long nextAttemptAt = System.nanoTime();
     
-    public GoogleSheetsService() {
+    public GoogleSheetsService(SheetsOutbox outbox,
+                               @Value("${sheets.webhook-url:${GOOGLE_SHEETS_WEBHOOK_URL:}}") String webhookUrl,
+                               @Value("${sheets.outbox.batch-size:200}") int batchSize,
+                               @Value("${sheets.outbox.retry-backoff:5s}") Duration retryBackoff,
+                               @Value("${sheets.outbox.max-retry-backoff:10m}") Duration maxRetryBackoff,
+                               MeterRegistry meterRegistry) {
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(30))
                 .build();
         this.objectMapper = new ObjectMapper();
+        this.outbox = outbox;
+        this.webhookUrl = webhookUrl;
+        this.batchSize = batchSize;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.meterRegistry = meterRegistry;
+        this.deliveredRows = Counter.builder("sheets.outbox.delivered")
+                .description("Rows delivered to the Google Sheets webhook")
+                .register(meterRegistry);
+        this.deadLetteredRows = Counter.builder("sheets.outbox.dead_lettered")
+                .description("Rows the Google Sheets webhook rejected for good, moved to the dead-letter directory")
+                .register(meterRegistry);
     }
     
     /**
      * Adds a new project to Google Sheets
      * This implementation uses a webhook approach - you can create a Google Apps Script
-     * that receives POST requests and adds data to your sheet
+     * that receives POST requests and adds data to your sheet.
+     * The row is only appended to the on-disk outbox here; {@link #dispatchOutbox()} delivers it in the background.
      */
     public boolean addProjectToSheets(ProjectCard project) {
         try {
@@ -44,10 +82,11 @@ public class GoogleSheetsService {
             // Convert project to the format expected by your Google Sheets
             Map<String, Object> rowData = convertProjectToRowData(project);
             
-            // Option 1: Send to a webhook endpoint (Google Apps Script)
-            String webhookUrl = getWebhookUrl();
+            // Option 1: Queue for the webhook endpoint (Google Apps Script)
             if (webhookUrl != null && !webhookUrl.isEmpty()) {
-                return sendToWebhook(webhookUrl, rowData);
+                outbox.append(rowData);
+                log.info("Project {} queued for Google Sheets webhook", project.getId());
+                return true;
             }
             
             // Option 2: Log the data for manual addition (fallback)
@@ -70,22 +109,117 @@ public class GoogleSheetsService {
             return false;
         }
     }
-    
+
     /**
-     * Get webhook URL from environment variable or configuration
+     * Queues projects as outbox entries of up to batchSize rows each, so that a bulk create costs
+     * one file write per webhook request instead of one per project. Delivered by {@link #dispatchOutbox()}.
      */
-    private String getWebhookUrl() {
-        // You can set this in application.yml or environment variable
-        // For example: GOOGLE_SHEETS_WEBHOOK_URL
-        return System.getenv("GOOGLE_SHEETS_WEBHOOK_URL");
+    public boolean addProjectsToSheets(List<ProjectCard> projects) {
+        if (projects.isEmpty()) {
+            return true;
+        }
+        if (webhookUrl == null || webhookUrl.isEmpty()) {
+            log.info("Google Sheets webhook is not configured, {} projects are not queued", projects.size());
+            return true;
+        }
+        try {
+            List<Map<String, Object>> rows = projects.stream().map(this::convertProjectToRowData).toList();
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                outbox.appendAll(rows.subList(from, Math.min(from + batchSize, rows.size())));
+            }
+            log.info("{} projects queued for Google Sheets webhook", projects.size());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to queue projects for Google Sheets: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sheets.outbox.poll-interval:5s}")
+    public void dispatchOutbox() {
+        flushOutbox();
+    }
+
+    /**
+     * Sends queued rows to the webhook in batches of up to batchSize rows per request.
+     * Stops at the first batch that fails with a transport error or a retryable status and backs off
+     * exponentially before the next attempt. A batch the webhook rejects for good is resent entry by entry,
+     * and the entries still rejected are moved to the dead-letter directory so that later rows keep flowing.
+     * Returns the number of delivered rows.
+     */
+    public int flushOutbox() {
+        if (webhookUrl == null || webhookUrl.isEmpty() || System.nanoTime() - nextAttemptAt < 0) {
+            return 0;
+        }
+        int delivered = 0;
+        try {
+            List<SheetsOutbox.Entry> batch;
+            while (!(batch = outbox.peek(batchSize)).isEmpty()) {
+                Deque<List<SheetsOutbox.Entry>> attempts = new ArrayDeque<>();
+                attempts.add(batch);
+                while (!attempts.isEmpty()) {
+                    List<SheetsOutbox.Entry> entries = attempts.poll();
+                    List<Map<String, Object>> rows = entries.stream().flatMap(entry -> entry.rows().stream()).toList();
+                    Delivery result = sendToWebhook(webhookUrl, Map.of("rows", rows));
+                    if (result == Delivery.RETRY) {
+                        scheduleRetry();
+                        return delivered;
+                    }
+                    consecutiveFailures = 0;
+                    if (result == Delivery.DELIVERED) {
+                        outbox.acknowledge(entries);
+                        deliveredRows.increment(rows.size());
+                        delivered += rows.size();
+                    } else if (entries.size() > 1) {
+                        // Find out which entries the webhook objects to instead of dropping the whole batch
+                        entries.forEach(entry -> attempts.add(List.of(entry)));
+                    } else {
+                        outbox.deadLetter(entries);
+                        deadLetteredRows.increment(rows.size());
+                        log.error("Google Sheets webhook rejected {} row(s), moved {} to the dead-letter directory",
+                                rows.size(), entries.get(0).file().getFileName());
+                    }
+                }
+            }
+            if (delivered > 0) {
+                log.info("Delivered {} queued rows to Google Sheets webhook", delivered);
+            }
+        } catch (IOException e) {
+            log.error("Google Sheets outbox is not accessible: {}", e.getMessage());
+            scheduleRetry();
+        }
+        return delivered;
+    }
+
+    private void scheduleRetry() {
+        consecutiveFailures++;
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(consecutiveFailures - 1, 20));
+        if (delay.compareTo(maxRetryBackoff) > 0) {
+            delay = maxRetryBackoff;
+        }
+        nextAttemptAt = System.nanoTime() + delay.toNanos();
+        log.warn("Google Sheets webhook failed {} time(s) in a row, next attempt in {} s",
+                consecutiveFailures, delay.toSeconds());
     }
     
+    private enum Delivery {
+        DELIVERED,
+        // Transport failure, 5xx, 408 or 429: the same rows may go through later
+        RETRY,
+        // Any other 4xx or success=false: resending the same rows will not help
+        REJECTED
+    }
+
     /**
-     * Send data to webhook (Google Apps Script endpoint)
+     * Send data to webhook (Google Apps Script endpoint).
+     * Every call is timed as sheets.webhook{outcome=success|rejected|error}:
+     * rejected is an HTTP answer that is not 2xx or reports success=false, error is a transport failure.
      */
-    private boolean sendToWebhook(String webhookUrl, Map<String, Object> rowData) {
+    private Delivery sendToWebhook(String webhookUrl, Object payload) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
-            String jsonPayload = objectMapper.writeValueAsString(rowData);
+            String jsonPayload = objectMapper.writeValueAsString(payload);
             
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create(webhookUrl))
@@ -95,18 +229,35 @@ public class GoogleSheetsService {
                     .build();
             
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            boolean successStatus = status >= 200 && status < 300;
             
-            if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                log.info("Successfully sent project to Google Sheets webhook");
-                return true;
+            if (successStatus && !reportsFailure(response.body())) {
+                log.info("Successfully sent batch to Google Sheets webhook");
+                outcome = "success";
+                return Delivery.DELIVERED;
             } else {
                 log.error("Failed to send to Google Sheets webhook. Status: {}, Response: {}", 
-                         response.statusCode(), response.body());
-                return false;
+                         status, response.body());
+                outcome = "rejected";
+                boolean permanent = successStatus || (status >= 400 && status < 500 && status != 408 && status != 429);
+                return permanent ? Delivery.REJECTED : Delivery.RETRY;
             }
             
         } catch (Exception e) {
             log.error("Error sending to Google Sheets webhook: {}", e.getMessage());
+            return Delivery.RETRY;
+        } finally {
+            sample.stop(meterRegistry.timer("sheets.webhook", "outcome", outcome));
+        }
+    }
+
+    // Apps Script answers 200 even when doPost throws, with {"success": false, ...} in the body
+    private boolean reportsFailure(String body) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            return json != null && json.path("success").isBoolean() && !json.path("success").asBoolean();
+        } catch (IOException e) {
             return false;
         }
     }
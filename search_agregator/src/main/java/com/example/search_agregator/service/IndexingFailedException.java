@@ -0,0 +1,20 @@
+package com.example.search_agregator.service;
+
+import java.io.IOException;
+
+/**
+ * Загрузка таблицы записала в индекс не все карточки. Состояние скачивания после неё не сохраняется,
+ * чтобы следующая загрузка не сочла таблицу неизменённой и повторила отвергнутые карточки.
+ */
+public class IndexingFailedException extends IOException {
+    private final long failed;
+
+    public IndexingFailedException(long failed, long total) {
+        super(failed + " из " + total + " карточек не проиндексированы");
+        this.failed = failed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+}
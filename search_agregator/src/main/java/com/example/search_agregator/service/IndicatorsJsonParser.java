@@ -0,0 +1,209 @@
+package com.example.search_agregator.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Разбор ячейки показателей потоковым JsonParser прямо в итоговый Map<показатель, Map<секция, значение>>,
+ * без промежуточного дерева и без копирования.
+ *
+ * Форматы:
+ * - [{"indicator_name": "...", "sections": [{"number": "...", "amount": "..."}], "total": "..."}]
+ * - {"показатель": {"секция": "значение"}} - старый формат.
+ *
+ * Висячие запятые допускает сам парсер (ALLOW_TRAILING_COMMA). Правила приведения типов те же, что были
+ * при разборе через ObjectMapper в List<Map<String, Object>>: нестроковое имя, номер или значение
+ * у показателя с именем - ошибка разбора всей ячейки.
+ */
+public final class IndicatorsJsonParser {
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .build();
+
+    private IndicatorsJsonParser() {
+    }
+
+    /**
+     * Если ячейка не разбирается как есть, она один раз прогоняется через {@link CellTextScanner#cleanJsonString}
+     * (починка недописанного "amount": "- }") и разбирается повторно.
+     */
+    public static Map<String, Map<String, String>> parse(String data) throws IOException {
+        try {
+            return parseStrict(data);
+        } catch (IOException e) {
+            String cleaned = CellTextScanner.cleanJsonString(data);
+            if (cleaned.equals(data)) {
+                throw e;
+            }
+            return parseStrict(cleaned);
+        }
+    }
+
+    static Map<String, Map<String, String>> parseStrict(String data) throws IOException {
+        try (JsonParser parser = MAPPER.createParser(data)) {
+            JsonToken root = parser.nextToken();
+            if (root == JsonToken.START_ARRAY) {
+                return readIndicatorArray(parser);
+            }
+            if (root == JsonToken.START_OBJECT) {
+                return readLegacyObject(parser);
+            }
+            if (root == JsonToken.VALUE_NULL) {
+                // readValue("null") возвращал null
+                return null;
+            }
+            throw new JsonParseException(parser, "Ожидался массив или объект показателей");
+        }
+    }
+
+    private static Map<String, Map<String, String>> readIndicatorArray(JsonParser parser) throws IOException {
+        Map<String, Map<String, String>> result = new LinkedHashMap<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Показатель должен быть объектом");
+            }
+            readIndicator(parser, result);
+        }
+        return result;
+    }
+
+    private static void readIndicator(JsonParser parser, Map<String, Map<String, String>> result) throws IOException {
+        String name = null;
+        Map<String, String> sections = null;
+        String total = null;
+        // Ошибки в sections/total раньше проявлялись только у показателя с именем - откладываем их до конца объекта
+        String deferredError = null;
+
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "indicator_name" -> name = stringOrNull(parser, value);
+                case "sections" -> {
+                    if (value == JsonToken.VALUE_NULL) {
+                        sections = null;
+                    } else if (value == JsonToken.START_ARRAY) {
+                        sections = new LinkedHashMap<>();
+                        String error = readSections(parser, sections);
+                        deferredError = error != null ? error : deferredError;
+                    } else {
+                        parser.skipChildren();
+                        sections = null;
+                        deferredError = "sections должен быть массивом";
+                    }
+                }
+                case "total" -> {
+                    if (value == JsonToken.VALUE_STRING || value == JsonToken.VALUE_NULL) {
+                        total = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    } else {
+                        parser.skipChildren();
+                        total = null;
+                        deferredError = "total должен быть строкой";
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (name == null) {
+            return;
+        }
+        if (deferredError != null) {
+            throw new JsonParseException(parser, "Показатель '" + name + "': " + deferredError);
+        }
+        Map<String, String> values = sections != null ? sections : new LinkedHashMap<>();
+        if (total != null) {
+            values.put("total", total);
+        }
+        result.put(name, values);
+    }
+
+    /**
+     * Читает массив секций до END_ARRAY. Возвращает текст ошибки типов или null.
+     */
+    private static String readSections(JsonParser parser, Map<String, String> sections) throws IOException {
+        String error = null;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                error = "секция должна быть объектом";
+                continue;
+            }
+            String number = null;
+            String amount = null;
+            while (parser.nextToken() != JsonToken.END_OBJECT) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("number".equals(field) || "amount".equals(field)) {
+                    String text = null;
+                    if (value == JsonToken.VALUE_STRING) {
+                        text = parser.getText();
+                    } else if (value != JsonToken.VALUE_NULL) {
+                        parser.skipChildren();
+                        error = field + " должен быть строкой";
+                    }
+                    if ("number".equals(field)) {
+                        number = text;
+                    } else {
+                        amount = text;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (number != null && amount != null) {
+                sections.put(number, amount);
+            }
+        }
+        return error;
+    }
+
+    private static Map<String, Map<String, String>> readLegacyObject(JsonParser parser) throws IOException {
+        Map<String, Map<String, String>> result = new LinkedHashMap<>();
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String indicator = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                result.put(indicator, null);
+                continue;
+            }
+            if (value != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Показатель '" + indicator + "' должен быть объектом");
+            }
+            Map<String, String> values = new LinkedHashMap<>();
+            while (parser.nextToken() != JsonToken.END_OBJECT) {
+                String section = parser.currentName();
+                values.put(section, scalarAsText(parser, parser.nextToken()));
+            }
+            result.put(indicator, values);
+        }
+        return result;
+    }
+
+    private static String stringOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        throw new JsonParseException(parser, "indicator_name должен быть строкой");
+    }
+
+    // Как StringDeserializer: числа и булевы значения превращаются в свой текст
+    private static String scalarAsText(JsonParser parser, JsonToken value) throws IOException {
+        return switch (value) {
+            case VALUE_STRING, VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_TRUE, VALUE_FALSE -> parser.getText();
+            case VALUE_NULL -> null;
+            default -> throw new JsonParseException(parser, "Значение показателя должно быть строкой");
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import com.example.search_agregator.model.ProjectSuggestion;
+import com.example.search_agregator.repository.LocalProjectIndex;
+import com.example.search_agregator.repository.ProjectCardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Локальная копия индекса для чтения, пока кластер Elasticsearch недоступен.
+ *
+ * После старта и после загрузки таблицы карточки потоком вычитываются из кластера в {@link LocalProjectIndex}
+ * в фоне; несколько таких изменений подряд схлопываются в одну синхронизацию. Создание и удаление через API
+ * применяются к копии точечно, по карточкам и id из события, без чтения кластера - в том же фоновом потоке
+ * и в том же порядке, что и синхронизации. Если кластер перестал отвечать,
+ * {@link ProjectSearchService} отвечает на поиск, подсказки и чтение карточек из этой копии - данными
+ * на момент последней удачной синхронизации. Запись через копию не идёт.
+ *
+ * Копия держит весь набор карточек в куче, поэтому по умолчанию выключена (search.fallback.enabled).
+ */
+@Slf4j
+@Service
+@Profile("!embedded")
+@ConditionalOnProperty(name = "search.fallback.enabled", havingValue = "true")
+public class LocalReadFallback implements AutoCloseable {
+    private final ProjectCardRepository projectCardRepository;
+    private final LocalProjectIndex index = new LocalProjectIndex();
+    private final int batchSize;
+    private final AtomicBoolean syncRequested = new AtomicBoolean();
+    private final Queue<ProjectIndexChangedEvent> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean syncRunning = new AtomicBoolean();
+    private volatile boolean ready;
+
+    public LocalReadFallback(ProjectCardRepository projectCardRepository,
+                             @Value("${search.export.batch-size:500}") int batchSize) {
+        this.projectCardRepository = projectCardRepository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * true, если ошибка означает, что кластер недоступен (а не, например, кривой курсор в запросе).
+     */
+    public static boolean isClusterUnavailable(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof DataAccessResourceFailureException || e instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Копия есть хотя бы после одной удачной синхронизации.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public CursorPage<ProjectCard> searchPage(String query, ProjectFilter filter, int size, String cursor) {
+        return index.searchPage(query, filter, size, cursor);
+    }
+
+    public List<ProjectSuggestion> suggest(String prefix, int size) {
+        return index.suggest(prefix, size);
+    }
+
+    public CursorPage<ProjectCard> findAllPage(int size, String cursor) {
+        return index.findAllPage(size, cursor);
+    }
+
+    public Optional<ProjectCard> findById(String id) {
+        return index.findById(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestSync();
+    }
+
+    @EventListener
+    public void onIndexChanged(ProjectIndexChangedEvent event) {
+        if (event.isFullChange()) {
+            requestSync();
+        } else {
+            pendingChanges.add(event);
+            startDrain();
+        }
+    }
+
+    private void requestSync() {
+        syncRequested.set(true);
+        startDrain();
+    }
+
+    private void startDrain() {
+        if (syncRunning.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("local-read-fallback-sync").start(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            try {
+                boolean progress = true;
+                while (progress) {
+                    progress = false;
+                    if (syncRequested.getAndSet(false)) {
+                        // Полная синхронизация уже увидит всё, что поставлено в очередь до неё
+                        pendingChanges.clear();
+                        sync();
+                        progress = true;
+                    }
+                    ProjectIndexChangedEvent change;
+                    while ((change = pendingChanges.poll()) != null) {
+                        apply(change);
+                        progress = true;
+                    }
+                }
+            } finally {
+                syncRunning.set(false);
+            }
+            // Запрос мог прийти между последней проверкой и сбросом флага
+        } while ((syncRequested.get() || !pendingChanges.isEmpty()) && syncRunning.compareAndSet(false, true));
+    }
+
+    /**
+     * Точечное изменение: записанные карточки и удалённые id - сразу в копию.
+     */
+    void apply(ProjectIndexChangedEvent change) {
+        try {
+            if (!change.saved().isEmpty()) {
+                index.saveAll(change.saved());
+            }
+            if (!change.deleted().isEmpty()) {
+                index.deleteAll(change.deleted());
+            }
+            log.debug("Локальная копия для чтения: {}", change.reason());
+        } catch (RuntimeException e) {
+            log.warn("--- Не удалось применить к локальной копии '{}': {} ---", change.reason(), e.getMessage());
+            requestSync();
+        }
+    }
+
+    /**
+     * Перечитывает все карточки из кластера и подменяет ими копию. При ошибке остаётся прежняя копия.
+     */
+    void sync() {
+        try {
+            long count = index.replaceAll(consumer -> projectCardRepository.forEachCard(batchSize, consumer));
+            ready = true;
+            log.info("--- Локальная копия для чтения обновлена: {} карточек ---", count);
+        } catch (RuntimeException e) {
+            log.warn("--- Не удалось обновить локальную копию для чтения: {} ---", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        index.close();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.BulkResult;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.repository.ProjectCardRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Пакетное создание и удаление карточек для скриптов миграции.
+ *
+ * На весь пакет - один блок id из {@link ProjectIdAllocator}, один bulk-запрос в индекс, одно событие
+ * {@link ProjectIndexChangedEvent} и одна постановка в очередь Google Sheets, а не по разу на карточку.
+ * Запись и событие идут через {@link ApiWriteGate}, чтобы полная перезагрузка индекса их не потеряла.
+ * Отказ отдельной карточки не отменяет остальные: её статус возвращается в {@link BulkResult}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProjectBulkService {
+    private final ProjectCardRepository projectCardRepository;
+    private final ProjectIdAllocator projectIdAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ApiWriteGate apiWriteGate;
+    private final GoogleSheetsService googleSheetsService;
+
+    /**
+     * Карточкам без id выдаются новые, явные id сдвигают счётчик - как в POST /api/v1/projects.
+     */
+    public BulkResult create(List<ProjectCard> cards) {
+        BulkResult.Item[] results = new BulkResult.Item[cards.size()];
+        List<ProjectCard> accepted = new ArrayList<>(cards.size());
+        List<Integer> positions = new ArrayList<>(cards.size());
+        int withoutId = 0;
+        for (int i = 0; i < cards.size(); i++) {
+            ProjectCard card = cards.get(i);
+            if (card == null) {
+                results[i] = BulkResult.Item.failed(null, 400, "Пустая карточка");
+                continue;
+            }
+            if (card.getId() == null || card.getId().trim().isEmpty()) {
+                withoutId++;
+            }
+            accepted.add(card);
+            positions.add(i);
+        }
+
+        Iterator<String> newIds = projectIdAllocator.nextIds(withoutId).iterator();
+        for (ProjectCard card : accepted) {
+            if (card.getId() == null || card.getId().trim().isEmpty()) {
+                card.setId(newIds.next());
+            } else {
+                projectIdAllocator.observe(card.getId());
+            }
+        }
+
+        List<ProjectCard> written = new ArrayList<>(accepted.size());
+        List<BulkResult.Item> saved = apiWriteGate.write(() -> {
+            List<BulkResult.Item> items = projectCardRepository.bulkSave(accepted);
+            for (int j = 0; j < items.size(); j++) {
+                if (items.get(j).isSuccess()) {
+                    written.add(accepted.get(j));
+                }
+            }
+            if (!written.isEmpty()) {
+                eventPublisher.publishEvent(ProjectIndexChangedEvent.saved("bulk create " + written.size(), written));
+            }
+            return items;
+        });
+        for (int j = 0; j < saved.size(); j++) {
+            results[positions.get(j)] = saved.get(j);
+        }
+
+        if (!written.isEmpty()) {
+            if (!googleSheetsService.addProjectsToSheets(written)) {
+                log.error("Warning: Failed to queue {} projects for Google Sheets, but saved to Elasticsearch", written.size());
+            }
+        }
+        log.info("--- Пакетное создание: записано {} из {} карточек ---", written.size(), cards.size());
+        return BulkResult.of(Arrays.asList(results));
+    }
+
+    public BulkResult delete(List<String> ids) {
+        BulkResult.Item[] results = new BulkResult.Item[ids.size()];
+        List<String> accepted = new ArrayList<>(ids.size());
+        List<Integer> positions = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            if (id == null || id.trim().isEmpty()) {
+                results[i] = BulkResult.Item.failed(id, 400, "Пустой id");
+                continue;
+            }
+            accepted.add(id);
+            positions.add(i);
+        }
+
+        List<String> removed = new ArrayList<>(accepted.size());
+        List<BulkResult.Item> deleted = apiWriteGate.write(() -> {
+            List<BulkResult.Item> items = projectCardRepository.bulkDelete(accepted);
+            for (int j = 0; j < items.size(); j++) {
+                if ("deleted".equals(items.get(j).result())) {
+                    removed.add(accepted.get(j));
+                }
+            }
+            if (!removed.isEmpty()) {
+                eventPublisher.publishEvent(ProjectIndexChangedEvent.deleted("bulk delete " + removed.size(), removed));
+            }
+            return items;
+        });
+        for (int j = 0; j < deleted.size(); j++) {
+            results[positions.get(j)] = deleted.get(j);
+        }
+        log.info("--- Пакетное удаление: удалено {} из {} карточек ---", removed.size(), ids.size());
+        return BulkResult.of(Arrays.asList(results));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 от канонического JSON карточки: свойства и ключи map отсортированы,
+ * поэтому порядок показателей в исходной ячейке на хэш не влияет.
+ * Само поле fingerprint помечено @JsonIgnore и в хэш не попадает.
+ */
+public final class ProjectCardFingerprint {
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private ProjectCardFingerprint() {
+    }
+
+    public static String of(ProjectCard card) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(CANONICAL_MAPPER.writeValueAsBytes(card)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Не удалось посчитать fingerprint карточки " + card.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.repository.ProjectCardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Выдаёт числовые id для карточек, создаваемых через API, без обращения к индексу на каждый запрос.
+ *
+ * Счётчик один раз засевается максимумом из индекса и из файла состояния, дальше id берутся инкрементом.
+ * В файл пишется не каждый id, а верхняя граница зарезервированного блока (hi/lo): после перезапуска
+ * выдача продолжается с этой границы, поэтому уже выданные id не повторятся, даже если карточка
+ * ещё не доехала до индекса.
+ */
+@Slf4j
+@Service
+public class ProjectIdAllocator {
+    private final ProjectCardRepository projectCardRepository;
+    private final Path stateFile;
+    private final int blockSize;
+
+    // Последний выданный id
+    private final AtomicLong counter = new AtomicLong();
+    // Граница, записанная в файл: все id до неё включительно считаются выданными
+    private volatile long reservedUpTo;
+    private volatile boolean seeded;
+    // Не synchronized: под блокировкой идут запросы к индексу и запись файла, а synchronized
+    // на время блокирующего ввода-вывода прикрепляет виртуальный поток к потоку-носителю
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ProjectIdAllocator(ProjectCardRepository projectCardRepository,
+                              @Value("${id.allocator.state-file:data/project-id.seed}") Path stateFile,
+                              @Value("${id.allocator.block-size:100}") int blockSize) {
+        this.projectCardRepository = projectCardRepository;
+        this.stateFile = stateFile;
+        this.blockSize = blockSize;
+    }
+
+    public String nextId() {
+        ensureSeeded();
+        long id = counter.incrementAndGet();
+        if (id > reservedUpTo) {
+            reserve(id);
+        }
+        return String.valueOf(id);
+    }
+
+    /**
+     * count подряд идущих id одним сдвигом счётчика; файл состояния пишется не больше одного раза.
+     */
+    public List<String> nextIds(int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        ensureSeeded();
+        long last = counter.addAndGet(count);
+        if (last > reservedUpTo) {
+            reserve(last);
+        }
+        List<String> ids = new ArrayList<>(count);
+        for (long id = last - count + 1; id <= last; id++) {
+            ids.add(String.valueOf(id));
+        }
+        return ids;
+    }
+
+    /**
+     * Сдвигает счётчик, если в индексе появились id больше выданных: после загрузки таблицы
+     * или при создании карточки с явно указанным id.
+     */
+    public void observe(String id) {
+        long value = parseNumericId(id);
+        if (value > 0 && value > counter.get()) {
+            counter.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Перечитывает максимум из индекса. Вызывается после каждой загрузки таблицы.
+     */
+    public void reseed() {
+        long indexMax = projectCardRepository.findMaxNumericId();
+        counter.accumulateAndGet(indexMax, Math::max);
+        if (!seeded) {
+            counter.accumulateAndGet(readState(), Math::max);
+            seeded = true;
+        }
+        log.info("--- Счётчик id засеян значением {} ---", counter.get());
+    }
+
+    private void ensureSeeded() {
+        if (!seeded) {
+            lock.lock();
+            try {
+                if (!seeded) {
+                    reseed();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void reserve(long id) {
+        lock.lock();
+        try {
+            if (id <= reservedUpTo) {
+                return;
+            }
+            long upTo = id + blockSize - 1;
+            writeState(upTo);
+            reservedUpTo = upTo;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long readState() {
+        if (!Files.exists(stateFile)) {
+            return 0;
+        }
+        try {
+            long value = Long.parseLong(Files.readString(stateFile, StandardCharsets.UTF_8).trim());
+            reservedUpTo = value;
+            return value;
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Не удалось прочитать состояние счётчика id из {}: {}", stateFile, e.getMessage());
+            return 0;
+        }
+    }
+
+    private void writeState(long value) {
+        try {
+            Path dir = stateFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            // Через временный файл и атомарное переименование, чтобы при падении не остался обрезанный файл
+            Path tmp = Files.createTempFile(dir, stateFile.getFileName().toString(), ".tmp");
+            Files.writeString(tmp, Long.toString(value), StandardCharsets.UTF_8);
+            Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить состояние счётчика id в " + stateFile, e);
+        }
+    }
+
+    static long parseNumericId(String id) {
+        if (id == null || id.isEmpty() || id.length() > 18) {
+            return 0;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+        }
+        return Long.parseLong(id);
+    }
+}
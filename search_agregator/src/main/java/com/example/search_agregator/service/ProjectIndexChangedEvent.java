@@ -0,0 +1,35 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+
+import java.util.List;
+
+/**
+ * Публикуется после любой записи в индекс карточек: создание и удаление через API, загрузка таблицы.
+ * По нему сбрасываются кэши, построенные на прежнем содержимом индекса.
+ *
+ * Точечные изменения несут сами карточки и id: {@link LocalReadFallback} применяет их к своей копии,
+ * не перечитывая кластер. Событие без них (загрузка таблицы) означает, что поменяться могло что угодно.
+ *
+ * @param reason  причина для лога
+ * @param saved   записанные карточки; null - изменение не точечное
+ * @param deleted id удалённых карточек; null - изменение не точечное
+ */
+public record ProjectIndexChangedEvent(String reason, List<ProjectCard> saved, List<String> deleted) {
+
+    public ProjectIndexChangedEvent(String reason) {
+        this(reason, null, null);
+    }
+
+    public static ProjectIndexChangedEvent saved(String reason, List<ProjectCard> cards) {
+        return new ProjectIndexChangedEvent(reason, List.copyOf(cards), List.of());
+    }
+
+    public static ProjectIndexChangedEvent deleted(String reason, List<String> ids) {
+        return new ProjectIndexChangedEvent(reason, List.of(), List.copyOf(ids));
+    }
+
+    public boolean isFullChange() {
+        return saved == null || deleted == null;
+    }
+}
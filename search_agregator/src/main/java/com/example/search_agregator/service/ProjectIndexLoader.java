@@ -0,0 +1,37 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Запись разобранной таблицы в поисковый индекс. {@link DataInitializer} скачивает и разбирает таблицу,
+ * а как карточки попадут в хранилище, решает реализация для текущего профиля: Elasticsearch или встроенный поиск.
+ */
+public interface ProjectIndexLoader {
+    /**
+     * Источник карточек: каждый вызов заново читает таблицу и отдаёт карточки по мере разбора,
+     * fingerprint у них уже посчитан.
+     */
+    @FunctionalInterface
+    interface CardSource {
+        void forEach(Consumer<ProjectCard> sink) throws IOException;
+    }
+
+    /**
+     * true, если в индексе уже лежат данные в актуальном формате и таблицу можно сравнивать с ними.
+     * false - загрузку нужно делать полностью и без проверки, изменилась ли таблица.
+     */
+    boolean isIndexCurrent() throws IOException;
+
+    /**
+     * Загружает карточки. full - записать все карточки таблицы заново, иначе записать только разницу.
+     * Карточки из таблицы, пропавшие из неё, удаляются; созданные через API остаются в обоих режимах.
+     * Пустой источник считается сбоем выгрузки: индекс остаётся прежним.
+     *
+     * @throws IndexingFailedException если часть карточек не записалась. Полная загрузка в этом случае
+     *                                 индекс не подменяет; после дельты записанная часть остаётся в индексе
+     */
+    void load(CardSource cards, boolean full) throws IOException;
+}
@@ -0,0 +1,153 @@
+package com.example.search_agregator.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.indices.get_mapping.IndexMappingRecord;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import co.elastic.clients.json.JsonData;
+import com.example.search_agregator.model.ProjectCard;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Управляет версионными индексами карточек. Запросы и репозиторий работают через алиас project_cards,
+ * а полная перезагрузка строит новый индекс project_cards_v{timestamp} и атомарно переключает на него алиас.
+ * Пока новый индекс заполняется, поиск продолжает обслуживать старый.
+ */
+@Slf4j
+@Service
+@Profile("!embedded")
+public class ProjectIndexManager {
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+    // Версия маппинга ProjectCard в _meta индекса. Повышается при изменении полей, которое требует переиндексации:
+    // индекс со старой версией перестраивается полной загрузкой, даже в режиме дельты.
+    // 2 - подполя search_as_you_type для подсказок
+    // 3 - status.keyword для фильтров и фасетов
+    // 4 - показатели вложенными записями indicatorValues вместо динамического объекта indicators
+    // 5 - телефоны ответственных в каноническом виде +7XXXXXXXXXX для точного поиска
+    static final int MAPPING_VERSION = 5;
+    private static final String MAPPING_VERSION_KEY = "mapping_version";
+
+    private final ElasticsearchOperations operations;
+    private final ElasticsearchClient client;
+    private final String alias;
+    private final int replicas;
+    private final String refreshInterval;
+
+    public ProjectIndexManager(ElasticsearchOperations operations,
+                               ElasticsearchClient client,
+                               @Value("${index.replicas:1}") int replicas,
+                               @Value("${index.refresh-interval:1s}") String refreshInterval) {
+        this.operations = operations;
+        this.client = client;
+        this.alias = operations.getIndexCoordinatesFor(ProjectCard.class).getIndexName();
+        this.replicas = replicas;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * false, если алиаса ещё нет: чистый кластер или старый индекс project_cards без версий.
+     * В обоих случаях первую загрузку нужно делать полной перестройкой.
+     */
+    public boolean isAliasInPlace() throws IOException {
+        return client.indices().existsAlias(e -> e.name(alias)).value();
+    }
+
+    /**
+     * true, если алиас есть и все индексы за ним созданы с текущей {@link #MAPPING_VERSION}.
+     * Иначе дельту считать не с чем или новые поля у уже загруженных документов будут пустыми.
+     */
+    public boolean isIndexCurrent() throws IOException {
+        if (!isAliasInPlace()) {
+            return false;
+        }
+        for (Map.Entry<String, IndexMappingRecord> entry : client.indices().getMapping(g -> g.index(alias)).result().entrySet()) {
+            Map<String, JsonData> meta = entry.getValue().mappings().meta();
+            JsonData version = meta == null ? null : meta.get(MAPPING_VERSION_KEY);
+            if (version == null || version.to(Integer.class) != MAPPING_VERSION) {
+                log.info("--- Маппинг индекса {} устарел (версия {}, нужна {}) ---", entry.getKey(), version, MAPPING_VERSION);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Создаёт пустой индекс под загрузку: без реплик и без периодического refresh,
+     * чтобы bulk-запись не тратила ресурсы на то, что до переключения алиаса никто не увидит.
+     */
+    public String createVersionedIndex() {
+        String index = alias + "_v" + LocalDateTime.now().format(VERSION_FORMAT);
+        Document mapping = operations.indexOps(ProjectCard.class).createMapping();
+        mapping.put("_meta", Map.of(MAPPING_VERSION_KEY, MAPPING_VERSION));
+        Map<String, Object> loadSettings = Map.of("index", Map.of(
+                "number_of_replicas", 0,
+                "refresh_interval", "-1"));
+        operations.indexOps(IndexCoordinates.of(index)).create(loadSettings, mapping);
+        log.info("--- Создан индекс {} для загрузки ---", index);
+        return index;
+    }
+
+    /**
+     * Возвращает индексу рабочие настройки, переключает на него алиас одним запросом
+     * и удаляет все прежние версии.
+     */
+    public void publish(String index) throws IOException {
+        client.indices().putSettings(p -> p
+                .index(index)
+                .settings(s -> s
+                        .numberOfReplicas(String.valueOf(replicas))
+                        .refreshInterval(t -> t.time(refreshInterval))));
+        client.indices().refresh(r -> r.index(index));
+
+        List<String> previous = previousVersions(index);
+        List<Action> actions = new ArrayList<>();
+        if (isAliasInPlace()) {
+            for (String aliased : client.indices().getAlias(g -> g.name(alias)).result().keySet()) {
+                actions.add(Action.of(a -> a.remove(r -> r.index(aliased).alias(alias))));
+            }
+        } else if (client.indices().exists(e -> e.index(alias)).value()) {
+            // Индекс из прежних версий приложения называется так же, как алиас: удаляем его в той же операции
+            actions.add(Action.of(a -> a.removeIndex(r -> r.index(alias))));
+        }
+        actions.add(Action.of(a -> a.add(ad -> ad.index(index).alias(alias))));
+        client.indices().updateAliases(u -> u.actions(actions));
+        log.info("--- Алиас {} переключён на {} ---", alias, index);
+
+        if (!previous.isEmpty()) {
+            client.indices().delete(d -> d.index(previous));
+            log.info("--- Удалены прежние версии индекса: {} ---", previous);
+        }
+    }
+
+    /**
+     * Удаляет недозагруженный индекс, если перезагрузка упала до переключения алиаса.
+     */
+    public void discard(String index) {
+        try {
+            client.indices().delete(d -> d.index(index));
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось удалить индекс {}: {}", index, e.getMessage());
+        }
+    }
+
+    private List<String> previousVersions(String current) throws IOException {
+        Set<String> versions = client.indices()
+                .get(g -> g.index(alias + "_v*").allowNoIndices(true))
+                .result()
+                .keySet();
+        return versions.stream().filter(name -> !name.equals(current)).toList();
+    }
+}
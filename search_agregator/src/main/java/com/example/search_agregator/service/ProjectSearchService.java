@@ -0,0 +1,240 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import com.example.search_agregator.model.ProjectSuggestion;
+import com.example.search_agregator.model.ProjectSummary;
+import com.example.search_agregator.model.SuggestionResult;
+import com.example.search_agregator.repository.ProjectCardRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Полнотекстовый поиск и подсказки при наборе с кэшем ответов в памяти.
+ *
+ * Ключ - нормализованный запрос (регистр и лишние пробелы анализатор всё равно отбрасывает), размер страницы,
+ * курсор и поколение индекса. При изменении индекса поколение растёт и кэш очищается: ответ запроса,
+ * начатого до изменения, ляжет под старое поколение и никому не будет отдан.
+ *
+ * Если кластер недоступен и включён {@link LocalReadFallback}, чтение обслуживает его локальная копия.
+ * Такие ответы не кэшируются: после восстановления кластера сразу отдаются актуальные данные.
+ *
+ * Одинаковые промахи, пришедшие одновременно (дашборд открыли десятки клиентов сразу), объединяются
+ * {@link SingleFlight}: в репозиторий идёт первый, остальные ждут его ответ - счётчик search.coalesced{operation}.
+ *
+ * Каждый поход в репозиторий (промахи кэша) - таймер search.backend{operation, outcome=success|error},
+ * ответы из локальной копии - счётчик search.fallback{operation}, неполные подсказки по таймауту
+ * (не кэшируются) - счётчик search.suggest.timed_out.
+ */
+@Slf4j
+@Service
+public class ProjectSearchService {
+    private record Key(long generation, String query, ProjectFilter filter, int size, String cursor) {
+    }
+
+    private final ProjectCardRepository projectCardRepository;
+    private final Cache<Key, CursorPage<ProjectCard>> cache;
+    // Сводки выдачи (view=summary) отдельно от полных страниц: тот же ключ, другой ответ
+    private final Cache<Key, CursorPage<ProjectSummary>> summaryCache;
+    // Подсказки дёргаются на каждое нажатие клавиши, и первые буквы у разных пользователей совпадают чаще всего
+    private final Cache<Key, List<ProjectSuggestion>> suggestCache;
+    private final SingleFlight<Key, CursorPage<ProjectCard>> searchFlights;
+    private final SingleFlight<Key, CursorPage<ProjectSummary>> summaryFlights;
+    private final SingleFlight<Key, List<ProjectSuggestion>> suggestFlights;
+    private final AtomicLong generation = new AtomicLong();
+    private final Optional<LocalReadFallback> fallback;
+    private final MeterRegistry meterRegistry;
+
+    public ProjectSearchService(ProjectCardRepository projectCardRepository,
+                                Optional<LocalReadFallback> fallback,
+                                MeterRegistry meterRegistry,
+                                @Value("${search.cache.max-size:1000}") long maxSize,
+                                @Value("${search.cache.ttl:5m}") Duration ttl) {
+        this.projectCardRepository = projectCardRepository;
+        this.fallback = fallback;
+        this.meterRegistry = meterRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.summaryCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.suggestCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Попадания и промахи: cache.gets{cache=search|summary|suggest, result=hit|miss} в /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "search");
+        CaffeineCacheMetrics.monitor(meterRegistry, summaryCache, "summary");
+        CaffeineCacheMetrics.monitor(meterRegistry, suggestCache, "suggest");
+        this.searchFlights = new SingleFlight<>(meterRegistry.counter("search.coalesced", "operation", "search"));
+        this.summaryFlights = new SingleFlight<>(meterRegistry.counter("search.coalesced", "operation", "summary"));
+        this.suggestFlights = new SingleFlight<>(meterRegistry.counter("search.coalesced", "operation", "suggest"));
+    }
+
+    /**
+     * query может быть пустым, если заданы фильтры: тогда выдача - все карточки, прошедшие фильтры.
+     */
+    public CursorPage<ProjectCard> search(String query, ProjectFilter filter, int size, String cursor) {
+        Key key = new Key(generation.get(), query == null ? "" : normalize(query), filter, size, cursor);
+        CursorPage<ProjectCard> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Поиск идёт вне блокировок кэша. Ответ кладётся в кэш до того, как вызов покинет SingleFlight,
+        // поэтому следующий одинаковый запрос застанет либо вызов в полёте, либо готовый ответ
+        try {
+            return searchFlights.execute(key, () -> {
+                CursorPage<ProjectCard> page = timed("search",
+                        () -> projectCardRepository.searchPage(emptyToNull(key.query()), filter, size, cursor));
+                cache.put(key, page);
+                return page;
+            });
+        } catch (RuntimeException e) {
+            return fallbackOrThrow("search", e).searchPage(emptyToNull(key.query()), filter, size, cursor);
+        }
+    }
+
+    /**
+     * Та же выдача, что {@link #search}, но только поля {@link ProjectSummary}.
+     */
+    public CursorPage<ProjectSummary> searchSummaries(String query, ProjectFilter filter, int size, String cursor) {
+        Key key = new Key(generation.get(), query == null ? "" : normalize(query), filter, size, cursor);
+        CursorPage<ProjectSummary> cached = summaryCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return summaryFlights.execute(key, () -> {
+                CursorPage<ProjectSummary> page = timed("summary",
+                        () -> projectCardRepository.searchSummaryPage(emptyToNull(key.query()), filter, size, cursor));
+                summaryCache.put(key, page);
+                return page;
+            });
+        } catch (RuntimeException e) {
+            return fallbackOrThrow("summary", e).searchPage(emptyToNull(key.query()), filter, size, cursor).map(ProjectSummary::of);
+        }
+    }
+
+    public List<ProjectSuggestion> suggest(String prefix, int size) {
+        Key key = new Key(generation.get(), normalize(prefix), ProjectFilter.NONE, size, null);
+        List<ProjectSuggestion> cached = suggestCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return suggestFlights.execute(key, () -> {
+                SuggestionResult result = timed("suggest", () -> projectCardRepository.suggest(key.query(), size));
+                if (result.timedOut()) {
+                    // Неполный список отдаём, но не кэшируем: иначе медленная секунда закрепится на весь TTL
+                    meterRegistry.counter("search.suggest.timed_out").increment();
+                } else {
+                    suggestCache.put(key, result.suggestions());
+                }
+                return result.suggestions();
+            });
+        } catch (RuntimeException e) {
+            return fallbackOrThrow("suggest", e).suggest(key.query(), size);
+        }
+    }
+
+    /**
+     * Все карточки по возрастанию id. Не кэшируется, но при недоступном кластере читается из локальной копии.
+     */
+    public CursorPage<ProjectCard> findAllPage(int size, String cursor) {
+        try {
+            return timed("list", () -> projectCardRepository.findAllPage(size, cursor));
+        } catch (RuntimeException e) {
+            return fallbackOrThrow("list", e).findAllPage(size, cursor);
+        }
+    }
+
+    public CursorPage<ProjectSummary> findAllSummaries(int size, String cursor) {
+        try {
+            return timed("list_summary", () -> projectCardRepository.findAllSummaryPage(size, cursor));
+        } catch (RuntimeException e) {
+            return fallbackOrThrow("list_summary", e).findAllPage(size, cursor).map(ProjectSummary::of);
+        }
+    }
+
+    public Optional<ProjectCard> findById(String id) {
+        try {
+            return timed("get", () -> projectCardRepository.findById(id));
+        } catch (RuntimeException e) {
+            return fallbackOrThrow("get", e).findById(id);
+        }
+    }
+
+    @EventListener
+    public void onIndexChanged(ProjectIndexChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+        summaryCache.invalidateAll();
+        suggestCache.invalidateAll();
+        log.debug("Кэш поиска сброшен: {}", event.reason());
+    }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(meterRegistry.timer("search.backend", "operation", operation, "outcome", outcome));
+        }
+    }
+
+    private LocalReadFallback fallbackOrThrow(String operation, RuntimeException error) {
+        if (!LocalReadFallback.isClusterUnavailable(error)) {
+            throw error;
+        }
+        LocalReadFallback local = fallback.filter(LocalReadFallback::isReady).orElseThrow(() -> error);
+        meterRegistry.counter("search.fallback", "operation", operation).increment();
+        log.warn("Elasticsearch недоступен, ответ из локальной копии: {}", error.getMessage());
+        return local;
+    }
+
+    private static String emptyToNull(String query) {
+        return query.isEmpty() ? null : query;
+    }
+
+    static String normalize(String query) {
+        StringBuilder normalized = new StringBuilder(query.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.search_agregator.service;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Разбор текстовой даты из таблицы без исключений и без DateTimeFormatter на каждую ячейку.
+ *
+ * Результат совпадает с прежним перебором шаблонов "M/d/yyyy", "MM/dd/yyyy", "d/M/yyyy", "dd/MM/yyyy", "yyyy-MM-dd"
+ * (ResolverStyle.SMART): сначала месяц/день, потом день/месяц, потом ISO. "MM/dd" и "dd/MM" ничего не добавляют -
+ * всё, что они принимают, раньше принимают "M/d" и "d/M". Год - ровно 4 цифры (или '+' и больше 4 цифр),
+ * день 1..31 прижимается к длине месяца: 30/02/2024 -> 2024-02-29.
+ */
+public final class SheetDateParser {
+    // Столько цифр подряд читает DateTimeFormatter для полей без фиксированной ширины
+    private static final int MAX_DIGITS = 19;
+    private static final int YEAR_WIDTH = 4;
+    private static final long MAX_YEAR = Year.MAX_VALUE;
+
+    private SheetDateParser() {
+    }
+
+    public static LocalDate parse(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        int firstSlash = text.indexOf('/');
+        return firstSlash >= 0 ? parseSlashed(text, firstSlash) : parseIso(text);
+    }
+
+    // M/d/yyyy, затем d/M/yyyy
+    private static LocalDate parseSlashed(String text, int firstSlash) {
+        int secondSlash = text.indexOf('/', firstSlash + 1);
+        if (secondSlash < 0) {
+            return null;
+        }
+        long first = digits(text, 0, firstSlash);
+        long second = digits(text, firstSlash + 1, secondSlash);
+        long year = year(text, secondSlash + 1, text.length());
+        if (first < 0 || second < 0 || year < 0) {
+            return null;
+        }
+        if (isMonth(first) && isDay(second)) {
+            return date(year, (int) first, (int) second);
+        }
+        if (isMonth(second) && isDay(first)) {
+            return date(year, (int) second, (int) first);
+        }
+        return null;
+    }
+
+    // yyyy-MM-dd
+    private static LocalDate parseIso(String text) {
+        int n = text.length();
+        if (n < 6 || text.charAt(n - 3) != '-' || text.charAt(n - 6) != '-') {
+            return null;
+        }
+        long year = year(text, 0, n - 6);
+        long month = digits(text, n - 5, n - 3);
+        long day = digits(text, n - 2, n);
+        if (year < 0 || !isMonth(month) || !isDay(day)) {
+            return null;
+        }
+        return date(year, (int) month, (int) day);
+    }
+
+    /**
+     * Год без знака - ровно 4 цифры, со знаком '+' - больше 4. Допустимы годы 1..999 999 999, иначе -1.
+     */
+    private static long year(String text, int from, int to) {
+        boolean signed = from < to && text.charAt(from) == '+';
+        int digitsFrom = signed ? from + 1 : from;
+        int width = to - digitsFrom;
+        if (signed ? width <= YEAR_WIDTH : width != YEAR_WIDTH) {
+            return -1;
+        }
+        long year = digits(text, digitsFrom, to);
+        return year >= 1 && year <= MAX_YEAR ? year : -1;
+    }
+
+    /**
+     * Значение непустой строки из 1..19 ASCII-цифр, иначе -1.
+     */
+    private static long digits(String text, int from, int to) {
+        if (from >= to || to - from > MAX_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean isMonth(long value) {
+        return value >= 1 && value <= 12;
+    }
+
+    private static boolean isDay(long value) {
+        return value >= 1 && value <= 31;
+    }
+
+    private static LocalDate date(long year, int month, int day) {
+        int y = (int) year;
+        return LocalDate.of(y, month, Math.min(day, Month.of(month).length(Year.isLeap(y))));
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.search_agregator.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Очередь строк для Google Sheets на диске: одна запись - один json-файл в каталоге outbox.
+ * Запись - одна строка (объект) или пачка строк из {@link #appendAll} (массив): пачка пишется и удаляется целиком.
+ *
+ * Имя файла начинается с времени постановки, поэтому сортировка по имени даёт порядок очереди.
+ * Файл появляется атомарным переименованием уже записанного временного файла,
+ * так что после падения процесса в очереди не бывает недописанных строк.
+ */
+@Slf4j
+@Component
+public class SheetsOutbox {
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final String DEAD_LETTER_DIR = "dead-letter";
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Map<String, Object>>> ROWS_TYPE = new TypeReference<>() {
+    };
+
+    public record Entry(Path file, List<Map<String, Object>> rows) {
+    }
+
+    private final Path directory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SheetsOutbox(@Value("${sheets.outbox.dir:${app.data-dir:data}/sheets-outbox}") Path directory) {
+        this.directory = directory;
+    }
+
+    public void append(Map<String, Object> row) throws IOException {
+        write(objectMapper.writeValueAsBytes(row));
+    }
+
+    /**
+     * Ставит в очередь все строки одной записью: один файл и один fsync вместо файла на строку.
+     */
+    public void appendAll(List<Map<String, Object>> rows) throws IOException {
+        if (rows.size() == 1) {
+            append(rows.get(0));
+        } else if (!rows.isEmpty()) {
+            write(objectMapper.writeValueAsBytes(rows));
+        }
+    }
+
+    private void write(byte[] content) throws IOException {
+        Files.createDirectories(directory);
+        String name = String.format("%013d-%09d", System.currentTimeMillis(), sequence.incrementAndGet());
+        Path tmp = directory.resolve(name + ".tmp");
+        Files.write(tmp, content,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        Files.move(tmp, directory.resolve(name + ENTRY_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Записи из начала очереди, от старых к новым, всего не больше limit строк. Пачку больше limit
+     * не разделить, поэтому первая запись возвращается всегда. Файлы не удаляются до {@link #acknowledge}.
+     */
+    public List<Entry> peek(int limit) throws IOException {
+        List<Path> files = pendingFiles();
+        List<Entry> entries = new ArrayList<>(Math.min(limit, files.size()));
+        int rows = 0;
+        for (Path file : files) {
+            if (rows >= limit) {
+                break;
+            }
+            try {
+                Entry entry = new Entry(file, read(file));
+                if (!entries.isEmpty() && rows + entry.rows().size() > limit) {
+                    break;
+                }
+                entries.add(entry);
+                rows += entry.rows().size();
+            } catch (IOException e) {
+                // Битый файл не должен навсегда блокировать очередь
+                Path broken = file.resolveSibling(file.getFileName() + ".broken");
+                Files.move(file, broken, StandardCopyOption.REPLACE_EXISTING);
+                log.error("Строка outbox {} не читается и отложена в {}: {}", file, broken, e.getMessage());
+            }
+        }
+        return entries;
+    }
+
+    public void acknowledge(List<Entry> entries) throws IOException {
+        for (Entry entry : entries) {
+            Files.deleteIfExists(entry.file());
+        }
+    }
+
+    /**
+     * Убирает записи из очереди в подкаталог dead-letter: webhook отверг их окончательно, и повторная
+     * отправка тех же строк не поможет. Файлы сохраняются для разбора и ручной повторной постановки.
+     */
+    public void deadLetter(List<Entry> entries) throws IOException {
+        Path deadLetter = deadLetterDirectory();
+        Files.createDirectories(deadLetter);
+        for (Entry entry : entries) {
+            Files.move(entry.file(), deadLetter.resolve(entry.file().getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public Path deadLetterDirectory() {
+        return directory.resolve(DEAD_LETTER_DIR);
+    }
+
+    private List<Map<String, Object>> read(Path file) throws IOException {
+        JsonNode json = objectMapper.readTree(file.toFile());
+        if (json == null || !(json.isArray() || json.isObject())) {
+            throw new IOException("Ожидался объект или массив строк");
+        }
+        return json.isArray() ? objectMapper.convertValue(json, ROWS_TYPE) : List.of(objectMapper.convertValue(json, ROW_TYPE));
+    }
+
+    /**
+     * Число записей в очереди; запись из {@link #appendAll} считается одной.
+     */
+    public int size() throws IOException {
+        return pendingFiles().size();
+    }
+
+    private List<Path> pendingFiles() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+}
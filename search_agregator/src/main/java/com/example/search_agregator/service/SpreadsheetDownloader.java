@@ -0,0 +1,160 @@
+package com.example.search_agregator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Скачивает таблицу, только если она изменилась с прошлой успешной загрузки.
+ *
+ * Сначала условный запрос: If-None-Match / If-Modified-Since по сохранённым ETag и Last-Modified,
+ * на 304 файл не качается вовсе. Экспорт Google Sheets эти заголовки обычно не отдаёт, поэтому
+ * дополнительно сравнивается SHA-256 скачанного файла. Состояние пишется в файл только через
+ * {@link #commit}, то есть после того, как загрузка в индекс прошла: упавшая загрузка повторится.
+ */
+@Slf4j
+@Service
+public class SpreadsheetDownloader {
+    public record Download(Path file, String url, String etag, String lastModified, String sha256) {
+    }
+
+    record State(String url, String etag, String lastModified, String sha256) {
+    }
+
+    private final Path stateFile;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public SpreadsheetDownloader(@Value("${spreadsheet.state-file:${app.data-dir:data}/spreadsheet-state.json}") Path stateFile,
+                                 @Value("${spreadsheet.download-timeout:5m}") Duration timeout) {
+        this.stateFile = stateFile;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Пустой Optional - таблица не изменилась. Иначе временный xlsx-файл, который вызывающий удаляет сам.
+     * conditional = false скачивает и отдаёт файл независимо от сохранённого состояния.
+     */
+    public Optional<Download> download(String url, boolean conditional) throws IOException {
+        State previous = conditional ? readState(url) : null;
+        URI uri = URI.create(url);
+        String scheme = uri.getScheme();
+        if (scheme != null && (scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))) {
+            return downloadHttp(uri, url, previous);
+        }
+        // file: и прочие схемы, которые понимал прежний URL.openStream(): без заголовков, только по хэшу
+        try (InputStream in = uri.toURL().openStream()) {
+            return store(in, url, null, null, previous);
+        }
+    }
+
+    public void commit(Download download) {
+        State state = new State(download.url(), download.etag(), download.lastModified(), download.sha256());
+        try {
+            Path dir = stateFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, stateFile.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(tmp.toFile(), state);
+            Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Не страшно: в худшем случае следующая проверка заново разберёт неизменённую таблицу
+            log.warn("Не удалось сохранить состояние таблицы в {}: {}", stateFile, e.getMessage());
+        }
+    }
+
+    private Optional<Download> downloadHttp(URI uri, String url, State previous) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET().timeout(timeout);
+        if (previous != null && previous.etag() != null) {
+            request.header("If-None-Match", previous.etag());
+        }
+        if (previous != null && previous.lastModified() != null) {
+            request.header("If-Modified-Since", previous.lastModified());
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Прервано скачивание таблицы", e);
+        }
+
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 304) {
+                log.info("--- Таблица не изменилась (HTTP 304) ---");
+                return Optional.empty();
+            }
+            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                throw new IOException("Таблица не скачана, HTTP " + response.statusCode());
+            }
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            return store(body, url, etag, lastModified, previous);
+        }
+    }
+
+    private Optional<Download> store(InputStream in, String url, String etag, String lastModified, State previous)
+            throws IOException {
+        MessageDigest digest = sha256();
+        Path file = Files.createTempFile("spreadsheet-", ".xlsx");
+        try {
+            try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+                Files.copy(digestIn, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            if (previous != null && sha256.equals(previous.sha256())) {
+                Files.deleteIfExists(file);
+                log.info("--- Таблица не изменилась (тот же SHA-256) ---");
+                return Optional.empty();
+            }
+            return Optional.of(new Download(file, url, etag, lastModified, sha256));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    private State readState(String url) {
+        if (!Files.exists(stateFile)) {
+            return null;
+        }
+        try {
+            State state = objectMapper.readValue(stateFile.toFile(), State.class);
+            // Состояние от другой ссылки ничего не говорит о текущей таблице
+            return url.equals(state.url()) ? state : null;
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать состояние таблицы из {}: {}", stateFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.ExcelNumberFormat;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Потоковый разбор первого листа xlsx через событийную модель XSSF (SAX по sheet.xml).
+ * В памяти держатся только общая таблица строк, стили и ячейки текущей строки.
+ *
+ * Значения ячеек приводятся к строкам и датам так же, как это делает
+ * {@link ExcelUrlParserServiceImpl#getStringCellValue} и {@link ExcelUrlParserServiceImpl#getDateCellValue}
+ * для DOM-модели. Исключение - дочерние ячейки общих формул (f t="shared"): DOM восстанавливает
+ * для них текст формулы, здесь он пустой.
+ */
+@Slf4j
+final class XlsxStreamingSheetReader extends DefaultHandler {
+    private enum Kind { STRING, NUMERIC, BOOLEAN, ERROR, FORMULA, BLANK }
+
+    private record SheetCell(Kind kind, String text, double number, boolean dateFormatted) {
+    }
+
+    private enum Capture { NONE, VALUE, FORMULA, INLINE }
+
+    private final ExcelUrlParserServiceImpl parser;
+    private final Consumer<ProjectCard> consumer;
+
+    private SharedStrings sharedStrings;
+    private StylesTable styles;
+    private boolean date1904;
+
+    // Состояние текущей строки и ячейки
+    private final SheetCell[] cells = new SheetCell[ExcelUrlParserServiceImpl.COLUMN_COUNT];
+    private int firstRow = -1;
+    private int rowIndex = -1;
+    private int column = -1;
+    private String cellType;
+    private int styleIndex;
+    private boolean hasFormula;
+    private boolean inInlineString;
+    private boolean inPhoneticRun;
+    private Capture capture = Capture.NONE;
+    private final StringBuilder value = new StringBuilder();
+    private final StringBuilder formula = new StringBuilder();
+    private final StringBuilder inlineText = new StringBuilder();
+
+    XlsxStreamingSheetReader(ExcelUrlParserServiceImpl parser, Consumer<ProjectCard> consumer) {
+        this.parser = parser;
+        this.consumer = consumer;
+    }
+
+    void read(OPCPackage pkg) throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        XSSFReader reader = new XSSFReader(pkg);
+        // Фонетические подсказки (rPh) DOM-модель в текст ячейки не включает
+        sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+        styles = reader.getStylesTable();
+        date1904 = readDate1904(reader);
+
+        Iterator<InputStream> sheets = reader.getSheetsData();
+        if (!sheets.hasNext()) {
+            return;
+        }
+        try (InputStream sheet = sheets.next()) {
+            XMLReader xmlReader = XMLHelper.newXMLReader();
+            xmlReader.setContentHandler(this);
+            xmlReader.parse(new InputSource(sheet));
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        switch (localName) {
+            case "row" -> {
+                String ref = attributes.getValue("r");
+                rowIndex = ref != null ? Integer.parseInt(ref) - 1 : rowIndex + 1;
+                if (firstRow < 0) {
+                    firstRow = rowIndex;
+                }
+                Arrays.fill(cells, null);
+                column = -1;
+            }
+            case "c" -> {
+                String ref = attributes.getValue("r");
+                column = ref != null ? columnIndex(ref) : column + 1;
+                cellType = attributes.getValue("t");
+                String style = attributes.getValue("s");
+                styleIndex = style != null ? Integer.parseInt(style) : 0;
+                hasFormula = false;
+                value.setLength(0);
+                formula.setLength(0);
+                inlineText.setLength(0);
+            }
+            case "v" -> capture = Capture.VALUE;
+            case "f" -> {
+                hasFormula = true;
+                capture = Capture.FORMULA;
+            }
+            case "is" -> inInlineString = true;
+            case "rPh" -> inPhoneticRun = true;
+            case "t" -> {
+                if (inInlineString && !inPhoneticRun) {
+                    capture = Capture.INLINE;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        switch (localName) {
+            case "v", "f", "t" -> capture = Capture.NONE;
+            case "is" -> inInlineString = false;
+            case "rPh" -> inPhoneticRun = false;
+            case "c" -> {
+                if (column >= 0 && column < cells.length) {
+                    cells[column] = toSheetCell();
+                }
+            }
+            case "row" -> emitRow();
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        switch (capture) {
+            case VALUE -> value.append(ch, start, length);
+            case FORMULA -> formula.append(ch, start, length);
+            case INLINE -> inlineText.append(ch, start, length);
+            default -> {
+            }
+        }
+    }
+
+    private SheetCell toSheetCell() {
+        if (hasFormula) {
+            return new SheetCell(Kind.FORMULA, formula.toString(), 0, false);
+        }
+        String raw = value.toString();
+        String type = cellType == null ? "n" : cellType;
+        return switch (type) {
+            case "s" -> new SheetCell(Kind.STRING,
+                    raw.isEmpty() ? "" : sharedStrings.getItemAt(Integer.parseInt(raw.trim())).getString(), 0, false);
+            case "inlineStr" -> new SheetCell(Kind.STRING, inlineText.toString(), 0, false);
+            case "str" -> new SheetCell(Kind.STRING, raw, 0, false);
+            case "b" -> new SheetCell(Kind.BOOLEAN, "1".equals(raw) ? "TRUE" : "FALSE", 0, false);
+            case "e" -> new SheetCell(Kind.ERROR, raw, 0, false);
+            default -> {
+                if (raw.isEmpty()) {
+                    yield new SheetCell(Kind.BLANK, "", 0, false);
+                }
+                double number = Double.parseDouble(raw);
+                yield new SheetCell(Kind.NUMERIC, null, number, isDateFormatted(number));
+            }
+        };
+    }
+
+    // То же, что DateUtil.isCellDateFormatted: стиль ячейки (по умолчанию нулевой) задаёт формат даты
+    private boolean isDateFormatted(double number) {
+        if (!DateUtil.isValidExcelDate(number) || styles == null || styles.getNumCellStyles() == 0) {
+            return false;
+        }
+        XSSFCellStyle style = styles.getStyleAt(styleIndex);
+        ExcelNumberFormat format = style == null ? null : ExcelNumberFormat.from(style);
+        return format != null && DateUtil.isADateFormat(format);
+    }
+
+    private void emitRow() {
+        // Как и в DOM-парсере: первые две строки листа - заголовок
+        if (rowIndex < firstRow + 2) {
+            return;
+        }
+        String firstCellValue = text(cells[0]);
+        if (cells[0] == null || firstCellValue.trim().isEmpty()) {
+            return;
+        }
+        firstCellValue = firstCellValue.toLowerCase().trim();
+        if (ExcelUrlParserServiceImpl.isHeaderRow(firstCellValue)) {
+            log.debug("Skipping header row: " + firstCellValue);
+            return;
+        }
+
+        SheetCell[] row = cells.clone();
+        consumer.accept(parser.toCard(new ExcelUrlParserServiceImpl.RowValues() {
+            @Override
+            public String text(int column) {
+                return XlsxStreamingSheetReader.this.text(row[column]);
+            }
+
+            @Override
+            public LocalDate date(int column) {
+                return XlsxStreamingSheetReader.this.date(row[column]);
+            }
+        }));
+    }
+
+    private String text(SheetCell cell) {
+        if (cell == null) {
+            return "";
+        }
+        return switch (cell.kind()) {
+            case NUMERIC -> cell.dateFormatted()
+                    ? DateUtil.getJavaDate(cell.number(), date1904).toString()
+                    : ExcelUrlParserServiceImpl.formatNumber(cell.number());
+            case BLANK -> "";
+            default -> cell.text();
+        };
+    }
+
+    private LocalDate date(SheetCell cell) {
+        if (cell == null) {
+            return null;
+        }
+        try {
+            if (cell.kind() == Kind.NUMERIC && cell.dateFormatted()) {
+                return ExcelUrlParserServiceImpl.toLocalDate(DateUtil.getJavaDate(cell.number(), date1904));
+            } else if (cell.kind() == Kind.NUMERIC) {
+                if (cell.number() > 0) {
+                    return ExcelUrlParserServiceImpl.toLocalDate(DateUtil.getJavaDate(cell.number()));
+                }
+            } else if (cell.kind() == Kind.STRING) {
+                return ExcelUrlParserServiceImpl.parseDateString(cell.text().trim());
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось преобразовать ячейку '{}' в дату: {}", text(cell), e.getMessage());
+        }
+        return null;
+    }
+
+    // "AB12" -> 27
+    private static int columnIndex(String cellReference) {
+        int index = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            index = index * 26 + (c - 'A' + 1);
+        }
+        return index - 1;
+    }
+
+    private static boolean readDate1904(XSSFReader reader)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        boolean[] date1904 = {false};
+        try (InputStream workbook = reader.getWorkbookData()) {
+            XMLReader xmlReader = XMLHelper.newXMLReader();
+            xmlReader.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if ("workbookPr".equals(localName)) {
+                        String value = attributes.getValue("date1904");
+                        date1904[0] = value != null && ("1".equals(value) || "true".equals(value.toLowerCase(Locale.ROOT)));
+                    }
+                }
+            });
+            xmlReader.parse(new InputSource(workbook));
+        }
+        return date1904[0];
+    }
+}
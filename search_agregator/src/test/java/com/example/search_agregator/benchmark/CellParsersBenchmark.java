@@ -0,0 +1,108 @@
+package com.example.search_agregator.benchmark;
+
+import com.example.search_agregator.service.ExcelUrlParserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор отдельных ячеек через {@link ExcelUrlParserServiceImpl} - то, что вызывается для каждой строки листа.
+ * Для getDateCellValue берутся настоящие ячейки POI: дата с форматом, серийный номер Excel и даты текстом.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellParsersBenchmark {
+    private static final String PERSONS = "Иванов Иван Иванович | Главный инженер проекта | +7 (912) 345-67-89 | ivanov@stroy.ru; "
+            + "Петрова Анна Сергеевна | Прораб | 8 912 000 00 00 | petrova@stroy.ru";
+    private static final String LINKS = "Готовые ПВОР | https://docs.google.com/document/d/1a2b3c/edit\n"
+            + "Бренд-лист | https://drive.google.com/file/d/4d5e6f/view";
+    private static final String INDICATORS = "[{\"indicator_name\": \"Площадь застройки, м2\", \"sections\": ["
+            + "{\"number\": \"Секция №1\", \"amount\": \"320,89\"}, {\"number\": \"Секция №2\", \"amount\": \"570,05\"},],"
+            + " \"total\": \"890,94\"},]";
+
+    private final ExcelUrlParserServiceImpl parser = new ExcelUrlParserServiceImpl(new SimpleMeterRegistry());
+    private XSSFWorkbook workbook;
+    private Cell dateCell;
+    private Cell serialCell;
+    private Cell[] textDateCells;
+
+    @Setup
+    public void setUp() {
+        workbook = new XSSFWorkbook();
+        Row row = workbook.createSheet().createRow(0);
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd.mm.yyyy"));
+
+        dateCell = row.createCell(0);
+        dateCell.setCellValue(LocalDate.of(2024, 3, 15));
+        dateCell.setCellStyle(dateStyle);
+        serialCell = row.createCell(1);
+        serialCell.setCellValue(45366);
+
+        String[] texts = {"3/15/2024", "15/03/2024", "2024-03-15"};
+        textDateCells = new Cell[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            textDateCells[i] = row.createCell(2 + i);
+            textDateCells[i].setCellValue(texts[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        workbook.close();
+    }
+
+    @Benchmark
+    public Object parseResponsiblePersons() {
+        return parser.parseResponsiblePersons(PERSONS);
+    }
+
+    @Benchmark
+    public Object parseDocumentLinks() {
+        return parser.parseDocumentLinks(LINKS);
+    }
+
+    @Benchmark
+    public Object parseIndicators() {
+        return parser.parseIndicators(INDICATORS);
+    }
+
+    @Benchmark
+    public Object getDateCellValueFormatted() {
+        return parser.getDateCellValue(dateCell);
+    }
+
+    @Benchmark
+    public Object getDateCellValueSerial() {
+        return parser.getDateCellValue(serialCell);
+    }
+
+    @Benchmark
+    public void getDateCellValueText(Blackhole blackhole) {
+        for (Cell cell : textDateCells) {
+            blackhole.consume(parser.getDateCellValue(cell));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.search_agregator.benchmark;
+
+import com.example.search_agregator.service.CellTextScanner;
+import com.example.search_agregator.service.IndicatorsJsonParser;
+import com.example.search_agregator.service.SheetDateParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Прежний разбор ячеек на регулярках против однопроходного {@link CellTextScanner}
+ * и ObjectMapper на каждую ячейку против потокового {@link IndicatorsJsonParser}.
+ * Даты - перебор DateTimeFormatter против {@link SheetDateParser}; "15/03/2024" проходит три неудачных шаблона.
+ * Содержимое ячеек - как в реальной таблице: несколько ответственных, ссылки через перевод строки,
+ * показатели с висячими запятыми.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellTextParsersBenchmark {
+    @Param({"typical", "large"})
+    public String cells;
+
+    private String persons;
+    private String links;
+    private String indicators;
+    private final String[] dates = {"3/15/2024", "15/03/2024", "2024-03-15", "не дата"};
+
+    @Setup
+    public void setUp() {
+        int repeat = "large".equals(cells) ? 20 : 1;
+        String team = String.join("; ", List.of(
+                "Иванов Иван Иванович | Главный инженер проекта | +7 (912) 345-67-89 | ivanov@stroy.ru",
+                "Петрова Анна Сергеевна | Прораб | 8 912 000 00 00 | petrova@stroy.ru",
+                "Сидоров Пётр | Технадзор | +79120000001 | sidorov@stroy.ru"));
+        persons = String.join("; ", Collections.nCopies(repeat, team));
+        links = ("Готовые ПВОР | https://docs.google.com/document/d/1a2b3c/edit\n"
+                + "Бренд-лист | https://drive.google.com/file/d/4d5e6f/view\n"
+                + "Разрешение на строительство | https://example.com/rns.pdf\n").repeat(repeat);
+        indicators = "[" + ("{\"indicator_name\": \"Площадь застройки, м2\", \"sections\": ["
+                + "{\"number\": \"Секция №1\", \"amount\": \"320,89\"}, {\"number\": \"Секция №2\", \"amount\": \"570,05\"},],"
+                + " \"total\": \"890,94\"},").repeat(repeat) + "]";
+    }
+
+    @Benchmark
+    public Object personsRegex() {
+        return LegacyCellParsers.parseResponsiblePersons(persons);
+    }
+
+    @Benchmark
+    public Object personsScanner() {
+        return CellTextScanner.parseResponsiblePersons(persons);
+    }
+
+    @Benchmark
+    public Object linksRegex() {
+        return LegacyCellParsers.parseDocumentLinks(links);
+    }
+
+    @Benchmark
+    public Object linksScanner() {
+        return CellTextScanner.parseDocumentLinks(links);
+    }
+
+    @Benchmark
+    public Object cleanJsonRegex() {
+        return LegacyCellParsers.cleanJsonString(indicators);
+    }
+
+    @Benchmark
+    public Object cleanJsonScanner() {
+        return CellTextScanner.cleanJsonString(indicators);
+    }
+
+    @Benchmark
+    public Object indicatorsObjectMapper() throws IOException {
+        return LegacyCellParsers.parseIndicators(indicators);
+    }
+
+    @Benchmark
+    public Object indicatorsStreaming() throws IOException {
+        return IndicatorsJsonParser.parse(indicators);
+    }
+
+    @Benchmark
+    public void datesFormatter(Blackhole blackhole) {
+        for (String date : dates) {
+            blackhole.consume(LegacyCellParsers.parseDateString(date));
+        }
+    }
+
+    @Benchmark
+    public void datesScanner(Blackhole blackhole) {
+        for (String date : dates) {
+            blackhole.consume(SheetDateParser.parse(date));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CellTextParsersBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.search_agregator.benchmark;
+
+import com.example.search_agregator.model.DocumentLink;
+import com.example.search_agregator.model.ResponsiblePerson;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Прежние реализации разбора ячеек на регулярках. Эталон для проверки совпадения результатов
+ * и базовая линия в бенчмарках.
+ */
+public final class LegacyCellParsers {
+    private LegacyCellParsers() {
+    }
+
+    public static List<ResponsiblePerson> parseResponsiblePersons(String data) {
+        if (data == null || data.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        String[] personsStr = data.split("\\s*;\\s*|\\s*\\n\\s*"); // Разделитель ; или перенос строки
+        List<ResponsiblePerson> persons = new ArrayList<>();
+        for (String pStr : personsStr) {
+            String[] parts = pStr.split("\\s*\\|\\s*");
+            if (parts.length >= 4) {
+                persons.add(new ResponsiblePerson(parts[0], parts[1], parts[2], parts[3], ""));
+            }
+        }
+        return persons;
+    }
+
+    public static List<DocumentLink> parseDocumentLinks(String data) {
+        if (data == null || data.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        String[] linksStr = data.split("\\s*;\\s*|\\s*\\n\\s*");
+        List<DocumentLink> links = new ArrayList<>();
+        for (String lStr : linksStr) {
+            String[] parts = lStr.split("\\s*\\|\\s*");
+            if (parts.length >= 2) {
+                links.add(new DocumentLink(parts[0], parts[1]));
+            }
+        }
+        return links;
+    }
+
+    public static String cleanJsonString(String json) {
+        if (json == null) return null;
+
+        // Remove trailing commas before closing brackets/braces
+        String cleaned = json.replaceAll(",\\s*([\\}\\]])", "$1");
+
+        // Fix specific issue: "amount": "- } -> "amount": "-" }
+        cleaned = cleaned.replaceAll("\"amount\":\\s*\"-\\s+\\}", "\"amount\": \"-\"}");
+
+        return cleaned;
+    }
+
+    /**
+     * Прежний parseIndicators: новый ObjectMapper на каждую ячейку, чистка регулярками и промежуточные Map.
+     * Ошибка разбора пробрасывается, а не превращается в пустой Map.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Map<String, String>> parseIndicators(String data) throws IOException {
+        String cleanedData = cleanJsonString(data);
+        ObjectMapper mapper = new ObjectMapper();
+        if (cleanedData.trim().startsWith("[")) {
+            List<Map<String, Object>> indicatorsArray = mapper.readValue(cleanedData,
+                    new TypeReference<List<Map<String, Object>>>() {});
+            Map<String, Map<String, String>> result = new HashMap<>();
+            for (Map<String, Object> indicator : indicatorsArray) {
+                String indicatorName = (String) indicator.get("indicator_name");
+                if (indicatorName != null) {
+                    Map<String, String> sections = new HashMap<>();
+                    List<Map<String, Object>> sectionsList = (List<Map<String, Object>>) indicator.get("sections");
+                    if (sectionsList != null) {
+                        for (Map<String, Object> section : sectionsList) {
+                            String sectionNumber = (String) section.get("number");
+                            String amount = (String) section.get("amount");
+                            if (sectionNumber != null && amount != null) {
+                                sections.put(sectionNumber, amount);
+                            }
+                        }
+                    }
+                    String total = (String) indicator.get("total");
+                    if (total != null) {
+                        sections.put("total", total);
+                    }
+                    result.put(indicatorName, sections);
+                }
+            }
+            return result;
+        }
+        return mapper.readValue(cleanedData, new TypeReference<Map<String, Map<String, String>>>() {});
+    }
+
+    /**
+     * Прежний parseDateString: пять DateTimeFormatter на каждую ячейку и исключение на каждый неподошедший шаблон.
+     */
+    public static LocalDate parseDateString(String dateString) {
+        if (dateString.isEmpty()) {
+            return null;
+        }
+        String[] patterns = {"M/d/yyyy", "MM/dd/yyyy", "d/M/yyyy", "dd/MM/yyyy", "yyyy-MM-dd"};
+        for (String pattern : patterns) {
+            try {
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+                return LocalDate.parse(dateString, formatter);
+            } catch (Exception ignored) {
+                // Продолжаем с следующим форматом
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.search_agregator.benchmark;
+
+import com.example.search_agregator.SearchAgregatorApplication;
+import com.example.search_agregator.repository.ProjectCardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный тест API поиска без Elasticsearch и без сети: поднимает приложение в профиле embedded
+ * на случайном порту, загружает в него синтетическую книгу ({@link SyntheticDataGenerator}) и гоняет
+ * смешанную нагрузку по HTTP через SearchController: поиск (полные карточки и сводки, текст и фильтры),
+ * чтение по id и создание карточек. Клиенты работают в замкнутом цикле: следующий запрос - сразу после ответа.
+ *
+ * В конце печатает по каждой операции число запросов, пропускную способность, p50/p95/p99/max и ошибки.
+ * С --url нагрузка идёт на уже запущенный экземпляр, приложение не поднимается.
+ *
+ * Клиенты - виртуальные потоки, так что тысячи одновременных клиентов не упираются в потоки драйвера.
+ * --virtual-threads false поднимает приложение на прежнем пуле платформенных потоков Tomcat (200),
+ * --backend-latency добавляет к каждому чтению из хранилища задержку, как у сетевого вызова в кластер:
+ * без неё встроенный поиск отвечает из памяти и ожидание ввода-вывода, ради которого нужны виртуальные потоки,
+ * не моделируется.
+ *
+ * Запуск: ./mvnw -Ploadtest verify -Dloadtest.args="--rows 100000 --clients 64 --duration 60s"
+ * Параметры: --rows, --clients, --warmup, --duration, --mix search=60,summary=15,get=20,create=5, --url,
+ *            --virtual-threads true|false, --backend-latency 20ms
+ */
+public final class LoadTestDriver {
+    enum Operation { SEARCH, SUMMARY, GET, CREATE }
+
+    private static final String API = "/api/v1/projects";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final int rows;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+
+    LoadTestDriver(String baseUrl, int rows, Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.rows = rows;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = 10_000;
+        int clients = 32;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(30);
+        String url = null;
+        boolean virtualThreads = true;
+        Duration backendLatency = Duration.ZERO;
+        Map<Operation, Integer> mix = parseMix("search=60,summary=15,get=20,create=5");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--rows" -> rows = Integer.parseInt(args[i + 1]);
+                case "--clients" -> clients = Integer.parseInt(args[i + 1]);
+                case "--warmup" -> warmup = parseDuration(args[i + 1]);
+                case "--duration" -> duration = parseDuration(args[i + 1]);
+                case "--url" -> url = args[i + 1];
+                case "--mix" -> mix = parseMix(args[i + 1]);
+                case "--virtual-threads" -> virtualThreads = Boolean.parseBoolean(args[i + 1]);
+                case "--backend-latency" -> backendLatency = parseDuration(args[i + 1]);
+                default -> throw new IllegalArgumentException("Неизвестный параметр " + args[i]);
+            }
+        }
+
+        ConfigurableApplicationContext context = null;
+        if (url == null) {
+            context = startEmbedded(rows, virtualThreads, backendLatency);
+            url = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            LoadTestDriver driver = new LoadTestDriver(url, rows, mix);
+            System.out.printf("Прогрев %d с, %d клиентов...%n", warmup.toSeconds(), clients);
+            driver.run(clients, warmup, new SimpleMeterRegistry());
+
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            System.out.printf("Замер %d с...%n", duration.toSeconds());
+            long start = System.nanoTime();
+            driver.run(clients, duration, registry);
+            report(registry, rows, clients, Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Приложение в профиле embedded: данные из синтетической книги загружаются при старте,
+     * к возврату из run индекс уже заполнен. Состояние (счётчик id, outbox таблицы) - во временном каталоге.
+     */
+    static ConfigurableApplicationContext startEmbedded(int rows, boolean virtualThreads, Duration backendLatency)
+            throws IOException {
+        Path workbook = SyntheticDataGenerator.workbook(Path.of("target", "synthetic"), rows, SyntheticDataGenerator.DEFAULT_SEED);
+        Path dataDir = Files.createTempDirectory("loadtest-");
+        long start = System.nanoTime();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SearchAgregatorApplication.class)
+                .profiles("embedded")
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new BackendLatency(backendLatency)))
+                // Аргументами командной строки: они перекрывают application.yml, в отличие от properties()
+                .run("--server.port=0",
+                        "--spreadsheet.link=" + workbook.toUri(),
+                        "--spreadsheet.refresh-interval=24h",
+                        "--app.data-dir=" + dataDir,
+                        "--sheets.webhook-url=",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.threads.virtual.enabled=" + virtualThreads);
+        System.out.printf("Приложение поднято (виртуальные потоки: %s, задержка хранилища: %d мс), %d строк загружено за %d мс%n",
+                virtualThreads, backendLatency.toMillis(), rows, (System.nanoTime() - start) / 1_000_000);
+        return context;
+    }
+
+    void run(int clients, Duration duration, SimpleMeterRegistry registry) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<?>> futures = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                futures.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        call(pick(), registry);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void call(Operation operation, SimpleMeterRegistry registry) {
+        HttpRequest request = request(operation);
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            ok = response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        timer(registry, operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!ok) {
+            Counter.builder("loadtest.errors").tag("operation", operation.name()).register(registry).increment();
+        }
+    }
+
+    private HttpRequest request(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case SEARCH, SUMMARY -> {
+                String query = switch (random.nextInt(4)) {
+                    // Фильтр без текста: все карточки со статусом
+                    case 0 -> "status=" + encode(pick(random, SyntheticWorkbook.STATUSES));
+                    case 1 -> "q=" + encode(pick(random, SyntheticWorkbook.OBJECTS) + " " + pick(random, SyntheticWorkbook.STREETS));
+                    case 2 -> "q=" + encode(pick(random, SyntheticWorkbook.CITIES)) + "&dateFrom=" + (2015 + random.nextInt(10)) + "-01-01";
+                    default -> "q=" + encode(pick(random, SyntheticWorkbook.SURNAMES) + " " + pick(random, SyntheticWorkbook.NAMES));
+                };
+                String view = operation == Operation.SUMMARY ? "&view=summary" : "";
+                yield get(API + "/search?" + query + view);
+            }
+            case GET -> get(API + "/" + (1 + random.nextInt(rows)));
+            case CREATE -> HttpRequest.newBuilder(URI.create(baseUrl + API))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(newCard(random)))
+                    .build();
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static String newCard(ThreadLocalRandom random) {
+        String street = pick(random, SyntheticWorkbook.STREETS);
+        return "{\"title\":\"" + pick(random, SyntheticWorkbook.OBJECTS) + " «" + street + "-" + random.nextInt(100) + "»\","
+                + "\"address\":\"г. " + pick(random, SyntheticWorkbook.CITIES) + ", ул. " + street + ", д. " + (1 + random.nextInt(200)) + "\","
+                + "\"startDate\":\"2025-0" + (1 + random.nextInt(9)) + "-01\","
+                + "\"status\":\"" + pick(random, SyntheticWorkbook.STATUSES) + "\","
+                + "\"responsiblePersons\":[{\"fio\":\"" + pick(random, SyntheticWorkbook.SURNAMES) + " " + pick(random, SyntheticWorkbook.NAMES)
+                + "\",\"position\":\"" + pick(random, SyntheticWorkbook.POSITIONS) + "\"}]}";
+    }
+
+    private Operation pick() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Пустая смесь операций");
+    }
+
+    /**
+     * Оборачивает репозиторий карточек: чтения (search*, find*, suggest) ждут latency перед ответом,
+     * как поток запроса ждёт ответа кластера. Загрузка таблицы и запись не задерживаются.
+     */
+    private record BackendLatency(Duration latency) implements BeanPostProcessor {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (latency.isZero() || !(bean instanceof ProjectCardRepository)) {
+                return bean;
+            }
+            ProxyFactory proxy = new ProxyFactory(bean);
+            // Прокси класса, а не интерфейса: EmbeddedIndexLoader получает репозиторий по классу
+            proxy.setProxyTargetClass(true);
+            proxy.addAdvice((MethodInterceptor) invocation -> {
+                String method = invocation.getMethod().getName();
+                if (method.startsWith("search") || method.startsWith("find") || method.equals("suggest")) {
+                    Thread.sleep(latency);
+                }
+                return invocation.proceed();
+            });
+            return proxy.getProxy();
+        }
+    }
+
+    private static Timer timer(SimpleMeterRegistry registry, Operation operation) {
+        // Окно перцентилей длиннее любого прогона: считаются по всем запросам замера, а не по последним минутам
+        return Timer.builder("loadtest.latency")
+                .tag("operation", operation.name())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .distributionStatisticExpiry(Duration.ofHours(1))
+                .distributionStatisticBufferLength(1)
+                .register(registry);
+    }
+
+    private static void report(SimpleMeterRegistry registry, int rows, int clients, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        System.out.printf("%nСтрок: %d, клиентов: %d, замер: %.1f с%n", rows, clients, seconds);
+        System.out.printf("%-8s %10s %10s %9s %9s %9s %9s %8s%n", "оп.", "запросов", "req/s", "p50 мс", "p95 мс", "p99 мс", "max мс", "ошибок");
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            Timer timer = registry.find("loadtest.latency").tag("operation", operation.name()).timer();
+            if (timer == null) {
+                continue;
+            }
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Counter errors = registry.find("loadtest.errors").tag("operation", operation.name()).counter();
+            total += snapshot.count();
+            System.out.printf("%-8s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %8d%n",
+                    operation.name().toLowerCase(), snapshot.count(), snapshot.count() / seconds,
+                    percentile(snapshot, 0.5), percentile(snapshot, 0.95), percentile(snapshot, 0.99),
+                    snapshot.max(TimeUnit.MILLISECONDS), errors == null ? 0 : (long) errors.count());
+        }
+        System.out.printf("Всего: %d запросов, %.1f req/s%n", total, total / seconds);
+    }
+
+    private static double percentile(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.split("=");
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.valueOf(kv[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Пустая смесь операций: " + spec);
+        }
+        return mix;
+    }
+
+    // 500ms, 30s, 2m - как длительности в application.yml
+    private static Duration parseDuration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String pick(ThreadLocalRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
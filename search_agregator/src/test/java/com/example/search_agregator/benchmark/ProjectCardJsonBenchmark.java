@@ -0,0 +1,85 @@
+package com.example.search_agregator.benchmark;
+
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectSummary;
+import com.example.search_agregator.service.ExcelUrlParserServiceImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов API: одна карточка (/api/v1/projects/{id}), страница поиска CursorPage<ProjectCard>
+ * и та же страница в виде сводок (view=summary).
+ * ObjectMapper собирается так же, как в Spring Boot (даты - ISO-строки), карточки берутся из синтетической книги.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectCardJsonBenchmark {
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectWriter writer;
+    private ProjectCard card;
+    private CursorPage<ProjectCard> page;
+    private CursorPage<ProjectSummary> summaryPage;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        writer = mapper.writer();
+
+        Path workbook = SyntheticWorkbook.write(Files.createTempFile("bench-json-", ".xlsx"), pageSize, 7);
+        List<ProjectCard> cards;
+        try (InputStream in = Files.newInputStream(workbook)) {
+            cards = new ExcelUrlParserServiceImpl(new SimpleMeterRegistry()).parse(in);
+        } finally {
+            Files.deleteIfExists(workbook);
+        }
+        card = cards.get(0);
+        page = new CursorPage<>(cards, 12_345, "eq", "WyIxMjMiXQ");
+        summaryPage = page.map(ProjectSummary::of);
+    }
+
+    @Benchmark
+    public byte[] singleCard() throws JsonProcessingException {
+        return writer.writeValueAsBytes(card);
+    }
+
+    @Benchmark
+    public byte[] searchPage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] searchSummaryPage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(summaryPage);
+    }
+}
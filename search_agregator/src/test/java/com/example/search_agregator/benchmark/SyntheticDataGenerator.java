@@ -0,0 +1,94 @@
+package com.example.search_agregator.benchmark;
+
+import com.example.search_agregator.service.ExcelUrlParserServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Наборы данных производственного масштаба без доступа к Google-таблице: для каждого размера пишет
+ * projects-N.xlsx в формате рабочей таблицы ({@link SyntheticWorkbook}) и projects-N.ndjson - те же строки,
+ * разобранные потоковым парсером приложения, по карточке в строке, как отдаёт /api/v1/projects/export.
+ *
+ * Запуск: ./mvnw -Ploadtest verify -Dloadtest.main=com.example.search_agregator.benchmark.SyntheticDataGenerator
+ *         -Dloadtest.args="--rows 10000,100000,1000000 --out target/synthetic"
+ */
+public final class SyntheticDataGenerator {
+    static final long DEFAULT_SEED = 42;
+
+    private SyntheticDataGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Integer> sizes = List.of(10_000, 100_000, 1_000_000);
+        Path out = Path.of("target", "synthetic");
+        long seed = DEFAULT_SEED;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--rows" -> {
+                    List<Integer> parsed = new ArrayList<>();
+                    for (String size : args[i + 1].split(",")) {
+                        parsed.add(Integer.parseInt(size.trim()));
+                    }
+                    sizes = parsed;
+                }
+                case "--out" -> out = Path.of(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Неизвестный параметр " + args[i]);
+            }
+        }
+        for (int rows : sizes) {
+            long start = System.nanoTime();
+            Path workbook = workbook(out, rows, seed);
+            long cards = writeNdjson(workbook, out.resolve(workbook.getFileName().toString().replace(".xlsx", ".ndjson")));
+            System.out.printf("%s: %d карточек за %d мс%n", workbook, cards, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Книга на rows строк в каталоге dir. Уже сгенерированная с теми же rows и seed используется повторно:
+     * книга на миллион строк пишется десятки секунд.
+     */
+    public static Path workbook(Path dir, int rows, long seed) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve("projects-" + rows + (seed == DEFAULT_SEED ? "" : "-" + seed) + ".xlsx");
+        if (Files.isRegularFile(file) && Files.size(file) > 0) {
+            return file;
+        }
+        Path tmp = Files.createTempFile(dir, "projects-", ".xlsx.tmp");
+        SyntheticWorkbook.write(tmp, rows, seed);
+        return Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long writeNdjson(Path workbook, Path target) throws IOException {
+        ObjectWriter writer = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .<ObjectMapper>build()
+                .writer();
+        long[] count = new long[1];
+        try (BufferedWriter out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            new ExcelUrlParserServiceImpl(new SimpleMeterRegistry()).parseStreaming(workbook, card -> {
+                try {
+                    out.write(writer.writeValueAsString(card));
+                    out.write('\n');
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return count[0];
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.search_agregator.benchmark;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Книга в формате рабочей таблицы: строка заголовка таблицы, строка с названиями колонок, затем rows строк
+ * с колонками A..I как в {@code ExcelUrlParserServiceImpl}. Пишется через SXSSF, так что и сотни тысяч строк
+ * не держатся в памяти. Содержимое детерминировано seed.
+ */
+public final class SyntheticWorkbook {
+    private static final String[] HEADER = {
+            "id", "title", "address", "startDate", "endDate", "status", "responsiblePersons", "documentLinks", "indicators"};
+    // Словари открыты пакету: нагрузочный тест строит из них поисковые запросы, которые находят карточки
+    static final String[] STATUSES = {"Проектирование", "Строительство", "Сдан", "Приостановлен"};
+    static final String[] STREETS = {"Ленина", "Мира", "Гагарина", "Садовая", "Заречная", "Молодёжная"};
+    static final String[] CITIES = {"Екатеринбург", "Пермь", "Тюмень", "Челябинск"};
+    static final String[] SURNAMES = {"Иванов", "Петров", "Сидоров", "Кузнецов", "Смирнов", "Попов"};
+    static final String[] NAMES = {"Иван", "Пётр", "Алексей", "Сергей", "Дмитрий", "Андрей"};
+    static final String[] POSITIONS = {"ГИП", "Прораб", "Технадзор", "Инженер ПТО"};
+    static final String[] OBJECTS = {"Жилой комплекс", "Школа", "Детский сад", "Бизнес-центр", "Паркинг"};
+
+    private SyntheticWorkbook() {
+    }
+
+    public static Path write(Path file, int rows, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(200)) {
+            Sheet sheet = workbook.createSheet("Проекты");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd.mm.yyyy"));
+
+            sheet.createRow(0).createCell(0).setCellValue("Реестр проектов");
+            Row header = sheet.createRow(1);
+            for (int c = 0; c < HEADER.length; c++) {
+                header.createCell(c).setCellValue(HEADER[c]);
+            }
+            for (int i = 0; i < rows; i++) {
+                writeRow(sheet.createRow(i + 2), i + 1, random, dateStyle);
+            }
+
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+            workbook.dispose();
+        }
+        return file;
+    }
+
+    private static void writeRow(Row row, int id, Random random, CellStyle dateStyle) {
+        LocalDate start = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(3650));
+        LocalDate end = start.plusDays(180 + random.nextInt(1500));
+
+        row.createCell(0).setCellValue(id);
+        row.createCell(1).setCellValue(pick(random, OBJECTS) + " «" + pick(random, STREETS) + "-" + random.nextInt(100) + "»");
+        row.createCell(2).setCellValue("г. " + pick(random, CITIES) + ", ул. " + pick(random, STREETS) + ", д. " + (1 + random.nextInt(200)));
+        // Даты в таблице встречаются и настоящими датами, и текстом
+        if (random.nextBoolean()) {
+            row.createCell(3).setCellValue(start);
+            row.getCell(3).setCellStyle(dateStyle);
+        } else {
+            row.createCell(3).setCellValue(start.getDayOfMonth() + "/" + start.getMonthValue() + "/" + start.getYear());
+        }
+        row.createCell(4).setCellValue(end.toString());
+        row.createCell(5).setCellValue(pick(random, STATUSES));
+        row.createCell(6).setCellValue(persons(random));
+        row.createCell(7).setCellValue("Готовые ПВОР | https://docs.example.com/pvor/" + id
+                + "\nБренд-лист | https://docs.example.com/brand/" + id);
+        row.createCell(8).setCellValue(indicators(random));
+    }
+
+    private static String persons(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int p = 1 + random.nextInt(3); p > 0; p--) {
+            if (!sb.isEmpty()) {
+                sb.append("; ");
+            }
+            String surname = pick(random, SURNAMES);
+            sb.append(surname).append(' ').append(pick(random, NAMES)).append(" | ").append(pick(random, POSITIONS))
+                    .append(" | +7 (9").append(10 + random.nextInt(90)).append(") ").append(100 + random.nextInt(900))
+                    .append('-').append(10 + random.nextInt(90)).append('-').append(10 + random.nextInt(90))
+                    .append(" | ").append(translit(surname)).append(random.nextInt(1000)).append("@example.com");
+        }
+        return sb.toString();
+    }
+
+    private static String indicators(Random random) {
+        int area = 1000 + random.nextInt(50_000);
+        int half = area / 2;
+        // Висячие запятые - как в выгрузке из таблицы
+        return "[{\"indicator_name\": \"Площадь застройки, м2\", \"sections\": ["
+                + "{\"number\": \"Секция №1\", \"amount\": \"" + half + ",50\"}, "
+                + "{\"number\": \"Секция №2\", \"amount\": \"" + (area - half) + ",50\"},], "
+                + "\"total\": \"" + (area + 1) + "\"}, "
+                + "{\"indicator_name\": \"Этажность\", \"sections\": [], \"total\": \"" + (3 + random.nextInt(25)) + "\"},]";
+    }
+
+    private static String translit(String surname) {
+        return switch (surname) {
+            case "Иванов" -> "ivanov";
+            case "Петров" -> "petrov";
+            case "Сидоров" -> "sidorov";
+            case "Кузнецов" -> "kuznetsov";
+            case "Смирнов" -> "smirnov";
+            default -> "popov";
+        };
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.search_agregator.benchmark;
+
+import com.example.search_agregator.service.ExcelUrlParserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Разбор всей книги: DOM-разбор parseFromUrl против потокового parseStreamingFromUrl на 1k/10k/100k строк.
+ * Книга генерируется один раз на форк и читается по file:// URL, так что сеть в замер не попадает.
+ * Каждая операция - полный разбор, поэтому режим SingleShotTime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class WorkbookParseBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private final ExcelUrlParserServiceImpl parser = new ExcelUrlParserServiceImpl(new SimpleMeterRegistry());
+    private Path workbook;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        workbook = SyntheticWorkbook.write(Files.createTempFile("bench-" + rows + "-", ".xlsx"), rows, 42);
+        url = workbook.toUri().toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        Files.deleteIfExists(workbook);
+    }
+
+    @Benchmark
+    public int parseFromUrl() throws IOException {
+        return parser.parseFromUrl(url).size();
+    }
+
+    @Benchmark
+    public long parseStreamingFromUrl() throws IOException {
+        LongAdder cards = new LongAdder();
+        parser.parseStreamingFromUrl(url, card -> cards.increment());
+        return cards.sum();
+    }
+}
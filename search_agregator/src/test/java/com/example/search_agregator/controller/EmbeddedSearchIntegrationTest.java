@@ -0,0 +1,163 @@
+package com.example.search_agregator.controller;
+
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.repository.EmbeddedProjectCardRepository;
+import com.example.search_agregator.repository.SearchCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Приложение целиком в профиле embedded: без Elasticsearch, таблица - файл из тестовых ресурсов.
+ */
+@SpringBootTest(properties = "app.data-dir=target/embedded-test-data")
+@ActiveProfiles("embedded")
+@AutoConfigureMockMvc
+class EmbeddedSearchIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void spreadsheet(DynamicPropertyRegistry registry) {
+        registry.add("spreadsheet.link", () -> Path.of("src/test/resources/fixtures/buildDatas.xlsx").toUri().toString());
+    }
+
+    @Test
+    void searchWorksWithoutElasticsearch() throws Exception {
+        mockMvc.perform(get("/api/v1/projects").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalHits", greaterThan(0)));
+        mockMvc.perform(get("/api/v1/projects/search").param("q", "Баранова"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", greaterThan(0)));
+        mockMvc.perform(get("/api/v1/projects/search").param("q", "+79991234567"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].responsiblePersons[0].phone").value("+79991234567"));
+        mockMvc.perform(get("/api/v1/projects/search").param("status", "Проектирование"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.facets.statuses.length()", greaterThan(1)));
+        mockMvc.perform(get("/api/v1/projects/search").param("q", "Баранова").param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").exists())
+                .andExpect(jsonPath("$.items[0].startDate").exists())
+                .andExpect(jsonPath("$.items[0].responsiblePersons").doesNotExist())
+                .andExpect(jsonPath("$.items[0].indicators").doesNotExist());
+        mockMvc.perform(get("/api/v1/projects/search").param("q", "Баранова").param("view", "compact"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/projects/suggest").param("q", "иван"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].person").value("Иванов Иван Иванович"));
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/projects/search").param("q", "Баранова").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/projects").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+        // Курсор чужой выдачи: [id] полного списка вместо [score, id] поиска
+        String listCursor = SearchCursor.encode(List.of("1"));
+        mockMvc.perform(get("/api/v1/projects/search").param("q", "Баранова").param("cursor", listCursor))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportWritesOneCardPerLine() throws Exception {
+        MvcResult total = mockMvc.perform(get("/api/v1/projects").param("size", "1")).andReturn();
+        long totalHits = objectMapper.readTree(total.getResponse().getContentAsString()).get("totalHits").asLong();
+
+        MvcResult started = mockMvc.perform(get("/api/v1/projects/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult export = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+
+        String body = export.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize((int) totalHits);
+        Set<String> ids = new HashSet<>();
+        for (String line : lines) {
+            ProjectCard card = objectMapper.readValue(line, ProjectCard.class);
+            assertThat(ids.add(card.getId())).as("id %s встречается дважды", card.getId()).isTrue();
+        }
+    }
+
+    @Test
+    void exportOfEmptyIndexIsEmptyBody() throws Exception {
+        try (EmbeddedProjectCardRepository empty = new EmbeddedProjectCardRepository()) {
+            SearchController controller = new SearchController(empty, null, null, null, null, null, null, objectMapper);
+            ReflectionTestUtils.setField(controller, "exportBatchSize", 500);
+            MockMvc standalone = MockMvcBuilders.standaloneSetup(controller).build();
+
+            MvcResult started = standalone.perform(get("/api/v1/projects/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            standalone.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-ndjson"))
+                    .andExpect(content().string(""));
+        }
+    }
+
+    @Test
+    void bulkCreateAndDeleteReportStatusPerItem() throws Exception {
+        mockMvc.perform(post("/api/v1/projects/_bulk").contentType(MediaType.APPLICATION_JSON).content("""
+                        [{"title": "Пакетный объект Альтаир", "status": "Импорт"},
+                         null,
+                         {"id": "bulk-7", "title": "Пакетный объект Вега", "status": "Импорт"}]"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errors").value(true))
+                .andExpect(jsonPath("$.items[0].status").value(201))
+                .andExpect(jsonPath("$.items[0].id").exists())
+                .andExpect(jsonPath("$.items[1].status").value(400))
+                .andExpect(jsonPath("$.items[2].id").value("bulk-7"))
+                .andExpect(jsonPath("$.items[2].result").value("created"));
+        mockMvc.perform(get("/api/v1/projects/search").param("status", "Импорт"))
+                .andExpect(jsonPath("$.totalHits").value(2));
+
+        mockMvc.perform(post("/api/v1/projects/_bulk_delete").contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"bulk-7\", \"bulk-404\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errors").value(false))
+                .andExpect(jsonPath("$.items[0].result").value("deleted"))
+                .andExpect(jsonPath("$.items[1].status").value(404))
+                .andExpect(jsonPath("$.items[1].result").value("not_found"));
+        mockMvc.perform(get("/api/v1/projects/search").param("status", "Импорт"))
+                .andExpect(jsonPath("$.totalHits").value(1));
+        mockMvc.perform(post("/api/v1/projects/_bulk_delete").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.search_agregator.repository;
+
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ResponsiblePerson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Методы Spring Data, которые у встроенного поиска реализованы поверх {@link LocalProjectIndex}.
+ */
+class EmbeddedProjectCardRepositoryTest {
+    private final EmbeddedProjectCardRepository repository = new EmbeddedProjectCardRepository();
+
+    @AfterEach
+    void close() throws IOException {
+        repository.close();
+    }
+
+    @Test
+    void searchSimilarRanksBySharedTermsAndSkipsSample() {
+        ProjectCard school = card("1", "Строительство школы на 1100 мест", "г. Киров, ул. Ленина, 1", "В процессе", null);
+        repository.saveAll(List.of(
+                school,
+                card("2", "Реконструкция школы", "г. Киров, ул. Мира, 5", "Завершён", null),
+                card("3", "Школа на 1100 мест", "г. Ижевск", "Проектирование", null),
+                card("4", "Поликлиника", "г. Казань", "В процессе", null)));
+
+        Page<ProjectCard> similar = repository.searchSimilar(school, new String[]{"title"}, PageRequest.of(0, 10));
+
+        assertThat(similar.getContent()).extracting(ProjectCard::getId).containsExactly("3", "2");
+        assertThat(repository.searchSimilar(school, new String[]{"title"}, PageRequest.of(1, 1)).getContent())
+                .extracting(ProjectCard::getId).containsExactly("2");
+        // Без списка полей - по всем текстовым полям, в том числе по адресу и статусу
+        assertThat(repository.searchSimilar(school, new String[0], Pageable.unpaged()).getContent())
+                .extracting(ProjectCard::getId).contains("4");
+    }
+
+    @Test
+    void searchSimilarMatchesResponsiblePersons() {
+        ProjectCard sample = card("1", "Детский сад", null, null, null);
+        sample.setResponsiblePersons(List.of(new ResponsiblePerson("Иванов Иван", "Прораб", null, null, null)));
+        ProjectCard sameForeman = card("2", "Бассейн", null, null, null);
+        sameForeman.setResponsiblePersons(List.of(new ResponsiblePerson("Иванов Пётр", "Инженер", null, null, null)));
+        repository.saveAll(List.of(sample, sameForeman, card("3", "Стадион", null, null, null)));
+
+        assertThat(repository.searchSimilar(sample, new String[]{"responsiblePersons.fio"}, Pageable.unpaged()).getContent())
+                .extracting(ProjectCard::getId).containsExactly("2");
+        assertThatThrownBy(() -> repository.searchSimilar(sample, new String[]{"startDate"}, Pageable.unpaged()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void findAllSortsByAnyScalarFieldWithMissingValuesLast() {
+        repository.saveAll(List.of(
+                card("1", "Б", null, "В процессе", LocalDate.of(2024, 5, 1)),
+                card("2", "А", null, "Завершён", null),
+                card("3", "В", null, "В процессе", LocalDate.of(2023, 1, 1))));
+
+        assertThat(repository.findAll(Sort.by("startDate"))).extracting(ProjectCard::getId).containsExactly("3", "1", "2");
+        assertThat(repository.findAll(Sort.by(Sort.Direction.DESC, "startDate"))).extracting(ProjectCard::getId)
+                .containsExactly("1", "3", "2");
+        assertThat(repository.findAll(Sort.by("status.keyword").and(Sort.by(Sort.Direction.DESC, "title"))))
+                .extracting(ProjectCard::getId).containsExactly("3", "1", "2");
+        assertThat(repository.findAll(PageRequest.of(0, 2, Sort.by("title"))).getContent())
+                .extracting(ProjectCard::getId).containsExactly("2", "1");
+        assertThatThrownBy(() -> repository.findAll(Sort.by("responsiblePersons")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ProjectCard card(String id, String title, String address, String status, LocalDate startDate) {
+        ProjectCard card = new ProjectCard();
+        card.setId(id);
+        card.setTitle(title);
+        card.setAddress(address);
+        card.setStatus(status);
+        card.setStartDate(startDate);
+        return card;
+    }
+}
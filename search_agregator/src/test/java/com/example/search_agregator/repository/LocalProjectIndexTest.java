@@ -0,0 +1,215 @@
+package com.example.search_agregator.repository;
+
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.IndicatorRange;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import com.example.search_agregator.model.ProjectSuggestion;
+import com.example.search_agregator.model.ResponsiblePerson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class LocalProjectIndexTest {
+    private final LocalProjectIndex index = new LocalProjectIndex();
+
+    @AfterEach
+    void close() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void russianStemmingAndTypos() {
+        index.saveAll(List.of(
+                card("1", "Строительство школы на 1100 мест", "г. Киров, ул. Ленина, 1", "В процессе"),
+                card("2", "ЖК Знак, МЖД №35", "г. Ижевск, ул. Солнечная, 45", "Завершён")));
+
+        assertThat(ids(index.search("школа"))).containsExactly("1");
+        assertThat(ids(index.search("Солнечной"))).containsExactly("2");
+        // Одна опечатка в слове из 4-5 букв, две - в более длинных: fuzziness AUTO
+        assertThat(ids(index.search("Кирав"))).containsExactly("1");
+        assertThat(ids(index.search("строитльствоо"))).containsExactly("1");
+        assertThat(index.search("процесс завершён")).hasSize(2);
+        assertThat(index.search("Москва")).isEmpty();
+    }
+
+    @Test
+    void personsByNamePhoneAndEmail() {
+        ProjectCard card = card("7", "Детский сад", "ул. Мира, 5", "В процессе");
+        card.setResponsiblePersons(List.of(
+                new ResponsiblePerson("Иванов Иван Иванович", "Главный инженер проекта", "+79991234567", "ivanov@email.com", ""),
+                new ResponsiblePerson("Петрова Анна", "Прораб", "+79990000000", "petrova@email.com", "")));
+        index.save(card);
+
+        assertThat(ids(index.search("Иванову"))).containsExactly("7");
+        assertThat(ids(index.search("инженер"))).containsExactly("7");
+        assertThat(ids(index.search("+79991234567"))).containsExactly("7");
+        assertThat(ids(index.search("petrova@email.com"))).containsExactly("7");
+        // Телефон и email - keyword: совпадение только целиком
+        assertThat(index.search("+7999123")).isEmpty();
+        // Телефон в любой записи приводится к тому же виду, что и при индексации
+        assertThat(ids(index.search("8 (999) 123-45-67"))).containsExactly("7");
+        assertThat(ids(index.search("Petrova@Email.com"))).containsExactly("7");
+    }
+
+    @Test
+    void numericQueryPrefersIdButStillMatchesText() {
+        index.saveAll(List.of(
+                card("1100", "Поликлиника", "ул. Мира, 5", null),
+                card("12", "Школа на 1100 мест", "ул. Ленина, 1", null),
+                card("13", "Школа на 1110 мест", "ул. Ленина, 3", null)));
+
+        // Число ищется точно: id и слово в названии, без нечёткого совпадения с 1110
+        assertThat(ids(index.search("1100"))).containsExactly("1100", "12");
+    }
+
+    @Test
+    void numericQueryOfPhoneLengthFindsIdAndPhone() {
+        ProjectCard byPhone = card("7", "Детский сад", "ул. Мира, 5", null);
+        byPhone.setResponsiblePersons(List.of(new ResponsiblePerson("Иванов Иван", null, "+79991234567", null, null)));
+        index.saveAll(List.of(card("1234567890", "Поликлиника", "ул. Ленина, 1", null), byPhone));
+
+        assertThat(ids(index.search("1234567890"))).containsExactly("1234567890");
+        assertThat(ids(index.search("89991234567"))).containsExactly("7");
+    }
+
+    @Test
+    void searchPageCursorWalksAllHitsOnce() {
+        List<ProjectCard> cards = new ArrayList<>();
+        for (int i = 1; i <= 23; i++) {
+            cards.add(card(String.valueOf(i), "Школа №" + i, "г. Киров", "В процессе"));
+        }
+        index.replaceAll(cards);
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ProjectCard> page = index.searchPage("школа", ProjectFilter.NONE, 5, cursor);
+            assertThat(page.getTotalHits()).isEqualTo(23);
+            assertThat(page.getFacets() != null).isEqualTo(cursor == null);
+            assertThat(page.getTotalHitsRelation()).isEqualTo("eq");
+            seen.addAll(ids(page.getItems()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(23).doesNotHaveDuplicates();
+        assertThat(seen).isEqualTo(ids(index.search("школа")));
+    }
+
+    @Test
+    void filtersRestrictHitsAndFacetsIgnoreOwnStatusFilter() {
+        ProjectCard kirov = card("1", "ЖК Знак", "Киров", "В процессе");
+        kirov.setStartDate(LocalDate.of(2024, 3, 1));
+        kirov.setEndDate(LocalDate.of(2026, 6, 30));
+        kirov.setResponsiblePersons(List.of(new ResponsiblePerson("Иванов Иван Иванович", "ГИП", null, null, null)));
+        ProjectCard izhevsk = card("2", "ЖК Матрёшка", "Ижевск", "Завершён");
+        izhevsk.setStartDate(LocalDate.of(2021, 1, 10));
+        izhevsk.setEndDate(LocalDate.of(2023, 12, 20));
+        ProjectCard kazan = card("3", "ЖК Победа", "Казань", "В процессе");
+        kazan.setStartDate(LocalDate.of(2025, 8, 5));
+        kazan.setEndDate(LocalDate.of(2028, 9, 1));
+        index.replaceAll(List.of(kirov, izhevsk, kazan));
+
+        CursorPage<ProjectCard> inProgress = index.searchPage(null,
+                new ProjectFilter(List.of("В процессе"), null, null, null), 20, null);
+        assertThat(ids(inProgress.getItems())).containsExactly("1", "3");
+        assertThat(inProgress.getFacets().getStatuses()).containsExactly(entry("В процессе", 2L), entry("Завершён", 1L));
+        assertThat(inProgress.getFacets().getYears()).containsExactly(entry(2024, 1L), entry(2025, 1L));
+
+        // Период пересекается со сроками строительства
+        ProjectFilter period = new ProjectFilter(List.of(), LocalDate.of(2023, 6, 1), LocalDate.of(2024, 6, 1), null);
+        assertThat(ids(index.searchPage(null, period, 20, null).getItems())).containsExactly("1", "2");
+        assertThat(ids(index.searchPage("жк", period, 20, null).getItems())).containsExactlyInAnyOrder("1", "2");
+
+        ProjectFilter ivanov = new ProjectFilter(null, null, null, "иванов иван");
+        assertThat(ids(index.searchPage(null, ivanov, 20, null).getItems())).containsExactly("1");
+        assertThat(index.searchPage(null, new ProjectFilter(null, null, null, "Петров"), 20, null).getItems()).isEmpty();
+    }
+
+    @Test
+    void indicatorRangeIsCheckedWithinOneSection() {
+        ProjectCard tall = card("1", "ЖК Знак", "Киров", null);
+        tall.setIndicators(Map.of("Этажность", Map.of("Секция №1", "25", "Секция №2", "9")));
+        ProjectCard low = card("2", "ЖК Матрёшка", "Ижевск", null);
+        low.setIndicators(Map.of("Этажность", Map.of("Секция №1", "5"),
+                "Площадь застройки, м2", Map.of("total", "14 363,50")));
+        index.replaceAll(List.of(tall, low, card("3", "ЖК Победа", "Казань", null)));
+
+        assertThat(ids(index.searchPage(null, indicator("Этажность", null, 20.0, null), 20, null).getItems()))
+                .containsExactly("1");
+        assertThat(ids(index.searchPage(null, indicator("Этажность", null, null, 9.0), 20, null).getItems()))
+                .containsExactly("1", "2");
+        // Граница проверяется у той же секции: 25 этажей во второй секции у карточки 1 нет
+        assertThat(index.searchPage(null, indicator("Этажность", "Секция №2", 10.0, null), 20, null).getItems()).isEmpty();
+        assertThat(ids(index.searchPage(null, indicator("Площадь застройки, м2", "total", 14000.0, 15000.0), 20, null).getItems()))
+                .containsExactly("2");
+        // Без границ - карточки, у которых показатель есть
+        assertThat(ids(index.searchPage("жк", indicator("Площадь застройки, м2", null, null, null), 20, null).getItems()))
+                .containsExactly("2");
+    }
+
+    @Test
+    void findAllPageIsOrderedById() {
+        index.replaceAll(List.of(card("b", "Б", null, null), card("a", "А", null, null), card("c", "В", null, null)));
+
+        CursorPage<ProjectCard> first = index.findAllPage(2, null);
+        assertThat(ids(first.getItems())).containsExactly("a", "b");
+        CursorPage<ProjectCard> second = index.findAllPage(2, first.getNextCursor());
+        assertThat(ids(second.getItems())).containsExactly("c");
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void suggestMatchesWordPrefixesAndReportsPerson() {
+        ProjectCard school = card("12", "Школа на 1100 мест", "ул. Мира, 5", null);
+        school.setResponsiblePersons(List.of(new ResponsiblePerson("Знаменский Олег", "ГИП", null, null, null)));
+        index.saveAll(List.of(school, card("35", "г.Киров, ЖК Знак, МЖД №35", "ул. Ленина, 1", null)));
+
+        assertThat(index.suggest("жк зн", 8))
+                .containsExactly(new ProjectSuggestion("35", "г.Киров, ЖК Знак, МЖД №35", "ул. Ленина, 1", null));
+        assertThat(index.suggest("знаменский ол", 8))
+                .containsExactly(new ProjectSuggestion("12", "Школа на 1100 мест", "ул. Мира, 5", "Знаменский Олег"));
+        assertThat(index.suggest("зна", 8)).extracting(ProjectSuggestion::getId).containsExactlyInAnyOrder("12", "35");
+        assertThat(index.suggest("мира шк", 8)).isEmpty();
+    }
+
+    @Test
+    void replaceDeleteAndMaxNumericId() {
+        index.saveAll(List.of(card("5", "Школа", null, null), card("A-17", "Сад", null, null)));
+        index.replaceAll(List.of(card("40", "Поликлиника", null, null), card("A-99", "Сад", null, null)));
+
+        assertThat(index.search("школа")).isEmpty();
+        assertThat(index.findMaxNumericId()).isEqualTo(40);
+
+        index.deleteAll(List.of("40"));
+        assertThat(index.findById("40")).isEmpty();
+        assertThat(index.search("поликлиника")).isEmpty();
+        assertThat(index.count()).isEqualTo(1);
+        assertThat(index.findMaxNumericId()).isZero();
+    }
+
+    private static ProjectCard card(String id, String title, String address, String status) {
+        ProjectCard card = new ProjectCard();
+        card.setId(id);
+        card.setTitle(title);
+        card.setAddress(address);
+        card.setStatus(status);
+        return card;
+    }
+
+    private static ProjectFilter indicator(String name, String section, Double min, Double max) {
+        return new ProjectFilter(null, null, null, null, new IndicatorRange(name, section, min, max));
+    }
+
+    private static List<String> ids(List<ProjectCard> cards) {
+        return cards.stream().map(ProjectCard::getId).toList();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.search_agregator.repository;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHitsImpl;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Курсоры поиска на стороне Elasticsearch: мок ElasticsearchOperations отвечает как индекс,
+ * который сортирует по запрошенным полям и применяет search_after.
+ */
+class ProjectCardSearchRepositoryImplTest {
+    private static final Comparator<SearchHit<ProjectCard>> BY_SCORE_THEN_ID =
+            Comparator.<SearchHit<ProjectCard>>comparingDouble(SearchHit::getScore).reversed()
+                    .thenComparing(SearchHit::getId);
+
+    private final ElasticsearchOperations operations = mock(ElasticsearchOperations.class);
+    private final ProjectCardSearchRepositoryImpl repository =
+            new ProjectCardSearchRepositoryImpl(operations, mock(ElasticsearchClient.class));
+    private final List<NativeQuery> queries = new ArrayList<>();
+    private final List<SearchHit<ProjectCard>> index = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(operations.search(any(NativeQuery.class), eq(ProjectCard.class))).thenAnswer(invocation -> {
+            NativeQuery query = invocation.getArgument(0);
+            queries.add(query);
+            return respond(query);
+        });
+    }
+
+    @Test
+    void nextCursorCarriesSortValuesOfLastReturnedHit() {
+        index.add(hit("3", 2.5f));
+        index.add(hit("1", 1.5f));
+        index.add(hit("2", 0.5f));
+
+        CursorPage<ProjectCard> first = repository.searchPage("школа", ProjectFilter.NONE, 2, null);
+
+        assertThat(ids(first)).containsExactly("3", "1");
+        assertThat(SearchCursor.decode(first.getNextCursor())).containsExactly(1.5, "1");
+        // Один лишний хит сверх страницы - признак следующей страницы
+        assertThat(queries.get(0).getPageable().getPageSize()).isEqualTo(3);
+        assertThat(queries.get(0).getSearchAfter()).isNull();
+
+        CursorPage<ProjectCard> second = repository.searchPage("школа", ProjectFilter.NONE, 2, first.getNextCursor());
+
+        assertThat(queries.get(1).getSearchAfter()).containsExactly(1.5, "1");
+        assertThat(ids(second)).containsExactly("2");
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void equalScoresArePagedByIdWithoutGapsOrRepeats() {
+        for (String id : List.of("e", "b", "d", "a", "c")) {
+            index.add(hit(id, 1.0f));
+        }
+
+        List<String> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ProjectCard> page = repository.searchPage("школа", ProjectFilter.NONE, 2, cursor);
+            walked.addAll(ids(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(walked).containsExactly("a", "b", "c", "d", "e");
+        // Без id в сортировке порядок хитов с равным score не определён, и search_after терял бы или повторял их
+        List<SortOptions> sort = queries.get(0).getSortOptions();
+        assertThat(sort).hasSize(2);
+        assertThat(sort.get(0).isScore()).isTrue();
+        assertThat(sort.get(1).field().field()).isEqualTo("id");
+        assertThat(sort.get(1).field().order()).isEqualTo(SortOrder.Asc);
+    }
+
+    @Test
+    void findAllPageCursorUsesIdOnly() {
+        for (String id : List.of("2", "1", "3")) {
+            index.add(hit(id, Float.NaN));
+        }
+
+        CursorPage<ProjectCard> first = repository.findAllPage(2, null);
+
+        assertThat(ids(first)).containsExactly("1", "2");
+        assertThat(SearchCursor.decode(first.getNextCursor())).containsExactly("2");
+        assertThat(ids(repository.findAllPage(2, first.getNextCursor()))).containsExactly("3");
+    }
+
+    @Test
+    void malformedCursorFailsBeforeQueryingElasticsearch() {
+        assertThatThrownBy(() -> repository.searchPage("школа", ProjectFilter.NONE, 2, "garbage"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> repository.findAllPage(2, "garbage"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(operations, never()).search(any(NativeQuery.class), eq(ProjectCard.class));
+    }
+
+    private SearchHitsImpl<ProjectCard> respond(NativeQuery query) {
+        boolean byScore = query.getSortOptions().get(0).isScore();
+        List<SearchHit<ProjectCard>> sorted = new ArrayList<>(index);
+        sorted.sort(byScore ? BY_SCORE_THEN_ID : Comparator.comparing(SearchHit::getId));
+
+        List<Object> after = query.getSearchAfter();
+        List<SearchHit<ProjectCard>> hits = new ArrayList<>();
+        for (SearchHit<ProjectCard> hit : sorted) {
+            if (after == null || isAfter(hit, after, byScore)) {
+                hits.add(byScore ? hit : hit(hit.getId(), hit.getScore(), List.of(hit.getId())));
+            }
+        }
+        hits = hits.subList(0, Math.min(hits.size(), query.getPageable().getPageSize()));
+        return new SearchHitsImpl<>(index.size(), TotalHitsRelation.EQUAL_TO, Float.NaN, Duration.ZERO,
+                null, null, hits, null, null, null);
+    }
+
+    private static boolean isAfter(SearchHit<ProjectCard> hit, List<Object> after, boolean byScore) {
+        if (!byScore) {
+            return hit.getId().compareTo((String) after.get(0)) > 0;
+        }
+        double score = ((Number) after.get(0)).doubleValue();
+        return hit.getScore() < score || (hit.getScore() == score && hit.getId().compareTo((String) after.get(1)) > 0);
+    }
+
+    private static SearchHit<ProjectCard> hit(String id, float score) {
+        return hit(id, score, List.of((double) score, id));
+    }
+
+    private static SearchHit<ProjectCard> hit(String id, float score, List<Object> sortValues) {
+        ProjectCard card = new ProjectCard();
+        card.setId(id);
+        card.setTitle("Школа " + id);
+        return new SearchHit<>("project_cards", id, null, score, sortValues.toArray(),
+                Map.of(), Map.of(), null, null, List.of(), card);
+    }
+
+    private static List<String> ids(CursorPage<ProjectCard> page) {
+        return page.getItems().stream().map(ProjectCard::getId).toList();
+    }
+}
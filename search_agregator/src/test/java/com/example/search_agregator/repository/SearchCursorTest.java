@@ -0,0 +1,53 @@
+package com.example.search_agregator.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCursorTest {
+
+    @Test
+    void sortValuesSurviveRoundTrip() {
+        // Поиск: [_score, id]; полный список: [id]
+        assertThat(SearchCursor.decode(SearchCursor.encode(List.of(1.25, "17")))).containsExactly(1.25, "17");
+        assertThat(SearchCursor.decode(SearchCursor.encode(List.of("Ёлка/17 №2")))).containsExactly("Ёлка/17 №2");
+        assertThat(SearchCursor.decode(SearchCursor.encode(List.of(12_345_678_901L, 3)))).containsExactly(12_345_678_901L, 3);
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = SearchCursor.encode(List.of(0.987654321, "???>>>"));
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void noCursorMeansFirstPage() {
+        assertThat(SearchCursor.encode(null)).isNull();
+        assertThat(SearchCursor.encode(List.of())).isNull();
+        assertThat(SearchCursor.decode(null)).isNull();
+        assertThat(SearchCursor.decode(" ")).isNull();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> SearchCursor.decode("не base64"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Некорректный курсор");
+        assertThatThrownBy(() -> SearchCursor.decode(base64("{\"id\": 1}")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SearchCursor.decode(base64("[1.0, \"17\"")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SearchCursor.decode(base64("[]")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String base64(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
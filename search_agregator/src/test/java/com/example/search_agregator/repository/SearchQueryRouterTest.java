@@ -0,0 +1,42 @@
+package com.example.search_agregator.repository;
+
+import com.example.search_agregator.model.ResponsiblePerson;
+import com.example.search_agregator.repository.SearchQueryRouter.Kind;
+import com.example.search_agregator.repository.SearchQueryRouter.Route;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchQueryRouterTest {
+
+    @Test
+    void phonesInAnyNotationBecomeOneCanonicalForm() {
+        assertThat(ResponsiblePerson.canonicalPhone("+7 (999) 123-45-67")).isEqualTo("+79991234567");
+        assertThat(ResponsiblePerson.canonicalPhone("8 999 123 45 67")).isEqualTo("+79991234567");
+        assertThat(ResponsiblePerson.canonicalPhone("79991234567")).isEqualTo("+79991234567");
+        assertThat(ResponsiblePerson.canonicalPhone("999.123.45.67")).isEqualTo("+79991234567");
+        assertThat(ResponsiblePerson.canonicalPhone("+375 29 123-45-67")).isEqualTo("+375291234567");
+        assertThat(ResponsiblePerson.canonicalPhone("123-45-67")).isNull();
+        assertThat(ResponsiblePerson.canonicalPhone("8 999 123 45 67 доб. 12")).isNull();
+
+        // При записи в карточку: телефон приводится, остальное хранится как есть
+        ResponsiblePerson person = new ResponsiblePerson("Иванов", null, "8 (999) 123-45-67", null, null);
+        assertThat(person.getPhone()).isEqualTo("+79991234567");
+        person.setPhone("нет");
+        assertThat(person.getPhone()).isEqualTo("нет");
+    }
+
+    @Test
+    void routeByInputType() {
+        assertThat(SearchQueryRouter.route("8 (999) 123-45-67")).isEqualTo(new Route(Kind.PHONE, "+79991234567"));
+        assertThat(SearchQueryRouter.route(" Ivanov@Email.com ")).isEqualTo(new Route(Kind.EMAIL, "ivanov@email.com"));
+        assertThat(SearchQueryRouter.route("35")).isEqualTo(new Route(Kind.ID, "35"));
+        // Одни цифры длиной с телефон: и id, и телефон
+        assertThat(SearchQueryRouter.route("1234567890")).isEqualTo(new Route(Kind.ID, "1234567890", "+1234567890"));
+        assertThat(SearchQueryRouter.route("89991234567")).isEqualTo(new Route(Kind.ID, "89991234567", "+79991234567"));
+        assertThat(SearchQueryRouter.route("1234567890123456")).isEqualTo(new Route(Kind.ID, "1234567890123456"));
+        assertThat(SearchQueryRouter.route("школа 1100").kind()).isEqualTo(Kind.TEXT);
+        assertThat(SearchQueryRouter.route("A-17").kind()).isEqualTo(Kind.TEXT);
+        assertThat(SearchQueryRouter.route("@ivanov").kind()).isEqualTo(Kind.TEXT);
+    }
+}
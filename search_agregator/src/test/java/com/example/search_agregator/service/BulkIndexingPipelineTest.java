@@ -0,0 +1,245 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.repository.ProjectCardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Пайплайн против мока ElasticsearchOperations: нарезка пачек, очередь, повторы и остановка воркеров.
+ */
+class BulkIndexingPipelineTest {
+    private static final IndexCoordinates INDEX = IndexCoordinates.of("project_cards_v1");
+
+    private final ElasticsearchOperations operations = mock(ElasticsearchOperations.class);
+    private final ElasticsearchConverter converter = new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext());
+    // id документов каждого вызова bulkIndex в порядке вызовов
+    private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(operations.getElasticsearchConverter()).thenReturn(converter);
+    }
+
+    @Test
+    void splitsBatchesByActionCount() {
+        respond(ids -> Map.of());
+        BulkIndexingPipeline pipeline = pipeline(2, Long.MAX_VALUE, 1, 8);
+
+        BulkIndexingPipeline.Result result = load(pipeline, cards(5));
+
+        assertThat(requests).containsExactly(List.of("0", "1"), List.of("2", "3"), List.of("4"));
+        assertThat(result.indexed()).isEqualTo(5);
+        assertThat(result.failed()).isZero();
+    }
+
+    @Test
+    void splitsBatchesByBytes() {
+        respond(ids -> Map.of());
+        List<ProjectCard> cards = cards(5);
+        long cardBytes = converter.mapObject(cards.get(0)).toJson().getBytes(StandardCharsets.UTF_8).length;
+        // Две карточки помещаются, третья уже нет
+        BulkIndexingPipeline pipeline = pipeline(1000, 2 * cardBytes + cardBytes / 2, 1, 8);
+
+        load(pipeline, cards);
+
+        assertThat(requests).containsExactly(List.of("0", "1"), List.of("2", "3"), List.of("4"));
+    }
+
+    @Test
+    void fullQueueBlocksProducer() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        respond(ids -> {
+            release.await();
+            return Map.of();
+        });
+        BulkIndexingPipeline pipeline = pipeline(1, Long.MAX_VALUE, 1, 1);
+        AtomicInteger submitted = new AtomicInteger();
+        List<BulkIndexingPipeline.Result> results = new CopyOnWriteArrayList<>();
+
+        Thread producer = Thread.ofVirtual().start(() -> {
+            try (BulkIndexingPipeline.Session session = pipeline.start(INDEX)) {
+                for (ProjectCard card : cards(6)) {
+                    session.submit(card);
+                    submitted.incrementAndGet();
+                }
+                results.add(session.finish());
+            }
+        });
+
+        // Пачка 0 у воркера, пачка 1 в очереди, постановка пачки 2 ждёт места - четвёртый submit не возвращается
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (submitted.get() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertThat(submitted).hasValue(3);
+        assertThat(producer.isAlive()).isTrue();
+
+        release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        assertThat(submitted).hasValue(6);
+        assertThat(results).singleElement().extracting(BulkIndexingPipeline.Result::indexed).isEqualTo(6L);
+    }
+
+    @Test
+    void retriesOnlyThrottledAndServerErrors() {
+        AtomicInteger calls = new AtomicInteger();
+        respond(ids -> calls.incrementAndGet() == 1
+                ? Map.of("1", new BulkFailureException.FailureDetails(429, "es_rejected_execution_exception"),
+                        "2", new BulkFailureException.FailureDetails(503, "unavailable_shards_exception"),
+                        "3", new BulkFailureException.FailureDetails(400, "mapper_parsing_exception"))
+                : Map.of());
+        BulkIndexingPipeline pipeline = pipeline(10, Long.MAX_VALUE, 1, 8);
+
+        BulkIndexingPipeline.Result result = load(pipeline, cards(4));
+
+        assertThat(requests).containsExactly(List.of("0", "1", "2", "3"), List.of("1", "2"));
+        assertThat(result.indexed()).isEqualTo(3);
+        assertThat(result.failed()).isEqualTo(1);
+    }
+
+    @Test
+    void documentsStillFailingAfterRetriesAreCountedAsFailed() {
+        respond(ids -> Map.of("1", new BulkFailureException.FailureDetails(503, "unavailable_shards_exception")));
+        BulkIndexingPipeline pipeline = pipeline(10, Long.MAX_VALUE, 1, 8);
+
+        BulkIndexingPipeline.Result result = load(pipeline, cards(2));
+
+        // Первая попытка и три повтора
+        assertThat(requests).containsExactly(List.of("0", "1"), List.of("1"), List.of("1"), List.of("1"));
+        assertThat(result.indexed()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(1);
+    }
+
+    @Test
+    void wholeRequestFailureRetriesTheBatch() {
+        AtomicInteger calls = new AtomicInteger();
+        when(operations.bulkIndex(anyList(), any(IndexCoordinates.class))).thenAnswer(invocation -> {
+            List<IndexQuery> queries = invocation.getArgument(0);
+            requests.add(queries.stream().map(IndexQuery::getId).toList());
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("Connection reset");
+            }
+            return List.of();
+        });
+        BulkIndexingPipeline pipeline = pipeline(10, Long.MAX_VALUE, 1, 8);
+
+        BulkIndexingPipeline.Result result = load(pipeline, cards(2));
+
+        assertThat(requests).containsExactly(List.of("0", "1"), List.of("0", "1"));
+        assertThat(result.indexed()).isEqualTo(2);
+    }
+
+    @Test
+    void failedCountFailsTheFullReload() {
+        respond(ids -> ids.contains("1")
+                ? Map.of("1", new BulkFailureException.FailureDetails(400, "mapper_parsing_exception"))
+                : Map.of());
+        ProjectIndexManager indexManager = mock(ProjectIndexManager.class);
+        when(indexManager.createVersionedIndex()).thenReturn(INDEX.getIndexName());
+        ElasticsearchIndexLoader loader = new ElasticsearchIndexLoader(mock(ProjectCardRepository.class), indexManager,
+                pipeline(10, Long.MAX_VALUE, 2, 8), operations, new ApiWriteGate());
+
+        assertThatThrownBy(() -> loader.load(sink -> cards(3).forEach(sink), true))
+                .isInstanceOfSatisfying(IndexingFailedException.class, e -> assertThat(e.getFailed()).isEqualTo(1));
+    }
+
+    @Test
+    void closeWithoutFinishStopsWorkers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        respond(ids -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return Map.of();
+        });
+        BulkIndexingPipeline pipeline = pipeline(1, Long.MAX_VALUE, 1, 8);
+
+        assertThatThrownBy(() -> {
+            try (BulkIndexingPipeline.Session session = pipeline.start(INDEX)) {
+                for (ProjectCard card : cards(4)) {
+                    session.submit(card);
+                }
+                started.await(5, TimeUnit.SECONDS);
+                throw new IllegalStateException("Ошибка разбора таблицы");
+            }
+        }).hasMessage("Ошибка разбора таблицы");
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        // Пачки, оставшиеся в очереди, после close() не отправляются
+        assertThat(requests).hasSize(1);
+    }
+
+    private interface Bulk {
+        Map<String, BulkFailureException.FailureDetails> failures(List<String> ids) throws Exception;
+    }
+
+    /**
+     * Ответ на каждый bulkIndex: отказы по id, пустая карта - пачка записана целиком.
+     */
+    private void respond(Bulk bulk) {
+        when(operations.bulkIndex(anyList(), any(IndexCoordinates.class))).thenAnswer(invocation -> {
+            List<IndexQuery> queries = invocation.getArgument(0);
+            List<String> ids = queries.stream().map(IndexQuery::getId).toList();
+            requests.add(ids);
+            Map<String, BulkFailureException.FailureDetails> failures = bulk.failures(ids);
+            if (!failures.isEmpty()) {
+                throw new BulkFailureException("Bulk operation has failures", failures);
+            }
+            return List.of();
+        });
+    }
+
+    private BulkIndexingPipeline pipeline(int maxActions, long maxBytes, int workers, int queueCapacity) {
+        return new BulkIndexingPipeline(operations, maxActions, maxBytes, workers, queueCapacity, 3, Duration.ofMillis(1));
+    }
+
+    private static BulkIndexingPipeline.Result load(BulkIndexingPipeline pipeline, List<ProjectCard> cards) {
+        try (BulkIndexingPipeline.Session session = pipeline.start(INDEX)) {
+            cards.forEach(session::submit);
+            return session.finish();
+        }
+    }
+
+    private static List<ProjectCard> cards(int count) {
+        List<ProjectCard> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProjectCard card = new ProjectCard();
+            card.setId(String.valueOf(i));
+            card.setTitle("Объект " + i);
+            cards.add(card);
+        }
+        return cards;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.benchmark.LegacyCellParsers;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Однопроходные сканеры должны давать ровно то же, что прежние split/replaceAll.
+ */
+class CellTextScannerTest {
+    private static final List<String> SAMPLES = List.of(
+            "Иванов Иван Иванович | ГИП | +79991234567 | ivanov@mail.ru; Петров Пётр | Прораб | 8 (912) 000-00-00 | petrov@mail.ru",
+            "Иванов | ГИП | +7 900 | a@b.ru\nПетров | Прораб | +7 901 | p@b.ru\n",
+            " Иванов|ГИП|1|a ;;  Сидоров |  | 2 | b  ",
+            "|a|b|c|d",
+            "a|b|c|",
+            "a|b||d",
+            "a|b|c||",
+            "a | b | c | d | e",
+            "a\t|\tb\r\n|c|d",
+            "a|b|c|d \t \n \t e|f|g|h",
+            "a|b|c|d \t e|f|g|h",
+            ";\n;",
+            "\n",
+            "   ",
+            "Готовые ПВОР | https://example.com/pvor\nБренд-лист | https://example.com/brand",
+            "Готовые ПВОР|https://example.com/pvor; ; Бренд-лист",
+            "без разделителей");
+
+    private static final List<String> JSON_SAMPLES = List.of(
+            "[{\"indicator_name\": \"Площадь\", \"sections\": [{\"number\": \"1\", \"amount\": \"320,89\"},], \"total\": \"890,94\"},]",
+            "[{\"indicator_name\": \"Паркинг\", \"sections\": [{\"number\": \"1\", \"amount\": \"- }]}]",
+            "[{\"amount\": \"- ,  }]",
+            "[{\"amount\":\"-\n}]",
+            "[{\"amount\": \"-}]",
+            "{\"a\": {\"b\": \"c\",\n  },\n}",
+            ",,}",
+            "[1, 2, 3]",
+            "");
+
+    @Test
+    void matchesLegacyParsersOnSamples() {
+        for (String sample : SAMPLES) {
+            assertSame(sample);
+        }
+        for (String sample : JSON_SAMPLES) {
+            assertThat(CellTextScanner.cleanJsonString(sample)).as(sample).isEqualTo(LegacyCellParsers.cleanJsonString(sample));
+        }
+    }
+
+    @Test
+    void matchesLegacyParsersOnRandomInput() {
+        Random random = new Random(42);
+        char[] alphabet = {'a', 'б', ' ', ' ', '\t', '\n', '\r', '\u000B', '\f', ';', '|', '|', ','};
+        char[] jsonAlphabet = {'"', 'a', '-', ' ', '\n', ',', '}', ']', ':', '{'};
+        for (int round = 0; round < 20_000; round++) {
+            assertSame(randomString(random, alphabet, 1 + random.nextInt(30)));
+
+            String json = randomString(random, jsonAlphabet, random.nextInt(20));
+            if (random.nextBoolean()) {
+                json = "\"amount\":" + json;
+            }
+            assertThat(CellTextScanner.cleanJsonString(json)).as(json).isEqualTo(LegacyCellParsers.cleanJsonString(json));
+        }
+    }
+
+    private static void assertSame(String data) {
+        assertThat(CellTextScanner.parseResponsiblePersons(data)).as(data)
+                .isEqualTo(LegacyCellParsers.parseResponsiblePersons(data));
+        assertThat(CellTextScanner.parseDocumentLinks(data)).as(data)
+                .isEqualTo(LegacyCellParsers.parseDocumentLinks(data));
+    }
+
+    private static String randomString(Random random, char[] alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return sb.toString();
+    }
+}
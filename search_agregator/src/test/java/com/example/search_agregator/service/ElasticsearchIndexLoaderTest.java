@@ -0,0 +1,192 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.repository.ProjectCardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Загрузка в кластер на моках репозитория, пайплайна и менеджера индексов: что пишется, что удаляется
+ * и когда переключается алиас.
+ */
+class ElasticsearchIndexLoaderTest {
+    private static final IndexCoordinates ALIAS = IndexCoordinates.of("project_cards");
+    private static final String NEW_INDEX = "project_cards_v20250101000000000";
+
+    private final ProjectCardRepository repository = mock(ProjectCardRepository.class);
+    private final ProjectIndexManager indexManager = mock(ProjectIndexManager.class);
+    private final BulkIndexingPipeline pipeline = mock(BulkIndexingPipeline.class);
+    private final BulkIndexingPipeline.Session session = mock(BulkIndexingPipeline.Session.class);
+    private final ElasticsearchOperations operations = mock(ElasticsearchOperations.class);
+    private final ApiWriteGate apiWriteGate = new ApiWriteGate();
+    private final ElasticsearchIndexLoader loader =
+            new ElasticsearchIndexLoader(repository, indexManager, pipeline, operations, apiWriteGate);
+    // Что ушло в пайплайн
+    private final List<ProjectCard> submitted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(operations.getIndexCoordinatesFor(ProjectCard.class)).thenReturn(ALIAS);
+        when(operations.indexOps(any(IndexCoordinates.class))).thenReturn(mock(IndexOperations.class));
+        when(pipeline.start(any())).thenReturn(session);
+        doAnswer(invocation -> submitted.add(invocation.getArgument(0))).when(session).submit(any());
+        when(session.finish()).thenAnswer(invocation -> new BulkIndexingPipeline.Result(submitted.size(), 0, Duration.ZERO));
+    }
+
+    @Test
+    void deltaWritesChangedRowsAndDeletesOnlyRowsGoneFromSheet() throws IOException {
+        Map<String, String> indexed = new HashMap<>();
+        indexed.put("1", sheetCard("1", "Школа").getFingerprint());
+        indexed.put("2", sheetCard("2", "Детский сад").getFingerprint());
+        indexed.put("3", sheetCard("3", "Поликлиника").getFingerprint());
+        // Создана через API: fingerprint нет
+        indexed.put("100", null);
+        when(repository.findAllFingerprints()).thenReturn(indexed);
+
+        loader.load(sheet(sheetCard("1", "Школа"), sheetCard("2", "Детский сад на 300 мест"), sheetCard("4", "Бассейн")), false);
+
+        assertThat(submitted).extracting(ProjectCard::getId).containsExactly("2", "4");
+        verify(repository).deleteAllById(List.of("3"));
+    }
+
+    @Test
+    void unchangedSheetWritesAndDeletesNothing() throws IOException {
+        Map<String, String> indexed = new HashMap<>();
+        indexed.put("1", sheetCard("1", "Школа").getFingerprint());
+        indexed.put("100", null);
+        when(repository.findAllFingerprints()).thenReturn(indexed);
+
+        loader.load(sheet(sheetCard("1", "Школа")), false);
+
+        assertThat(submitted).isEmpty();
+        verify(repository, never()).deleteAllById(anyIterable());
+    }
+
+    @Test
+    void fullReloadCarriesOverApiCardsAndPublishesNewIndex() throws IOException {
+        when(indexManager.createVersionedIndex()).thenReturn(NEW_INDEX);
+        when(indexManager.isAliasInPlace()).thenReturn(true);
+        Map<String, String> indexed = new HashMap<>();
+        indexed.put("1", "устаревший");
+        indexed.put("2", "пропал из таблицы");
+        indexed.put("100", null);
+        when(repository.findAllFingerprints()).thenReturn(indexed);
+        ProjectCard created = apiCard("100");
+        when(repository.findAllById(List.of("100"))).thenReturn(List.of(created));
+
+        loader.load(sheet(sheetCard("1", "Школа")), true);
+
+        verify(pipeline).start(IndexCoordinates.of(NEW_INDEX));
+        assertThat(submitted).extracting(ProjectCard::getId).containsExactly("1", "100");
+        verify(indexManager).publish(NEW_INDEX);
+        verify(indexManager, never()).discard(any());
+    }
+
+    @Test
+    void apiWritesDuringFullReloadAreReplayedBeforeSwap() throws IOException {
+        when(indexManager.createVersionedIndex()).thenReturn(NEW_INDEX);
+        when(repository.findAllFingerprints()).thenReturn(Map.of());
+        ProjectCard created = apiCard("200");
+        ProjectIndexLoader.CardSource source = sink -> {
+            sink.accept(sheetCard("1", "Школа"));
+            // Пока таблица заливается в новый индекс, через API создают и удаляют карточки в прежнем
+            apiWrite(ProjectIndexChangedEvent.saved("create 200", List.of(created)));
+            apiWrite(ProjectIndexChangedEvent.deleted("delete 1", List.of("1")));
+        };
+
+        loader.load(source, true);
+
+        InOrder order = inOrder(operations, indexManager);
+        order.verify(operations).save(List.of(created), IndexCoordinates.of(NEW_INDEX));
+        order.verify(operations).delete("1", IndexCoordinates.of(NEW_INDEX));
+        order.verify(indexManager).publish(NEW_INDEX);
+    }
+
+    @Test
+    void apiWritesWaitWhileAliasIsSwapped() throws Exception {
+        when(indexManager.createVersionedIndex()).thenReturn(NEW_INDEX);
+        when(repository.findAllFingerprints()).thenReturn(Map.of());
+        CompletableFuture<Void> write = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            Thread.ofVirtual().start(() -> write.complete(apiWriteGate.write(() -> null)));
+            Thread.sleep(100);
+            assertThat(write).isNotDone();
+            return null;
+        }).when(indexManager).publish(NEW_INDEX);
+
+        loader.load(sheet(sheetCard("1", "Школа")), true);
+
+        assertThat(write).succeedsWithin(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void fullReloadWithFailedCardsDiscardsNewIndex() throws IOException {
+        when(indexManager.createVersionedIndex()).thenReturn(NEW_INDEX);
+        when(session.finish()).thenReturn(new BulkIndexingPipeline.Result(1, 1, Duration.ZERO));
+
+        assertThatThrownBy(() -> loader.load(sheet(sheetCard("1", "Школа"), sheetCard("2", "Сад")), true))
+                .isInstanceOf(IndexingFailedException.class);
+
+        verify(indexManager).discard(NEW_INDEX);
+        verify(indexManager, never()).publish(any());
+    }
+
+    @Test
+    void emptySheetOnFullReloadDiscardsNewIndex() throws IOException {
+        when(indexManager.createVersionedIndex()).thenReturn(NEW_INDEX);
+
+        loader.load(sheet(), true);
+
+        verify(indexManager).discard(NEW_INDEX);
+        verify(indexManager, never()).publish(any());
+    }
+
+    private void apiWrite(ProjectIndexChangedEvent event) {
+        apiWriteGate.write(() -> {
+            apiWriteGate.onIndexChanged(event);
+            return null;
+        });
+    }
+
+    private static ProjectCard apiCard(String id) {
+        ProjectCard card = new ProjectCard();
+        card.setId(id);
+        card.setTitle("Создана через API");
+        return card;
+    }
+
+    private static ProjectIndexLoader.CardSource sheet(ProjectCard... cards) {
+        return sink -> List.of(cards).forEach(sink);
+    }
+
+    private static ProjectCard sheetCard(String id, String title) {
+        ProjectCard card = new ProjectCard();
+        card.setId(id);
+        card.setTitle(title);
+        card.setFingerprint(ProjectCardFingerprint.of(card));
+        return card;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.repository.EmbeddedProjectCardRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Загрузка таблицы во встроенный поиск: пишется только разница, карточки из API не трогаются.
+ */
+class EmbeddedIndexLoaderTest {
+    private final EmbeddedProjectCardRepository repository = new EmbeddedProjectCardRepository();
+    private final EmbeddedIndexLoader loader = new EmbeddedIndexLoader(repository);
+
+    @AfterEach
+    void close() throws IOException {
+        repository.close();
+    }
+
+    @Test
+    void unchangedSheetWritesNothing() throws IOException {
+        ProjectCard school = sheetCard("1", "Школа");
+        loader.load(sheet(school, sheetCard("2", "Детский сад")), false);
+
+        loader.load(sheet(sheetCard("1", "Школа"), sheetCard("2", "Детский сад")), false);
+
+        // В индексе остался тот же объект: карточка не перезаписывалась
+        assertThat(repository.findById("1")).containsSame(school);
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void changedRowIsUpsertedAndRemovedRowIsDeleted() throws IOException {
+        loader.load(sheet(sheetCard("1", "Школа"), sheetCard("2", "Детский сад")), false);
+
+        loader.load(sheet(sheetCard("1", "Школа на 1100 мест"), sheetCard("3", "Поликлиника")), false);
+
+        assertThat(repository.findById("1")).map(ProjectCard::getTitle).contains("Школа на 1100 мест");
+        assertThat(repository.findById("2")).isEmpty();
+        assertThat(repository.findById("3")).isPresent();
+    }
+
+    @Test
+    void apiCreatedCardSurvivesReload() throws IOException {
+        loader.load(sheet(sheetCard("1", "Школа")), false);
+        ProjectCard created = new ProjectCard();
+        created.setId("100");
+        created.setTitle("Создана через API");
+        repository.save(created);
+
+        loader.load(sheet(sheetCard("1", "Школа"), sheetCard("2", "Детский сад")), false);
+        loader.load(sheet(sheetCard("2", "Детский сад")), true);
+
+        assertThat(repository.findById("100")).containsSame(created);
+        assertThat(repository.findById("1")).isEmpty();
+    }
+
+    @Test
+    void emptySheetKeepsIndex() throws IOException {
+        loader.load(sheet(sheetCard("1", "Школа")), false);
+
+        loader.load(sheet(), false);
+
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    private static ProjectIndexLoader.CardSource sheet(ProjectCard... cards) {
+        return sink -> List.of(cards).forEach(sink);
+    }
+
+    private static ProjectCard sheetCard(String id, String title) {
+        ProjectCard card = new ProjectCard();
+        card.setId(id);
+        card.setTitle(title);
+        card.setFingerprint(ProjectCardFingerprint.of(card));
+        return card;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExcelUrlParserServiceImplTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExcelUrlParserServiceImpl parser = new ExcelUrlParserServiceImpl(meterRegistry);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void streamingParserMatchesDomParserOnSharedStringsWorkbook() throws IOException {
+        Path file = tempDir.resolve("shared-strings.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            writeFixture(workbook, file);
+        }
+
+        List<ProjectCard> dom = parseDom(file);
+        assertThat(parseStreaming(file)).isEqualTo(dom);
+
+        assertThat(dom).extracting(ProjectCard::getId).containsExactly("1", "A-17", "7");
+        assertThat(dom.get(0).getStartDate()).isEqualTo(LocalDate.of(2024, 3, 1));
+        assertThat(dom.get(0).getEndDate()).isEqualTo(LocalDate.of(2025, 12, 31));
+        assertThat(dom.get(0).getResponsiblePersons()).hasSize(2);
+        assertThat(dom.get(0).getDocumentLinks()).hasSize(2);
+        assertThat(dom.get(0).getIndicators()).containsKey("Площадь застройки, м2");
+        assertThat(dom.get(1).getEndDate()).isNotNull();
+        assertThat(dom.get(2).getStartDate()).isEqualTo(LocalDate.of(2024, 2, 29));
+    }
+
+    @Test
+    void streamingParserMatchesDomParserOnInlineStringsWorkbook() throws IOException {
+        // SXSSF пишет строки как inlineStr, а не через sharedStrings.xml
+        Path file = tempDir.resolve("inline-strings.xlsx");
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook()) {
+            writeFixture(workbook, file);
+            workbook.dispose();
+        }
+
+        List<ProjectCard> dom = parseDom(file);
+        assertThat(dom).hasSize(3);
+        assertThat(parseStreaming(file)).isEqualTo(dom);
+    }
+
+    @Test
+    void streamingParserMatchesDomParserOnBuildDatasFixture() throws IOException, URISyntaxException {
+        Path file = Path.of(Objects.requireNonNull(getClass().getResource("/fixtures/buildDatas.xlsx")).toURI());
+
+        List<ProjectCard> dom = parseDom(file);
+        assertThat(dom).isNotEmpty();
+        assertThat(parseStreaming(file)).isEqualTo(dom);
+    }
+
+    @Test
+    void rowWithUnparsedCellsIsCountedButStillLoaded() {
+        String[] values = {"5", "Объект", "ул. Ленина, 1", "скоро", "", "В процессе", "", "", "{не json"};
+        ExcelUrlParserServiceImpl.RowValues row = new ExcelUrlParserServiceImpl.RowValues() {
+            @Override
+            public String text(int column) {
+                return values[column];
+            }
+
+            @Override
+            public LocalDate date(int column) {
+                return null;
+            }
+        };
+
+        ProjectCard card = parser.toCard(row);
+
+        assertThat(card.getId()).isEqualTo("5");
+        assertThat(card.getIndicators()).isEmpty();
+        assertThat(meterRegistry.get("spreadsheet.rows").tag("result", "failed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("spreadsheet.cell.failures").tag("column", "startDate").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("spreadsheet.cell.failures").tag("column", "indicators").counter().count()).isEqualTo(1);
+        // Пустая ячейка endDate - не ошибка разбора
+        assertThat(meterRegistry.find("spreadsheet.cell.failures").tag("column", "endDate").counter()).isNull();
+    }
+
+    private List<ProjectCard> parseDom(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return parser.parse(inputStream);
+        }
+    }
+
+    private List<ProjectCard> parseStreaming(Path file) throws IOException {
+        List<ProjectCard> cards = new ArrayList<>();
+        parser.parseStreaming(file, cards::add);
+        return cards;
+    }
+
+    private static void writeFixture(Workbook workbook, Path file) throws IOException {
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd.mm.yyyy"));
+
+        Sheet sheet = workbook.createSheet("Объекты");
+        sheet.createRow(0).createCell(0).setCellValue("Реестр объектов");
+        Row labels = sheet.createRow(1);
+        String[] russianHeaders = {"ID", "Название", "Адрес", "Начало", "Окончание", "Статус", "Ответственные", "Документы", "Показатели"};
+        for (int i = 0; i < russianHeaders.length; i++) {
+            labels.createCell(i).setCellValue(russianHeaders[i]);
+        }
+        Row englishHeaders = sheet.createRow(2);
+        String[] headers = {"id", "title", "address", "startDate", "endDate", "status", "responsiblePersons", "documentLinks", "indicators"};
+        for (int i = 0; i < headers.length; i++) {
+            englishHeaders.createCell(i).setCellValue(headers[i]);
+        }
+
+        Row first = sheet.createRow(3);
+        first.createCell(0).setCellValue(1);
+        first.createCell(1).setCellValue("г.Киров, ЖК Знак, МЖД №35");
+        first.createCell(2).setCellValue("г. Киров, ул. Московская, 35");
+        Cell start = first.createCell(3);
+        start.setCellValue(LocalDate.of(2024, 3, 1));
+        start.setCellStyle(dateStyle);
+        first.createCell(4).setCellValue("12/31/2025");
+        first.createCell(5).setCellValue("Строительство");
+        first.createCell(6).setCellValue("Иванов Иван Иванович | ГИП | +79991234567 | ivanov@mail.ru;"
+                + " Петров Пётр | Прораб | 8 (912) 000-00-00 | petrov@mail.ru");
+        first.createCell(7).setCellValue("Готовые ПВОР | https://example.com/pvor\nБренд-лист | https://example.com/brand");
+        first.createCell(8).setCellValue("[{\"indicator_name\": \"Площадь застройки, м2\", \"sections\": ["
+                + "{\"number\": \"Секция №1\", \"amount\": \"320,89\"}, {\"number\": \"Секция №2\", \"amount\": \"570,05\"},],"
+                + " \"total\": \"890,94\"},]");
+
+        Row second = sheet.createRow(4);
+        second.createCell(0).setCellValue("A-17");
+        second.createCell(1).setCellValue(3.5);
+        second.createCell(2).setCellValue(true);
+        second.createCell(3).setCellValue("31/12/2024");
+        second.createCell(4).setCellValue(45000);
+        second.createCell(5).setCellFormula("CONCATENATE(\"В \",\"работе\")");
+        second.createCell(6).setCellValue("Сидоров | ГИП | +7 900 000 00 00");
+        second.createCell(8).setCellValue("{\"Этажность\": {\"Секция 1\": \"9\", \"total\": \"9\"}}");
+
+        // Пустая первая ячейка - строка пропускается
+        Row blank = sheet.createRow(5);
+        blank.createCell(1).setCellValue("без id");
+
+        Row third = sheet.createRow(7);
+        third.createCell(0).setCellValue("7");
+        Cell dateInTextColumn = third.createCell(1);
+        dateInTextColumn.setCellValue(LocalDate.of(2023, 6, 15));
+        dateInTextColumn.setCellStyle(dateStyle);
+        third.createCell(3).setCellValue("2024-02-30");
+        third.createCell(4).setCellStyle(dateStyle);
+        third.createCell(5).setCellValue("");
+        third.createCell(6).setCellValue("\n");
+        third.createCell(8).setCellValue("[{\"indicator_name\": \"Паркинг\", \"sections\": [{\"number\": \"1\", \"amount\": \"- }]}]");
+
+        sheet.createRow(8).createCell(0).setCellValue("   ");
+        sheet.createRow(9).createCell(0).setCellValue(" ID ");
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            workbook.write(out);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.ProjectCard;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Outbox против локальной заглушки Apps Script на com.sun.net.httpserver.
+ */
+class GoogleSheetsServiceTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+    // Сколько следующих запросов заглушка должна провалить с 503
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    // Запрос со строкой с таким id заглушка отвергает с 400
+    private volatile String rejectedId;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private String webhookUrl;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/exec", exchange -> {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            requests.add(request);
+            boolean fail = failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+            boolean reject = false;
+            for (JsonNode row : request.path("rows")) {
+                reject |= row.path("id").asText().equals(rejectedId);
+            }
+            int status = fail ? 503 : reject ? 400 : 200;
+            byte[] body = (status == 200 ? "{\"success\":true}" : "{\"success\":false,\"error\":\"stub\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        webhookUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/exec";
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void queuesWithoutCallingWebhookAndDeliversInOneBatch() throws IOException {
+        SheetsOutbox outbox = new SheetsOutbox(tempDir);
+        GoogleSheetsService service = service(outbox, Duration.ZERO);
+
+        for (int i = 1; i <= 3; i++) {
+            assertThat(service.addProjectToSheets(card(String.valueOf(i)))).isTrue();
+        }
+        assertThat(requests).isEmpty();
+        assertThat(outbox.size()).isEqualTo(3);
+
+        assertThat(service.flushOutbox()).isEqualTo(3);
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).path("rows")).extracting(row -> row.path("id").asText())
+                .containsExactly("1", "2", "3");
+        assertThat(outbox.size()).isZero();
+    }
+
+    @Test
+    void keepsRowsAndBacksOffAfterFailure() throws Exception {
+        SheetsOutbox outbox = new SheetsOutbox(tempDir);
+        GoogleSheetsService service = service(outbox, Duration.ofMillis(200));
+        service.addProjectToSheets(card("1"));
+        failuresLeft.set(1);
+
+        assertThat(service.flushOutbox()).isZero();
+        assertThat(outbox.size()).isEqualTo(1);
+
+        // Пока идёт пауза, webhook не вызывается
+        assertThat(service.flushOutbox()).isZero();
+        assertThat(requests).hasSize(1);
+
+        Thread.sleep(250);
+        assertThat(service.flushOutbox()).isEqualTo(1);
+        assertThat(requests).hasSize(2);
+        assertThat(outbox.size()).isZero();
+
+        assertThat(meterRegistry.get("sheets.webhook").tag("outcome", "rejected").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sheets.webhook").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sheets.outbox.delivered").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void pendingRowsSurviveRestart() throws IOException {
+        service(new SheetsOutbox(tempDir), Duration.ZERO).addProjectToSheets(card("42"));
+
+        // Новый экземпляр поверх того же каталога - как после перезапуска приложения
+        GoogleSheetsService restarted = service(new SheetsOutbox(tempDir), Duration.ZERO);
+        assertThat(restarted.flushOutbox()).isEqualTo(1);
+        assertThat(requests.get(0).path("rows").get(0).path("id").asText()).isEqualTo("42");
+    }
+
+    @Test
+    void splitsLargeQueueIntoBatches() {
+        SheetsOutbox outbox = new SheetsOutbox(tempDir);
+        GoogleSheetsService service = service(outbox, Duration.ZERO, 2);
+        for (int i = 0; i < 5; i++) {
+            service.addProjectToSheets(card(String.valueOf(i)));
+        }
+
+        assertThat(service.flushOutbox()).isEqualTo(5);
+        assertThat(requests).extracting(request -> request.path("rows").size()).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void bulkQueueWritesOneEntryPerBatch() throws IOException {
+        SheetsOutbox outbox = new SheetsOutbox(tempDir);
+        GoogleSheetsService service = service(outbox, Duration.ZERO, 2);
+        service.addProjectToSheets(card("0"));
+        assertThat(service.addProjectsToSheets(List.of(card("1"), card("2"), card("3"), card("4"), card("5")))).isTrue();
+
+        assertThat(outbox.size()).isEqualTo(4);
+        assertThat(service.flushOutbox()).isEqualTo(6);
+        assertThat(requests).extracting(request -> request.path("rows").size()).containsExactly(1, 2, 2, 1);
+        assertThat(requests.get(3).path("rows").get(0).path("id").asText()).isEqualTo("5");
+    }
+
+    @Test
+    void rejectedEntryIsDeadLetteredAndQueueKeepsDraining() throws IOException {
+        SheetsOutbox outbox = new SheetsOutbox(tempDir);
+        GoogleSheetsService service = service(outbox, Duration.ofMinutes(1));
+        for (int i = 1; i <= 3; i++) {
+            service.addProjectToSheets(card(String.valueOf(i)));
+        }
+        rejectedId = "2";
+
+        // Пачка отвергнута целиком, затем записи отправляются по одной: 1 и 3 доходят, 2 уходит в dead-letter
+        assertThat(service.flushOutbox()).isEqualTo(2);
+        assertThat(requests).extracting(request -> request.path("rows").size()).containsExactly(3, 1, 1, 1);
+        assertThat(outbox.size()).isZero();
+        try (Stream<Path> deadLetter = Files.list(outbox.deadLetterDirectory())) {
+            assertThat(deadLetter).hasSize(1);
+        }
+        assertThat(meterRegistry.get("sheets.outbox.dead_lettered").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("sheets.outbox.delivered").counter().count()).isEqualTo(2);
+
+        // Без паузы: отказ - это ответ webhook, а не сбой доставки
+        service.addProjectToSheets(card("4"));
+        assertThat(service.flushOutbox()).isEqualTo(1);
+    }
+
+    private GoogleSheetsService service(SheetsOutbox outbox, Duration backoff) {
+        return service(outbox, backoff, 10);
+    }
+
+    private GoogleSheetsService service(SheetsOutbox outbox, Duration backoff, int batchSize) {
+        return new GoogleSheetsService(outbox, webhookUrl, batchSize, backoff, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    private static ProjectCard card(String id) {
+        ProjectCard card = new ProjectCard();
+        card.setId(id);
+        card.setTitle("Объект " + id);
+        return card;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.benchmark.LegacyCellParsers;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Потоковый разбор показателей должен давать то же, что прежний ObjectMapper + чистка регулярками:
+ * тот же Map при успехе и ошибку там, где раньше была ошибка.
+ */
+class IndicatorsJsonParserTest {
+    private static final Object FAILED = "<ошибка>";
+
+    private static final List<String> SAMPLES = List.of(
+            "[{\"indicator_name\": \"Площадь\", \"sections\": [{\"number\": \"1\", \"amount\": \"320,89\"},], \"total\": \"890,94\"},]",
+            "[{\"indicator_name\": \"Паркинг\", \"sections\": [{\"number\": \"1\", \"amount\": \"- }]}]",
+            "[{\"total\": \"1\", \"indicator_name\": \"Итог раньше секций\", \"sections\": [{\"number\": \"total\", \"amount\": \"2\"}]}]",
+            "[{\"indicator_name\": \"Без total\", \"sections\": [{\"number\": \"1\"}, {\"amount\": \"2\"}, {\"number\": null, \"amount\": \"3\"}]}]",
+            "[{\"indicator_name\": \"Без секций\", \"sections\": null, \"total\": null}]",
+            "[{\"indicator_name\": \"Дубль\", \"total\": \"1\"}, {\"indicator_name\": \"Дубль\", \"total\": \"2\"}]",
+            "[{\"indicator_name\": null, \"sections\": {\"не\": \"массив\"}}, {\"indicator_name\": \"A\", \"extra\": [1, {\"x\": 2}]}]",
+            "[{\"indicator_name\": \"Число\", \"sections\": [{\"number\": 1, \"amount\": \"2\"}]}]",
+            "[{\"indicator_name\": \"Объект\", \"sections\": {\"number\": \"1\"}}]",
+            "[{\"indicator_name\": \"Итог числом\", \"total\": 5}]",
+            "[{\"indicator_name\": 5}]",
+            "[{\"indicator_name\": \"Null-секция\", \"sections\": [null]}]",
+            "[1, 2]",
+            "[]",
+            "  [ ]  ",
+            "[,]",
+            "{\"Площадь\": {\"Секция 1\": \"100\", \"total\": \"100\",},}",
+            "{\"Площадь\": {\"Секция 1\": 100, \"Секция 2\": 1.50, \"флаг\": true, \"пусто\": null}}",
+            "{\"Площадь\": null}",
+            "{\"Площадь\": \"строка\"}",
+            "{\"Площадь\": {\"вложенный\": {\"x\": \"y\"}}}",
+            "{}",
+            "null",
+            "\"строка\"",
+            "не json",
+            "[{\"indicator_name\": \"Обрыв\"");
+
+    @Test
+    void matchesLegacyParserOnSamples() {
+        for (String sample : SAMPLES) {
+            assertSame(sample);
+        }
+    }
+
+    @Test
+    void matchesLegacyParserOnRandomIndicators() {
+        Random random = new Random(7);
+        for (int round = 0; round < 5_000; round++) {
+            assertSame(randomCell(random));
+        }
+    }
+
+    @Test
+    void keepsSheetOrderOfIndicatorsAndSections() throws Exception {
+        Map<String, Map<String, String>> result = IndicatorsJsonParser.parse(
+                "[{\"indicator_name\": \"Б\", \"sections\": [{\"number\": \"2\", \"amount\": \"x\"}, {\"number\": \"1\", \"amount\": \"y\"}], \"total\": \"z\"},"
+                        + " {\"indicator_name\": \"А\"}]");
+
+        assertThat(result.keySet()).containsExactly("Б", "А");
+        assertThat(result.get("Б").keySet()).containsExactly("2", "1", "total");
+    }
+
+    private static void assertSame(String data) {
+        assertThat(outcome(() -> IndicatorsJsonParser.parse(data))).as(data)
+                .isEqualTo(outcome(() -> LegacyCellParsers.parseIndicators(data)));
+    }
+
+    private interface Parse {
+        Map<String, Map<String, String>> run() throws Exception;
+    }
+
+    private static Object outcome(Parse parse) {
+        try {
+            Map<String, Map<String, String>> result = parse.run();
+            return result == null ? "<null>" : result;
+        } catch (Exception e) {
+            return FAILED;
+        }
+    }
+
+    private static String randomCell(Random random) {
+        StringBuilder sb = new StringBuilder("[");
+        int indicators = random.nextInt(4);
+        for (int i = 0; i < indicators; i++) {
+            sb.append("{");
+            if (random.nextInt(10) > 0) {
+                sb.append("\"indicator_name\": ").append(randomValue(random, "П" + random.nextInt(3))).append(", ");
+            }
+            if (random.nextInt(5) > 0) {
+                sb.append("\"sections\": [");
+                int sections = random.nextInt(4);
+                for (int s = 0; s < sections; s++) {
+                    sb.append("{\"number\": ").append(randomValue(random, String.valueOf(random.nextInt(3))));
+                    if (random.nextInt(8) == 0) {
+                        // Недописанное значение прямо из таблицы
+                        sb.append(", \"amount\": \"- }");
+                        continue;
+                    }
+                    sb.append(", \"amount\": ").append(randomValue(random, random.nextInt(1000) + ",5"));
+                    sb.append(random.nextBoolean() ? "}" : " ,}");
+                    sb.append(s + 1 < sections || random.nextBoolean() ? ", " : "");
+                }
+                sb.append("], ");
+            }
+            if (random.nextBoolean()) {
+                sb.append("\"total\": ").append(randomValue(random, "итого")).append(random.nextBoolean() ? "," : "");
+            }
+            sb.append("}");
+            sb.append(i + 1 < indicators || random.nextBoolean() ? ",\n" : "");
+        }
+        return sb.append("]").toString();
+    }
+
+    private static String randomValue(Random random, String text) {
+        return switch (random.nextInt(12)) {
+            case 0 -> "null";
+            case 1 -> String.valueOf(random.nextInt(10));
+            default -> "\"" + text + "\"";
+        };
+    }
+}
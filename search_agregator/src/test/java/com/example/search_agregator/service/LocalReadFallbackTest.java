@@ -0,0 +1,130 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import com.example.search_agregator.repository.ProjectCardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocalReadFallbackTest {
+    private final ProjectCardRepository repository = mock(ProjectCardRepository.class);
+    private final LocalReadFallback fallback = new LocalReadFallback(repository, 500);
+    private final ProjectSearchService service =
+            new ProjectSearchService(repository, Optional.of(fallback), new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+
+    @AfterEach
+    void close() throws Exception {
+        fallback.close();
+    }
+
+    @Test
+    void clusterOutageIsServedFromLastSync() {
+        mirror(card("35", "г.Киров, ЖК Знак, МЖД №35"));
+        fallback.sync();
+        DataAccessResourceFailureException outage =
+                new DataAccessResourceFailureException("Connection refused", new ConnectException("Connection refused"));
+        when(repository.searchPage("знак", ProjectFilter.NONE, 20, null)).thenThrow(outage);
+        when(repository.findById("35")).thenThrow(outage);
+
+        CursorPage<ProjectCard> page = service.search("Знак", ProjectFilter.NONE, 20, null);
+        assertThat(page.getItems()).extracting(ProjectCard::getId).containsExactly("35");
+        assertThat(service.findById("35")).isPresent();
+
+        // Ответ из копии не кэшируется: следующий запрос снова идёт в кластер
+        service.search("Знак", ProjectFilter.NONE, 20, null);
+        verify(repository, times(2)).searchPage("знак", ProjectFilter.NONE, 20, null);
+    }
+
+    @Test
+    void failedSyncKeepsPreviousCopy() {
+        mirror(card("1", "Школа"));
+        fallback.sync();
+        doAnswer(invocation -> {
+            throw new DataAccessResourceFailureException("Connection refused");
+        }).when(repository).forEachCard(anyInt(), any());
+
+        fallback.sync();
+
+        assertThat(fallback.isReady()).isTrue();
+        assertThat(fallback.findById("1")).isPresent();
+    }
+
+    @Test
+    void pointChangesAreAppliedWithoutRescan() {
+        mirror(card("1", "Школа"), card("2", "Детский сад"));
+        fallback.sync();
+
+        fallback.apply(ProjectIndexChangedEvent.saved("create 3", List.of(card("3", "Поликлиника"))));
+        fallback.apply(ProjectIndexChangedEvent.deleted("delete 1", List.of("1")));
+
+        assertThat(fallback.findById("3")).isPresent();
+        assertThat(fallback.findById("1")).isEmpty();
+        assertThat(fallback.searchPage("поликлиника", ProjectFilter.NONE, 20, null).getItems())
+                .extracting(ProjectCard::getId).containsExactly("3");
+        verify(repository, times(1)).forEachCard(anyInt(), any());
+    }
+
+    @Test
+    void syncFailingMidStreamRestoresPreviousCopy() {
+        mirror(card("1", "Школа"));
+        fallback.sync();
+        doAnswer(invocation -> {
+            Consumer<ProjectCard> consumer = invocation.getArgument(1);
+            consumer.accept(card("2", "Детский сад"));
+            throw new DataAccessResourceFailureException("Connection reset");
+        }).when(repository).forEachCard(anyInt(), any());
+
+        fallback.sync();
+
+        assertThat(fallback.findById("1")).isPresent();
+        assertThat(fallback.findById("2")).isEmpty();
+        assertThat(fallback.searchPage("школа", ProjectFilter.NONE, 20, null).getItems())
+                .extracting(ProjectCard::getId).containsExactly("1");
+        assertThat(fallback.searchPage("сад", ProjectFilter.NONE, 20, null).getItems()).isEmpty();
+    }
+
+    @Test
+    void otherErrorsAndMissingCopyAreNotMasked() {
+        when(repository.searchPage("школа", ProjectFilter.NONE, 20, "bad")).thenThrow(new IllegalArgumentException("Некорректный курсор"));
+        when(repository.searchPage("школа", ProjectFilter.NONE, 20, null)).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        assertThatThrownBy(() -> service.search("школа", ProjectFilter.NONE, 20, "bad")).isInstanceOf(IllegalArgumentException.class);
+        // До первой синхронизации отвечать нечем
+        assertThatThrownBy(() -> service.search("школа", ProjectFilter.NONE, 20, null)).isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mirror(ProjectCard... cards) {
+        doAnswer(invocation -> {
+            Consumer<ProjectCard> consumer = invocation.getArgument(1);
+            List.of(cards).forEach(consumer);
+            return null;
+        }).when(repository).forEachCard(anyInt(), any(Consumer.class));
+    }
+
+    private static ProjectCard card(String id, String title) {
+        ProjectCard card = new ProjectCard();
+        card.setId(id);
+        card.setTitle(title);
+        return card;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.IndicatorValue;
+import com.example.search_agregator.model.ProjectCard;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.index.MappingBuilder;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Маппинг, с которым {@link ProjectIndexManager} создаёт версионные индексы.
+ */
+class ProjectCardMappingTest {
+
+    @Test
+    void suggestSubfieldsAreSearchAsYouType() throws Exception {
+        JsonNode properties = properties();
+
+        assertThat(properties.at("/title/type").asText()).isEqualTo("text");
+        assertThat(properties.at("/title/analyzer").asText()).isEqualTo("russian");
+        assertThat(properties.at("/title/fields/suggest/type").asText()).isEqualTo("search_as_you_type");
+        assertThat(properties.at("/address/fields/suggest/type").asText()).isEqualTo("search_as_you_type");
+        assertThat(properties.at("/status/fields/keyword/type").asText()).isEqualTo("keyword");
+        assertThat(properties.at("/responsiblePersons/type").asText()).isEqualTo("nested");
+        assertThat(properties.at("/responsiblePersons/properties/fio/fields/suggest/type").asText())
+                .isEqualTo("search_as_you_type");
+    }
+
+    @Test
+    void indicatorsAreNestedEntriesWithFixedMapping() throws Exception {
+        JsonNode properties = properties();
+
+        assertThat(properties.has("indicators")).isFalse();
+        assertThat(properties.at("/indicatorValues/type").asText()).isEqualTo("nested");
+        assertThat(properties.at("/indicatorValues/properties/name/type").asText()).isEqualTo("keyword");
+        assertThat(properties.at("/indicatorValues/properties/section/type").asText()).isEqualTo("keyword");
+        assertThat(properties.at("/indicatorValues/properties/value/index").asBoolean(true)).isFalse();
+        assertThat(properties.at("/indicatorValues/properties/numericValue/type").asText()).isEqualTo("double");
+    }
+
+    @Test
+    void indicatorsKeepTheirMapShapeInApi() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        ProjectCard card = mapper.readValue("""
+                {"id": "1", "indicators": {"Площадь застройки, м2": {"Секция №1": "14363,50", "total": "28 728"},
+                                           "Этажность": {}}}""", ProjectCard.class);
+
+        assertThat(card.getIndicatorValues()).containsExactly(
+                new IndicatorValue("Площадь застройки, м2", "Секция №1", "14363,50", 14363.5),
+                new IndicatorValue("Площадь застройки, м2", "total", "28 728", 28728.0),
+                new IndicatorValue("Этажность", null, null, null));
+        JsonNode json = mapper.valueToTree(card);
+        assertThat(json.has("indicatorValues")).isFalse();
+        assertThat(json.at("/indicators").toString())
+                .isEqualTo("{\"Площадь застройки, м2\":{\"Секция №1\":\"14363,50\",\"total\":\"28 728\"},\"Этажность\":{}}");
+    }
+
+    @Test
+    void indicatorNumbersAcceptSheetNotation() {
+        assertThat(IndicatorValue.parseNumber("14363,50")).isEqualTo(14363.5);
+        assertThat(IndicatorValue.parseNumber("1\u00a0250")).isEqualTo(1250.0);
+        assertThat(IndicatorValue.parseNumber(" -3.5 ")).isEqualTo(-3.5);
+        assertThat(IndicatorValue.parseNumber("-")).isNull();
+        assertThat(IndicatorValue.parseNumber("нет данных")).isNull();
+        assertThat(IndicatorValue.parseNumber("NaN")).isNull();
+        assertThat(IndicatorValue.parseNumber("")).isNull();
+    }
+
+    private static JsonNode properties() throws Exception {
+        SimpleElasticsearchMappingContext context = new SimpleElasticsearchMappingContext();
+        context.setInitialEntitySet(Set.of(ProjectCard.class));
+        context.afterPropertiesSet();
+        String mapping = new MappingBuilder(new MappingElasticsearchConverter(context)).buildPropertyMapping(ProjectCard.class);
+        return new ObjectMapper().readTree(mapping).get("properties");
+    }
+}
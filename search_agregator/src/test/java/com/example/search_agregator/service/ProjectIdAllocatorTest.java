@@ -0,0 +1,98 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.repository.ProjectCardRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProjectIdAllocatorTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void seedsOnceFromIndexMaximum() {
+        ProjectCardRepository repository = mock(ProjectCardRepository.class);
+        when(repository.findMaxNumericId()).thenReturn(41L);
+        ProjectIdAllocator allocator = new ProjectIdAllocator(repository, tempDir.resolve("seed"), 10);
+
+        assertThat(allocator.nextId()).isEqualTo("42");
+        assertThat(allocator.nextId()).isEqualTo("43");
+        verify(repository, times(1)).findMaxNumericId();
+    }
+
+    @Test
+    void blockOfIdsContinuesSequenceAndSurvivesRestart() {
+        Path seed = tempDir.resolve("seed");
+        ProjectCardRepository repository = mock(ProjectCardRepository.class);
+        when(repository.findMaxNumericId()).thenReturn(10L);
+        ProjectIdAllocator allocator = new ProjectIdAllocator(repository, seed, 5);
+
+        assertThat(allocator.nextIds(3)).containsExactly("11", "12", "13");
+        assertThat(allocator.nextIds(0)).isEmpty();
+        // Блок больше block-size: граница в файле сдвигается за весь блок сразу
+        assertThat(allocator.nextIds(20)).hasSize(20).startsWith("14").endsWith("33");
+        assertThat(allocator.nextId()).isEqualTo("34");
+
+        ProjectIdAllocator restarted = new ProjectIdAllocator(repository, seed, 5);
+        assertThat(Long.parseLong(restarted.nextId())).isGreaterThan(34);
+    }
+
+    @Test
+    void concurrentAllocationsNeverRepeat() throws Exception {
+        ProjectCardRepository repository = mock(ProjectCardRepository.class);
+        ProjectIdAllocator allocator = new ProjectIdAllocator(repository, tempDir.resolve("seed"), 7);
+
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        List<Callable<Void>> tasks = IntStream.range(0, 5_000)
+                .<Callable<Void>>mapToObj(i -> () -> {
+                    ids.add(allocator.nextId());
+                    return null;
+                })
+                .toList();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            executor.invokeAll(tasks);
+        }
+
+        assertThat(ids).hasSize(5_000);
+    }
+
+    @Test
+    void continuesAfterRestartEvenIfIndexLagsBehind() {
+        Path seed = tempDir.resolve("data/project-id.seed");
+        ProjectCardRepository repository = mock(ProjectCardRepository.class);
+        when(repository.findMaxNumericId()).thenReturn(5L);
+
+        ProjectIdAllocator before = new ProjectIdAllocator(repository, seed, 100);
+        assertThat(before.nextId()).isEqualTo("6");
+
+        // Карточка 6 в индекс не попала, максимум там по-прежнему 5
+        ProjectIdAllocator after = new ProjectIdAllocator(repository, seed, 100);
+        assertThat(Long.parseLong(after.nextId())).isGreaterThan(6);
+    }
+
+    @Test
+    void observedIdsMoveCounterForward() {
+        ProjectCardRepository repository = mock(ProjectCardRepository.class);
+        ProjectIdAllocator allocator = new ProjectIdAllocator(repository, tempDir.resolve("seed"), 10);
+
+        allocator.observe("120");
+        allocator.observe("A-17");
+        allocator.observe("15");
+
+        assertThat(allocator.nextId()).isEqualTo("121");
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.search_agregator.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch.indices.DeleteIndexRequest;
+import co.elastic.clients.elasticsearch.indices.ElasticsearchIndicesClient;
+import co.elastic.clients.elasticsearch.indices.ExistsAliasRequest;
+import co.elastic.clients.elasticsearch.indices.ExistsRequest;
+import co.elastic.clients.elasticsearch.indices.GetAliasRequest;
+import co.elastic.clients.elasticsearch.indices.GetAliasResponse;
+import co.elastic.clients.elasticsearch.indices.GetIndexRequest;
+import co.elastic.clients.elasticsearch.indices.GetIndexResponse;
+import co.elastic.clients.elasticsearch.indices.GetMappingRequest;
+import co.elastic.clients.elasticsearch.indices.GetMappingResponse;
+import co.elastic.clients.elasticsearch.indices.IndexState;
+import co.elastic.clients.elasticsearch.indices.UpdateAliasesRequest;
+import co.elastic.clients.elasticsearch.indices.get_alias.IndexAliases;
+import co.elastic.clients.elasticsearch.indices.get_mapping.IndexMappingRecord;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.transport.endpoints.BooleanResponse;
+import com.example.search_agregator.model.ProjectCard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Версионные индексы и алиас на моке клиента: проверяется, какие запросы уходят в кластер.
+ */
+class ProjectIndexManagerTest {
+    private static final String ALIAS = "project_cards";
+
+    private final ElasticsearchOperations operations = mock(ElasticsearchOperations.class);
+    private final ElasticsearchClient client = mock(ElasticsearchClient.class);
+    // Перегрузки с лямбдой-билдером собирают запрос настоящим кодом клиента, запросы-объекты - в мок
+    private final ElasticsearchIndicesClient indices = mock(ElasticsearchIndicesClient.class, ProjectIndexManagerTest::buildRequest);
+    private ProjectIndexManager manager;
+
+    @BeforeEach
+    void setUp() {
+        when(operations.getIndexCoordinatesFor(ProjectCard.class)).thenReturn(IndexCoordinates.of(ALIAS));
+        when(client.indices()).thenReturn(indices);
+        manager = new ProjectIndexManager(operations, client, 1, "1s");
+    }
+
+    @Test
+    void versionedIndexIsCreatedWithMappingVersionAndLoadSettings() {
+        IndexOperations cardOps = mock(IndexOperations.class);
+        IndexOperations newIndexOps = mock(IndexOperations.class);
+        when(operations.indexOps(ProjectCard.class)).thenReturn(cardOps);
+        when(cardOps.createMapping()).thenReturn(Document.create());
+        when(operations.indexOps(any(IndexCoordinates.class))).thenReturn(newIndexOps);
+
+        String index = manager.createVersionedIndex();
+
+        assertThat(index).matches(ALIAS + "_v\\d{17}");
+        ArgumentCaptor<Map<String, Object>> settings = ArgumentCaptor.captor();
+        ArgumentCaptor<Document> mapping = ArgumentCaptor.forClass(Document.class);
+        verify(newIndexOps).create(settings.capture(), mapping.capture());
+        assertThat(settings.getValue()).isEqualTo(Map.of("index", Map.of("number_of_replicas", 0, "refresh_interval", "-1")));
+        assertThat(mapping.getValue().get("_meta")).isEqualTo(Map.of("mapping_version", ProjectIndexManager.MAPPING_VERSION));
+    }
+
+    @Test
+    void indexIsCurrentOnlyWithAliasAndCurrentMappingVersion() throws IOException {
+        when(indices.existsAlias(any(ExistsAliasRequest.class))).thenReturn(new BooleanResponse(false));
+        assertThat(manager.isIndexCurrent()).isFalse();
+
+        when(indices.existsAlias(any(ExistsAliasRequest.class))).thenReturn(new BooleanResponse(true));
+        when(indices.getMapping(any(GetMappingRequest.class))).thenReturn(mappingVersion(ProjectIndexManager.MAPPING_VERSION - 1));
+        assertThat(manager.isIndexCurrent()).isFalse();
+
+        when(indices.getMapping(any(GetMappingRequest.class))).thenReturn(mappingVersion(ProjectIndexManager.MAPPING_VERSION));
+        assertThat(manager.isIndexCurrent()).isTrue();
+    }
+
+    @Test
+    void publishSwapsAliasInOneRequestAndDeletesPreviousVersions() throws IOException {
+        when(indices.existsAlias(any(ExistsAliasRequest.class))).thenReturn(new BooleanResponse(true));
+        when(indices.getAlias(any(GetAliasRequest.class))).thenReturn(GetAliasResponse.of(r -> r
+                .result(ALIAS + "_v1", IndexAliases.of(a -> a.aliases(Map.of())))));
+        when(indices.get(any(GetIndexRequest.class))).thenReturn(GetIndexResponse.of(r -> r
+                .result(ALIAS + "_v1", IndexState.of(s -> s))
+                .result(ALIAS + "_v2", IndexState.of(s -> s))));
+
+        manager.publish(ALIAS + "_v2");
+
+        List<Action> actions = capturedAliasActions();
+        assertThat(actions).hasSize(2);
+        assertThat(actions.get(0).remove().index()).isEqualTo(ALIAS + "_v1");
+        assertThat(actions.get(1).add().index()).isEqualTo(ALIAS + "_v2");
+        assertThat(actions.get(1).add().alias()).isEqualTo(ALIAS);
+        ArgumentCaptor<DeleteIndexRequest> deleted = ArgumentCaptor.forClass(DeleteIndexRequest.class);
+        verify(indices).delete(deleted.capture());
+        assertThat(deleted.getValue().index()).containsExactly(ALIAS + "_v1");
+    }
+
+    @Test
+    void publishReplacesLegacyIndexNamedLikeAlias() throws IOException {
+        when(indices.existsAlias(any(ExistsAliasRequest.class))).thenReturn(new BooleanResponse(false));
+        when(indices.exists(any(ExistsRequest.class))).thenReturn(new BooleanResponse(true));
+        when(indices.get(any(GetIndexRequest.class))).thenReturn(GetIndexResponse.of(r -> r
+                .result(ALIAS + "_v1", IndexState.of(s -> s))));
+
+        manager.publish(ALIAS + "_v1");
+
+        List<Action> actions = capturedAliasActions();
+        assertThat(actions).hasSize(2);
+        assertThat(actions.get(0).removeIndex().index()).isEqualTo(ALIAS);
+        assertThat(actions.get(1).add().index()).isEqualTo(ALIAS + "_v1");
+        verify(indices, never()).delete(any(DeleteIndexRequest.class));
+    }
+
+    @Test
+    void discardDeletesIndexAndSwallowsErrors() throws IOException {
+        when(indices.delete(any(DeleteIndexRequest.class))).thenThrow(new IOException("Connection refused"));
+
+        manager.discard(ALIAS + "_v3");
+
+        ArgumentCaptor<DeleteIndexRequest> deleted = ArgumentCaptor.forClass(DeleteIndexRequest.class);
+        verify(indices).delete(deleted.capture());
+        assertThat(deleted.getValue().index()).containsExactly(ALIAS + "_v3");
+    }
+
+    private List<Action> capturedAliasActions() throws IOException {
+        ArgumentCaptor<UpdateAliasesRequest> request = ArgumentCaptor.forClass(UpdateAliasesRequest.class);
+        verify(indices).updateAliases(request.capture());
+        return request.getValue().actions();
+    }
+
+    private static GetMappingResponse mappingVersion(int version) {
+        return GetMappingResponse.of(r -> r.result(ALIAS + "_v1", IndexMappingRecord.of(m -> m
+                .mappings(TypeMapping.of(t -> t.meta("mapping_version", JsonData.of(version)))))));
+    }
+
+    private static Object buildRequest(InvocationOnMock invocation) throws Throwable {
+        if (invocation.getArguments().length == 1 && invocation.getArgument(0) instanceof Function<?, ?>) {
+            return invocation.callRealMethod();
+        }
+        return RETURNS_DEFAULTS.answer(invocation);
+    }
+}
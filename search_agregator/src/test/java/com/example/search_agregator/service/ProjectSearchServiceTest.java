@@ -0,0 +1,210 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.model.CursorPage;
+import com.example.search_agregator.model.ProjectCard;
+import com.example.search_agregator.model.ProjectFilter;
+import com.example.search_agregator.model.ProjectSuggestion;
+import com.example.search_agregator.model.SuggestionResult;
+import com.example.search_agregator.repository.ProjectCardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProjectSearchServiceTest {
+    private final ProjectCardRepository repository = mock(ProjectCardRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProjectSearchService service =
+            new ProjectSearchService(repository, Optional.empty(), meterRegistry, 100, Duration.ofMinutes(5));
+
+    @Test
+    void equivalentQueriesShareCacheEntry() {
+        when(repository.searchPage("киров знак", ProjectFilter.NONE, 20, null)).thenReturn(CursorPage.empty());
+
+        service.search("Киров  Знак", ProjectFilter.NONE, 20, null);
+        service.search("  киров знак ", ProjectFilter.NONE, 20, null);
+
+        verify(repository, times(1)).searchPage("киров знак", ProjectFilter.NONE, 20, null);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "search").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "search").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void cursorAndSizeArePartOfKey() {
+        when(repository.searchPage("киров", ProjectFilter.NONE, 20, null)).thenReturn(CursorPage.empty());
+        when(repository.searchPage("киров", ProjectFilter.NONE, 20, "abc")).thenReturn(CursorPage.empty());
+        when(repository.searchPage("киров", ProjectFilter.NONE, 50, null)).thenReturn(CursorPage.empty());
+
+        service.search("киров", ProjectFilter.NONE, 20, null);
+        service.search("киров", ProjectFilter.NONE, 20, "abc");
+        service.search("киров", ProjectFilter.NONE, 50, null);
+
+        verify(repository).searchPage("киров", ProjectFilter.NONE, 20, null);
+        verify(repository).searchPage("киров", ProjectFilter.NONE, 20, "abc");
+        verify(repository).searchPage("киров", ProjectFilter.NONE, 50, null);
+    }
+
+    @Test
+    void filtersArePartOfKey() {
+        ProjectFilter inProgress = new ProjectFilter(List.of("В процессе"), null, null, null);
+        when(repository.searchPage(null, inProgress, 20, null)).thenReturn(CursorPage.empty());
+        when(repository.searchPage("киров", inProgress, 20, null)).thenReturn(CursorPage.empty());
+
+        service.search(null, inProgress, 20, null);
+        service.search(null, new ProjectFilter(List.of(" В процессе "), null, null, " "), 20, null);
+        service.search("киров", inProgress, 20, null);
+
+        verify(repository, times(1)).searchPage(null, inProgress, 20, null);
+        verify(repository, times(1)).searchPage("киров", inProgress, 20, null);
+    }
+
+    @Test
+    void summariesAreCachedSeparatelyFromFullPages() {
+        when(repository.searchPage("киров", ProjectFilter.NONE, 20, null)).thenReturn(CursorPage.empty());
+        when(repository.searchSummaryPage("киров", ProjectFilter.NONE, 20, null)).thenReturn(CursorPage.empty());
+
+        service.search("киров", ProjectFilter.NONE, 20, null);
+        service.searchSummaries("киров", ProjectFilter.NONE, 20, null);
+        service.searchSummaries("Киров", ProjectFilter.NONE, 20, null);
+
+        verify(repository, times(1)).searchPage("киров", ProjectFilter.NONE, 20, null);
+        verify(repository, times(1)).searchSummaryPage("киров", ProjectFilter.NONE, 20, null);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "summary").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void backendCallsAreTimedOnlyOnCacheMiss() {
+        when(repository.searchPage("киров", ProjectFilter.NONE, 20, null)).thenReturn(CursorPage.empty());
+        when(repository.findById("404")).thenThrow(new IllegalStateException("boom"));
+
+        service.search("киров", ProjectFilter.NONE, 20, null);
+        service.search("киров", ProjectFilter.NONE, 20, null);
+        assertThatThrownBy(() -> service.findById("404")).isInstanceOf(IllegalStateException.class);
+
+        assertThat(meterRegistry.get("search.backend").tags("operation", "search", "outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("search.backend").tags("operation", "get", "outcome", "error").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void indexChangeInvalidatesCache() {
+        when(repository.searchPage("киров", ProjectFilter.NONE, 20, null)).thenReturn(CursorPage.empty());
+
+        service.search("киров", ProjectFilter.NONE, 20, null);
+        service.onIndexChanged(new ProjectIndexChangedEvent("create 1"));
+        service.search("киров", ProjectFilter.NONE, 20, null);
+
+        verify(repository, times(2)).searchPage("киров", ProjectFilter.NONE, 20, null);
+    }
+
+    @Test
+    void suggestionsAreCachedUntilIndexChanges() {
+        List<ProjectSuggestion> suggestions = List.of(new ProjectSuggestion("35", "г.Киров, ЖК Знак", "ул. Ленина, 1", null));
+        when(repository.suggest("жк зн", 8)).thenReturn(SuggestionResult.complete(suggestions));
+
+        assertThat(service.suggest("ЖК  Зн", 8)).isEqualTo(suggestions);
+        assertThat(service.suggest("жк зн", 8)).isEqualTo(suggestions);
+        verify(repository, times(1)).suggest("жк зн", 8);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "suggest").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+
+        service.onIndexChanged(new ProjectIndexChangedEvent("delete 35"));
+        service.suggest("жк зн", 8);
+        verify(repository, times(2)).suggest("жк зн", 8);
+    }
+
+    @Test
+    void timedOutSuggestionsAreReturnedButNotCached() {
+        List<ProjectSuggestion> partial = List.of(new ProjectSuggestion("35", "г.Киров, ЖК Знак", "ул. Ленина, 1", null));
+        when(repository.suggest("жк", 8)).thenReturn(new SuggestionResult(partial, true));
+
+        assertThat(service.suggest("жк", 8)).isEqualTo(partial);
+        service.suggest("жк", 8);
+
+        verify(repository, times(2)).suggest("жк", 8);
+        assertThat(meterRegistry.get("search.suggest.timed_out").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentIdenticalMissesShareOneBackendCall() throws Exception {
+        int callers = 16;
+        CountDownLatch release = new CountDownLatch(1);
+        CursorPage<ProjectCard> page = CursorPage.empty();
+        when(repository.searchPage("киров", ProjectFilter.NONE, 20, null)).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return page;
+        });
+
+        List<Future<CursorPage<ProjectCard>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                String query = i % 2 == 0 ? "Киров" : " киров ";
+                results.add(executor.submit(() -> service.search(query, ProjectFilter.NONE, 20, null)));
+            }
+            // Первый вызов держит репозиторий, пока все остальные не встанут в ожидание его ответа
+            Counter coalesced = meterRegistry.get("search.coalesced").tag("operation", "search").counter();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (coalesced.count() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<CursorPage<ProjectCard>> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(page);
+            }
+        }
+
+        verify(repository, times(1)).searchPage("киров", ProjectFilter.NONE, 20, null);
+        assertThat(meterRegistry.get("search.coalesced").tag("operation", "search").counter().count()).isEqualTo(callers - 1);
+        assertThat(meterRegistry.get("search.backend").tags("operation", "search", "outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void waitersReceiveErrorOfSharedCall() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.suggest("жк", 8)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            throw new IllegalStateException("boom");
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<ProjectSuggestion>> leader = executor.submit(() -> service.suggest("жк", 8));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<List<ProjectSuggestion>> waiter = executor.submit(() -> service.suggest("ЖК", 8));
+            Counter coalesced = meterRegistry.get("search.coalesced").tag("operation", "suggest").counter();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (coalesced.count() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThatThrownBy(leader::get).hasRootCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(waiter::get).hasRootCauseInstanceOf(IllegalStateException.class);
+        }
+        verify(repository, times(1)).suggest("жк", 8);
+
+        // Ошибка не кэшируется: следующий запрос снова идёт в репозиторий
+        assertThatThrownBy(() -> service.suggest("жк", 8)).isInstanceOf(IllegalStateException.class);
+        verify(repository, times(2)).suggest("жк", 8);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.search_agregator.service;
+
+import com.example.search_agregator.benchmark.LegacyCellParsers;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Разбор дат без исключений должен давать то же, что прежний перебор DateTimeFormatter.
+ */
+class SheetDateParserTest {
+    private static final List<String> FIXTURES = List.of(
+            // Формы из таблиц
+            "3/15/2024", "12/1/2023", "03/15/2024", "15/3/2024", "15/03/2024", "31/12/2023", "2024-03-15",
+            "1/2/2024", "01/02/2024", "12/12/2024",
+            // Прижатие дня к длине месяца, как у ResolverStyle.SMART
+            "2/30/2024", "30/02/2024", "2/29/2023", "4/31/2024", "31/04/2024", "2024-02-30", "2024-04-31",
+            "2/29/1900", "2/29/2000",
+            // Недопустимые значения
+            "13/13/2024", "0/1/2024", "1/0/2024", "32/1/2024", "1/32/2024", "2024-13-01", "2024-00-10", "2024-01-00",
+            "2024-01-32", "0000-01-01", "1/1/0000",
+            // Ширина полей
+            "005/06/2024", "0000000000000000005/6/2024", "00000000000000000005/6/2024", "99999999999999999999/1/2024",
+            "9223372036854775807/1/2024", "9223372036854775808/1/2024", "1/1/24", "1/1/20245", "1/1/+20245",
+            "1/1/+2024", "1/1/-2024", "1/1/+999999999", "1/1/+1000000000", "+12024-01-01", "+2024-01-01",
+            "-2024-01-01", "2024-1-01", "2024-01-1", "2024-001-01", "20245-01-01", "24-01-01",
+            // Знаки, пробелы и мусор
+            "+1/1/2024", "-1/1/2024", "1/-1/2024", "1 /1/2024", "1/1/2024 ", "1/1/2024/", "1//2024", "//",
+            "/1/2024", "1/1/", "2024/01/15", "15.03.2024", "2024-03-15T00:00", "март 2024", "-", "/", "", "٣/١/٢٠٢٤");
+
+    @Test
+    void matchesLegacyParserOnFixtures() {
+        for (String fixture : FIXTURES) {
+            assertSame(fixture);
+        }
+    }
+
+    @Test
+    void clampsDayLikeSmartResolver() {
+        assertThat(SheetDateParser.parse("2024-02-30")).isEqualTo(LocalDate.of(2024, 2, 29));
+        assertThat(SheetDateParser.parse("15/3/2024")).isEqualTo(LocalDate.of(2024, 3, 15));
+        assertThat(SheetDateParser.parse("3/4/2024")).isEqualTo(LocalDate.of(2024, 3, 4));
+    }
+
+    @Test
+    void matchesLegacyParserOnRandomInput() {
+        Random random = new Random(13);
+        char[] alphabet = {'0', '1', '2', '3', '9', '/', '/', '-', '+', ' '};
+        for (int round = 0; round < 20_000; round++) {
+            assertSame(randomDate(random));
+
+            StringBuilder noise = new StringBuilder();
+            for (int i = random.nextInt(14); i > 0; i--) {
+                noise.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertSame(noise.toString());
+        }
+    }
+
+    private static void assertSame(String text) {
+        assertThat(SheetDateParser.parse(text)).as(text).isEqualTo(LegacyCellParsers.parseDateString(text));
+    }
+
+    private static String randomDate(Random random) {
+        String year = random.nextInt(10) == 0 ? String.valueOf(random.nextInt(100_000)) : String.valueOf(1890 + random.nextInt(200));
+        int a = random.nextInt(35);
+        int b = random.nextInt(35);
+        return switch (random.nextInt(3)) {
+            case 0 -> a + "/" + b + "/" + year;
+            case 1 -> String.format("%02d/%02d/%s", a, b, year);
+            default -> String.format("%s-%02d-%02d", year, random.nextInt(14), b);
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.search_agregator.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpreadsheetDownloaderTest {
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private volatile byte[] content = "v1".getBytes(StandardCharsets.UTF_8);
+
+    @AfterEach
+    void stopStub() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void skipsDownloadOnNotModified() throws IOException {
+        String url = startStub(true);
+        SpreadsheetDownloader downloader = new SpreadsheetDownloader(tempDir.resolve("state.json"), Duration.ofSeconds(10));
+
+        SpreadsheetDownloader.Download first = commitFirst(downloader, url);
+        assertThat(Files.readString(first.file())).isEqualTo("v1");
+
+        assertThat(downloader.download(url, true)).isEmpty();
+        assertThat(ifNoneMatch).containsExactly("\"v1\"");
+
+        content = "v2".getBytes(StandardCharsets.UTF_8);
+        Optional<SpreadsheetDownloader.Download> changed = downloader.download(url, true);
+        assertThat(changed).isPresent();
+        assertThat(Files.readString(changed.get().file())).isEqualTo("v2");
+    }
+
+    @Test
+    void fallsBackToContentHashWithoutValidators() throws IOException {
+        String url = startStub(false);
+        SpreadsheetDownloader downloader = new SpreadsheetDownloader(tempDir.resolve("state.json"), Duration.ofSeconds(10));
+
+        commitFirst(downloader, url);
+        assertThat(downloader.download(url, true)).isEmpty();
+
+        content = "v2".getBytes(StandardCharsets.UTF_8);
+        assertThat(downloader.download(url, true)).isPresent();
+    }
+
+    @Test
+    void nothingIsSkippedUntilCommit() throws IOException {
+        String url = startStub(false);
+        SpreadsheetDownloader downloader = new SpreadsheetDownloader(tempDir.resolve("state.json"), Duration.ofSeconds(10));
+
+        // Загрузка в индекс упала - commit не вызван, следующая проверка снова отдаёт файл
+        assertThat(downloader.download(url, true)).isPresent();
+        assertThat(downloader.download(url, true)).isPresent();
+    }
+
+    @Test
+    void unconditionalDownloadIgnoresState() throws IOException {
+        String url = startStub(true);
+        SpreadsheetDownloader downloader = new SpreadsheetDownloader(tempDir.resolve("state.json"), Duration.ofSeconds(10));
+
+        commitFirst(downloader, url);
+        assertThat(downloader.download(url, false)).isPresent();
+    }
+
+    private SpreadsheetDownloader.Download commitFirst(SpreadsheetDownloader downloader, String url) throws IOException {
+        SpreadsheetDownloader.Download download = downloader.download(url, true).orElseThrow();
+        downloader.commit(download);
+        return download;
+    }
+
+    private String startStub(boolean withEtag) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/export", exchange -> {
+            byte[] body = content;
+            String etag = "\"" + new String(body, StandardCharsets.UTF_8) + "\"";
+            String requested = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (requested != null) {
+                ifNoneMatch.add(requested);
+            }
+            if (withEtag) {
+                exchange.getResponseHeaders().add("ETag", etag);
+                if (etag.equals(requested)) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/export";
+    }
+}
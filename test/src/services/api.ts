@@ -1,9 +1,12 @@
-import type { ApiProjectCard, ApiResponse, SearchParams, ApiError } from '../types/api';
+import type { ApiProjectCard, ApiCursorPage, ApiResponse, SearchParams, ApiError } from '../types/api';
 
 const API_BASE_URL = import.meta.env.DEV 
   ? '' // Используем прокси в dev режиме
   : ''; // В production используем относительные пути через nginx прокси
 
+// Максимальный размер страницы, который принимает бэкенд (search.page.max-size)
+const PAGE_SIZE = 100;
+
 class ApiClient {
   private baseUrl: string;
 
@@ -45,6 +48,34 @@ class ApiClient {
     }
   }
 
+  // Бэкенд отдаёт страницы с курсором; проходим по курсорам, пока не наберём maxItems
+  private async requestPages(
+    endpoint: string,
+    params: URLSearchParams,
+    maxItems: number
+  ): Promise<ApiResponse<ApiProjectCard[]>> {
+    const items: ApiProjectCard[] = [];
+    let cursor: string | null = null;
+
+    do {
+      const pageParams = new URLSearchParams(params);
+      pageParams.set('size', String(PAGE_SIZE));
+      if (cursor) {
+        pageParams.set('cursor', cursor);
+      }
+
+      const response = await this.request<ApiCursorPage<ApiProjectCard>>(`${endpoint}?${pageParams.toString()}`);
+      if (response.error) {
+        return { data: null as unknown as ApiProjectCard[], error: response.error };
+      }
+
+      items.push(...response.data.items);
+      cursor = response.data.nextCursor;
+    } while (cursor && items.length < maxItems);
+
+    return { data: items };
+  }
+
   // Health check
   async checkHealth(): Promise<ApiResponse<any>> {
     return this.request('/actuator/health');
@@ -53,9 +84,33 @@ class ApiClient {
   // Search projects
   async searchProjects(params: SearchParams): Promise<ApiResponse<ApiProjectCard[]>> {
     const searchParams = new URLSearchParams();
-    searchParams.append('q', params.q);
-    
-    return this.request(`/api/v1/projects/search?${searchParams.toString()}`);
+    if (params.q) {
+      searchParams.append('q', params.q);
+    }
+    params.status?.forEach(status => searchParams.append('status', status));
+    if (params.dateFrom) {
+      searchParams.append('dateFrom', params.dateFrom);
+    }
+    if (params.dateTo) {
+      searchParams.append('dateTo', params.dateTo);
+    }
+    if (params.person) {
+      searchParams.append('person', params.person);
+    }
+    if (params.indicator) {
+      searchParams.append('indicator', params.indicator);
+      if (params.indicatorSection) {
+        searchParams.append('indicatorSection', params.indicatorSection);
+      }
+      if (params.indicatorMin !== undefined) {
+        searchParams.append('indicatorMin', String(params.indicatorMin));
+      }
+      if (params.indicatorMax !== undefined) {
+        searchParams.append('indicatorMax', String(params.indicatorMax));
+      }
+    }
+
+    return this.requestPages('/api/v1/projects/search', searchParams, PAGE_SIZE);
   }
 
   // Search by specific criteria
@@ -63,21 +118,23 @@ class ApiClient {
     return this.searchProjects({ q: address });
   }
 
+  // Статус, ответственный и год - структурные фильтры, а не нечёткий текстовый поиск
   async searchByStatus(status: string): Promise<ApiResponse<ApiProjectCard[]>> {
-    return this.searchProjects({ q: status });
+    return this.searchProjects({ status: [status] });
   }
 
   async searchByPerson(personName: string): Promise<ApiResponse<ApiProjectCard[]>> {
-    return this.searchProjects({ q: personName });
+    return this.searchProjects({ person: personName });
   }
 
+  // Проекты, которые строятся в этом году (сроки пересекаются с годом)
   async searchByYear(year: string): Promise<ApiResponse<ApiProjectCard[]>> {
-    return this.searchProjects({ q: year });
+    return this.searchProjects({ dateFrom: `${year}-01-01`, dateTo: `${year}-12-31` });
   }
 
   // Get all projects
   async getAllProjects(): Promise<ApiResponse<ApiProjectCard[]>> {
-    return this.request('/api/v1/projects');
+    return this.requestPages('/api/v1/projects', new URLSearchParams(), Number.MAX_SAFE_INTEGER);
   }
 }
 
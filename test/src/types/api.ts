@@ -31,6 +31,32 @@ export interface ApiProjectCard {
   documentLinks: ApiDocumentLink[];
 }
 
+// Строка списка результатов (view=summary): без показателей, ответственных и документов
+export interface ApiProjectSummary {
+  id: string;
+  title: string;
+  address: string;
+  status: string;
+  startDate: string;
+  endDate: string;
+}
+
+// Страница результатов с курсором (search_after)
+export interface ApiCursorPage<T> {
+  items: T[];
+  totalHits: number;
+  totalHitsRelation: 'eq' | 'gte';
+  nextCursor: string | null;
+  // Только на первой странице /search
+  facets?: ApiSearchFacets;
+}
+
+// Фасеты выдачи: статус -> число карточек, год начала строительства -> число карточек
+export interface ApiSearchFacets {
+  statuses: Record<string, number>;
+  years: Record<string, number>;
+}
+
 // API Error Types
 export interface ApiError {
   message: string;
@@ -39,7 +65,17 @@ export interface ApiError {
 
 // API Client Types
 export interface SearchParams {
-  q: string;
+  q?: string;
+  // Фильтры без влияния на релевантность
+  status?: string[];
+  dateFrom?: string; // yyyy-MM-dd
+  dateTo?: string; // yyyy-MM-dd
+  person?: string;
+  // Значение показателя в диапазоне, например этажность от 10
+  indicator?: string;
+  indicatorSection?: string; // "Секция №1" или "total"; без неё - любая секция
+  indicatorMin?: number;
+  indicatorMax?: number;
   city?: string;
   residentialComplex?: string;
 }